@@ -0,0 +1,51 @@
+package com.apigateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * The Cache-Control directives the response cache acts on. Unknown directives are ignored and a
+ * malformed max-age counts as absent.
+ */
+public record CacheControlDirectives(boolean noStore, boolean noCache, boolean privateOnly, Duration maxAge) {
+
+    public static CacheControlDirectives of(HttpHeaders headers) {
+        boolean noStore = false;
+        boolean noCache = false;
+        boolean privateOnly = false;
+        Duration maxAge = null;
+        Duration sharedMaxAge = null;
+        for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : value.split(",")) {
+                String name = directive.trim().toLowerCase(Locale.ROOT);
+                String argument = null;
+                int equals = name.indexOf('=');
+                if (equals >= 0) {
+                    argument = name.substring(equals + 1).trim().replace("\"", "");
+                    name = name.substring(0, equals).trim();
+                }
+                switch (name) {
+                    case "no-store" -> noStore = true;
+                    case "no-cache" -> noCache = true;
+                    case "private" -> privateOnly = true;
+                    case "max-age" -> maxAge = seconds(argument);
+                    case "s-maxage" -> sharedMaxAge = seconds(argument);
+                    default -> {
+                    }
+                }
+            }
+        }
+        // s-maxage is meant for shared caches such as this one and overrides max-age
+        return new CacheControlDirectives(noStore, noCache, privateOnly, sharedMaxAge != null ? sharedMaxAge : maxAge);
+    }
+
+    private static Duration seconds(String argument) {
+        try {
+            return argument != null ? Duration.ofSeconds(Long.parseLong(argument)) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
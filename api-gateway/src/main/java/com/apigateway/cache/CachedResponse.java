@@ -0,0 +1,18 @@
+package com.apigateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.time.Duration;
+
+/**
+ * A response as it came from the downstream service, with the moment it was stored in ticker
+ * nanoseconds to compute its Age header from.
+ */
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body,
+                             long storedAtNanos, Duration timeToLive) {
+
+    long weight() {
+        return (long) body.length + headers.toString().length();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package com.apigateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * The GET responses of one route, bounded by the total size of headers and bodies. An entry
+ * lives for the route's time to live or the max-age of its response, whichever is shorter.
+ * <p>
+ * Every invalidation starts a new generation. A response fetched in an earlier generation is
+ * not stored, so one that was on its way while its user changed cannot outlive the event.
+ */
+public class ResponseCache {
+
+    private final Duration timeToLive;
+    private final Ticker ticker;
+    private final Cache<Key, CachedResponse> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+
+    public ResponseCache(Duration timeToLive, DataSize maximumSize) {
+        this(timeToLive, maximumSize, Ticker.systemTicker());
+    }
+
+    ResponseCache(Duration timeToLive, DataSize maximumSize, Ticker ticker) {
+        this.timeToLive = timeToLive;
+        this.ticker = ticker;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((Key key, CachedResponse response) -> (int) Math.min(Integer.MAX_VALUE, response.weight()))
+                .expireAfter(new ExpireAfterCreate())
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Requests that may share a response: same path and query, asking for the same media types.
+     */
+    public record Key(String path, String query, String accept) {
+
+        public static Key of(ServerHttpRequest request) {
+            return new Key(request.getURI().getRawPath(), request.getURI().getRawQuery(),
+                    request.getHeaders().getFirst(HttpHeaders.ACCEPT));
+        }
+    }
+
+    public CachedResponse get(Key key) {
+        CachedResponse response = entries.getIfPresent(key);
+        (response != null ? hits : misses).increment();
+        return response;
+    }
+
+    /**
+     * Counts a request that was sent downstream without looking at the cache.
+     */
+    public void recordBypass() {
+        bypasses.increment();
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Stores the response unless the cache was invalidated since {@code fetchedInGeneration}.
+     *
+     * @param maxAge how long the response allows to be cached, null if it does not say
+     */
+    public void put(Key key, HttpStatusCode status, HttpHeaders headers, byte[] body, Duration maxAge, long fetchedInGeneration) {
+        Duration entryTimeToLive = maxAge != null && maxAge.compareTo(timeToLive) < 0 ? maxAge : timeToLive;
+        if (entryTimeToLive.isZero() || entryTimeToLive.isNegative() || fetchedInGeneration != generation.get()) {
+            return;
+        }
+        entries.put(key, new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body,
+                ticker.read(), entryTimeToLive));
+        // An invalidation between the check above and the put may have missed the new entry
+        if (fetchedInGeneration != generation.get()) {
+            entries.invalidate(key);
+        }
+    }
+
+    /**
+     * Drops the entries of the paths matching the predicate.
+     */
+    public void invalidate(Predicate<String> path) {
+        generation.incrementAndGet();
+        entries.asMap().keySet().removeIf(key -> path.test(key.path()));
+    }
+
+    public Duration age(CachedResponse response) {
+        return Duration.ofNanos(ticker.read() - response.storedAtNanos());
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long bypasses() {
+        return bypasses.sum();
+    }
+
+    /**
+     * Share of cache lookups answered from the cache, 0 before the first lookup.
+     */
+    public double hitRatio() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    public long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    // An entry lives for the time to live it was stored with, reads do not extend it
+    private static final class ExpireAfterCreate implements Expiry<Key, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(Key key, CachedResponse response, long currentTime) {
+            return response.timeToLive().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, CachedResponse response, long currentTime, long currentDuration) {
+            return response.timeToLive().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(Key key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.apigateway.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The response caches of all routes that have the ResponseCache filter, one per route id, and
+ * their metrics:
+ * <ul>
+ *     <li>{@code gateway.response.cache.requests}, tagged with the route and hit, miss or bypass</li>
+ *     <li>{@code gateway.response.cache.hit.ratio}, hits per lookup since start</li>
+ *     <li>{@code gateway.response.cache.size}, entries currently held</li>
+ * </ul>
+ * A route keeps its first cache across route refreshes, changed settings take effect on restart.
+ */
+@Component
+public class ResponseCaches {
+
+    private final Map<String, ResponseCache> caches = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public ResponseCaches(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ResponseCache forRoute(String routeId, Duration timeToLive, DataSize maximumSize) {
+        return caches.computeIfAbsent(routeId, id -> {
+            ResponseCache cache = new ResponseCache(timeToLive, maximumSize);
+            registerMetrics(id, cache);
+            return cache;
+        });
+    }
+
+    /**
+     * Drops the entries of the paths matching the predicate from the caches of all routes.
+     */
+    public void invalidate(Predicate<String> path) {
+        caches.values().forEach(cache -> cache.invalidate(path));
+    }
+
+    private void registerMetrics(String routeId, ResponseCache cache) {
+        requestCounter(routeId, cache, "hit", ResponseCache::hits);
+        requestCounter(routeId, cache, "miss", ResponseCache::misses);
+        requestCounter(routeId, cache, "bypass", ResponseCache::bypasses);
+        Gauge.builder("gateway.response.cache.hit.ratio", cache, ResponseCache::hitRatio)
+                .tag("route", routeId)
+                .description("Share of cache lookups answered by the gateway")
+                .register(meterRegistry);
+        Gauge.builder("gateway.response.cache.size", cache, ResponseCache::size)
+                .tag("route", routeId)
+                .description("Responses held by the gateway")
+                .register(meterRegistry);
+    }
+
+    private void requestCounter(String routeId, ResponseCache cache, String result, ToDoubleFunction<ResponseCache> count) {
+        FunctionCounter.builder("gateway.response.cache.requests", cache, count)
+                .tag("route", routeId)
+                .tag("result", result)
+                .description("GET requests of cached routes by how the gateway answered them")
+                .register(meterRegistry);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,167 @@
+package com.apigateway.concurrency;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets requests through while fewer than the {@link GradientLimit} are in flight. Requests over
+ * the limit wait in a short first-in first-out queue until another one finishes, for at most
+ * {@code maxWait}; when the queue is full or the wait runs out they are rejected.
+ */
+public class ConcurrencyLimiter {
+
+    private final GradientLimit limit;
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final LongSupplier nanoTime;
+    // Guarded by this
+    private final Deque<Waiter> waiting = new ArrayDeque<>();
+    private int inFlight;
+
+    public ConcurrencyLimiter(GradientLimit limit, int maxQueue, Duration maxWait) {
+        this(limit, maxQueue, maxWait, System::nanoTime);
+    }
+
+    ConcurrencyLimiter(GradientLimit limit, int maxQueue, Duration maxWait, LongSupplier nanoTime) {
+        this.limit = limit;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return a permit once the request may go ahead, or empty when it is rejected
+     */
+    public Mono<Permit> acquire() {
+        return Mono.defer(() -> {
+            synchronized (this) {
+                if (waiting.isEmpty() && inFlight < limit.limit()) {
+                    return Mono.just(grant(false));
+                }
+                if (waiting.size() >= maxQueue) {
+                    return Mono.empty();
+                }
+            }
+            return Mono.<Permit>create(this::enqueue).timeout(maxWait, Mono.empty());
+        });
+    }
+
+    /**
+     * Ends a request and feeds its round trip time to the limit.
+     *
+     * @param dropped whether the upstream failed or timed out
+     */
+    public void release(Permit permit, boolean dropped) {
+        release(permit, nanoTime.getAsLong() - permit.startNanos(), dropped);
+    }
+
+    /**
+     * Ends a request and feeds the given round trip time to the limit, e.g. that of the upstream
+     * attempt alone when the request also waited for retries.
+     */
+    public void release(Permit permit, long rttNanos, boolean dropped) {
+        limit.onSample(rttNanos, permit.inFlight(), dropped);
+        releaseSlot();
+    }
+
+    /**
+     * Ends a request without a sample, e.g. one the client gave up on.
+     */
+    public void abandon(Permit permit) {
+        releaseSlot();
+    }
+
+    public int limit() {
+        return limit.limit();
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queued() {
+        return waiting.size();
+    }
+
+    private void enqueue(MonoSink<Permit> sink) {
+        Waiter waiter = new Waiter(sink);
+        // Registered first: a cancelled waiter must never be granted a slot nobody gives back
+        sink.onCancel(() -> cancel(waiter));
+        Permit permit = null;
+        synchronized (this) {
+            if (waiter.cancelled) {
+                return;
+            }
+            if (waiting.isEmpty() && inFlight < limit.limit()) {
+                waiter.granted = true;
+                permit = grant(true);
+            } else {
+                waiting.add(waiter);
+            }
+        }
+        if (permit != null) {
+            sink.success(permit);
+        }
+    }
+
+    private void cancel(Waiter waiter) {
+        synchronized (this) {
+            if (!waiter.granted) {
+                waiter.cancelled = true;
+                waiting.remove(waiter);
+                return;
+            }
+        }
+        // Granted, but cancelled before the permit reached the request
+        releaseSlot();
+    }
+
+    private void releaseSlot() {
+        List<Waiter> granted = new ArrayList<>();
+        List<Permit> permits = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            while (!waiting.isEmpty() && inFlight < limit.limit()) {
+                Waiter waiter = waiting.poll();
+                waiter.granted = true;
+                granted.add(waiter);
+                permits.add(grant(true));
+            }
+        }
+        for (int i = 0; i < granted.size(); i++) {
+            granted.get(i).sink.success(permits.get(i));
+        }
+    }
+
+    // Caller holds the lock
+    private Permit grant(boolean queued) {
+        inFlight++;
+        return new Permit(nanoTime.getAsLong(), inFlight, queued);
+    }
+
+    /**
+     * @param inFlight requests in flight when this one started, itself included
+     * @param queued   whether the request had to wait for its slot
+     */
+    public record Permit(long startNanos, int inFlight, boolean queued) {
+    }
+
+    private static final class Waiter {
+
+        private final MonoSink<Permit> sink;
+        // Guarded by the limiter
+        private boolean granted;
+        private boolean cancelled;
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.apigateway.concurrency;
+
+/**
+ * Concurrency limit derived from the round trip times of the requests, after the gradient
+ * algorithm of Netflix's concurrency-limits library. A slow moving average of the round trip
+ * time stands for the upstream's latency without a queue. Each sample moves the limit towards
+ * {@code limit * gradient + queueSize}, where the gradient is {@code tolerance * averageRtt / rtt}
+ * capped to [0.5, 1]. While the upstream answers as fast as usual, the limit grows by up to
+ * {@code queueSize}. Once requests start to queue in the upstream and the round trip time rises
+ * above {@code tolerance} times the average, it shrinks in proportion.
+ * <p>
+ * Failed requests cut the limit by a tenth, since they often fail fast and would otherwise look
+ * like good news. Samples taken while less than half of the limit was in use do not change it:
+ * they say nothing about how much more the upstream could take.
+ */
+public class GradientLimit {
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DROP_FACTOR = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final int queueSize;
+    private final int longWindow;
+    // Guarded by this, except for the reads of limit
+    private volatile double limit;
+    private double averageRtt;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                         int queueSize, int longWindow) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("concurrency limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (tolerance < 1 || smoothing <= 0 || smoothing > 1 || queueSize < 0 || longWindow < 1) {
+            throw new IllegalArgumentException("invalid gradient limit settings");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.queueSize = queueSize;
+        this.longWindow = longWindow;
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * @param inFlight requests in flight when this one started, itself included
+     */
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * DROP_FACTOR);
+            return;
+        }
+        double rtt = Math.max(rttNanos, 1);
+        if (averageRtt == 0) {
+            averageRtt = rtt;
+        } else {
+            averageRtt += (rtt - averageRtt) * 2 / (longWindow + 1);
+            // After a lasting drop in latency, e.g. once a slow upstream recovered, catch up faster
+            if (averageRtt > 2 * rtt) {
+                averageRtt *= 0.95;
+            }
+        }
+        if (inFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1, tolerance * averageRtt / rtt));
+        double target = limit * gradient + queueSize;
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + target * smoothing));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.apigateway.concurrency;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times each upstream attempt of a concurrency-limited request, from the moment its instance has
+ * been chosen until the response headers arrive, into the {@link #UPSTREAM_RTT_ATTR} the limit
+ * filter put on the exchange. The limit then learns from the upstream's round trip time alone,
+ * not from retry backoff or hedge delays spent further up the chain. The last attempt to
+ * complete wins: the one that answered after retries, or the hedge that answered first; a
+ * cancelled attempt records nothing.
+ */
+@Component
+public class UpstreamRttFilter implements GlobalFilter, Ordered {
+
+    /**
+     * An {@link AtomicLong} with the round trip time of the last completed attempt in
+     * nanoseconds, negative while none has completed.
+     */
+    public static final String UPSTREAM_RTT_ATTR = UpstreamRttFilter.class.getName() + ".upstreamRtt";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        AtomicLong rtt = exchange.getAttribute(UPSTREAM_RTT_ATTR);
+        if (rtt == null) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange).doOnSuccess(done -> rtt.set(System.nanoTime() - start));
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
\ No newline at end of file
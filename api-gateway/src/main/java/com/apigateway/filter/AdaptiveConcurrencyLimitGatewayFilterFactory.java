@@ -0,0 +1,259 @@
+package com.apigateway.filter;
+
+import com.apigateway.concurrency.ConcurrencyLimiter;
+import com.apigateway.concurrency.GradientLimit;
+import com.apigateway.concurrency.UpstreamRttFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the requests a route has in flight to what its upstream can take without queueing,
+ * learning the limit from the round trip times with a {@link GradientLimit}:
+ * <pre>
+ * filters:
+ *   - name: AdaptiveConcurrencyLimit
+ *     args:
+ *       initial-limit: 20
+ *       min-limit: 5
+ *       max-limit: 200
+ *       max-queue: 50     # requests waiting for a slot, 0 rejects at once
+ *       max-wait: 50ms
+ * </pre>
+ * Put before CircuitBreaker and Retry, so that rejections are neither retried nor counted as
+ * upstream failures. The limit learns from the round trip time of the upstream attempt that
+ * answered, taken by the {@link UpstreamRttFilter}, so time spent in retry backoff or waiting
+ * for a hedge does not pass for congestion. Rejected requests get 503 with Retry-After. Each
+ * route exports {@code gateway.concurrency.limit}, {@code gateway.concurrency.inflight} and
+ * {@code gateway.concurrency.queued}, and counts its requests in {@code gateway.concurrency.requests}
+ * tagged with admitted, queued or rejected. A route keeps its limiter across route refreshes;
+ * changed settings take effect on restart.
+ */
+@Component
+public class AdaptiveConcurrencyLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<AdaptiveConcurrencyLimitGatewayFilterFactory.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimitGatewayFilterFactory.class);
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimitGatewayFilterFactory(MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("initialLimit", "maxLimit");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = String.valueOf(config.getRouteId());
+        ConcurrencyLimiter limiter = limiters.computeIfAbsent(routeId, id -> {
+            ConcurrencyLimiter created = new ConcurrencyLimiter(new GradientLimit(config.getInitialLimit(),
+                    config.getMinLimit(), config.getMaxLimit(), config.getTolerance(), config.getSmoothing(),
+                    config.getQueueSize(), config.getLongWindow()), config.getMaxQueue(), config.getMaxWait());
+            registerGauges(id, created);
+            return created;
+        });
+        Counter admitted = requestCounter(routeId, "admitted");
+        Counter queued = requestCounter(routeId, "queued");
+        Counter rejected = requestCounter(routeId, "rejected");
+        return (exchange, chain) -> limiter.acquire()
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(permit -> {
+                    if (permit.isEmpty()) {
+                        rejected.increment();
+                        logger.debug("Лимит параллельных запросов маршрута {} исчерпан: {}", routeId, limiter.limit());
+                        return serviceUnavailable(exchange);
+                    }
+                    (permit.get().queued() ? queued : admitted).increment();
+                    return forward(exchange, chain, limiter, permit.get());
+                });
+    }
+
+    private static Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain,
+                                      ConcurrencyLimiter limiter, ConcurrencyLimiter.Permit permit) {
+        AtomicLong upstreamRtt = new AtomicLong(-1);
+        exchange.getAttributes().put(UpstreamRttFilter.UPSTREAM_RTT_ATTR, upstreamRtt);
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                limiter.abandon(permit);
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean dropped = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            long rtt = upstreamRtt.get();
+            // Without a completed upstream attempt, e.g. on a circuit breaker fallback, the whole request counts
+            if (rtt < 0) {
+                limiter.release(permit, dropped);
+            } else {
+                limiter.release(permit, rtt, dropped);
+            }
+        });
+    }
+
+    private void registerGauges(String routeId, ConcurrencyLimiter limiter) {
+        Gauge.builder("gateway.concurrency.limit", limiter, ConcurrencyLimiter::limit)
+                .tag("route", routeId)
+                .description("Requests the route may have in flight")
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter, ConcurrencyLimiter::inFlight)
+                .tag("route", routeId)
+                .description("Requests of the route in flight")
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.queued", limiter, ConcurrencyLimiter::queued)
+                .tag("route", routeId)
+                .description("Requests of the route waiting for a slot")
+                .register(meterRegistry);
+    }
+
+    private Counter requestCounter(String routeId, String result) {
+        return Counter.builder("gateway.concurrency.requests")
+                .tag("route", routeId)
+                .tag("result", result)
+                .description("Requests of concurrency-limited routes by the limiter's decision")
+                .register(meterRegistry);
+    }
+
+    private Mono<Void> serviceUnavailable(ServerWebExchange exchange) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.name());
+        body.put("error", HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase());
+        body.put("message", "Сервис перегружен. Пожалуйста, попробуйте позже.");
+        body.put("path", exchange.getRequest().getPath().value());
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.fromCallable(() -> response.bufferFactory().wrap(objectMapper.writeValueAsBytes(body))));
+    }
+
+    public static class Config implements HasRouteId {
+
+        private int initialLimit = 20;
+        private int minLimit = 5;
+        private int maxLimit = 200;
+        private int maxQueue = 50;
+        private Duration maxWait = Duration.ofMillis(50);
+        private double tolerance = 1.5;
+        private double smoothing = 0.2;
+        private int queueSize = 4;
+        private int longWindow = 600;
+        private String routeId;
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public int getLongWindow() {
+            return longWindow;
+        }
+
+        public void setLongWindow(int longWindow) {
+            this.longWindow = longWindow;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+    }
+}
\ No newline at end of file
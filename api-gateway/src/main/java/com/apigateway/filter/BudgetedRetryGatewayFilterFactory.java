@@ -0,0 +1,274 @@
+package com.apigateway.filter;
+
+import com.apigateway.retry.JitteredBackoff;
+import com.apigateway.retry.RetryBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.event.EnableBodyCachingEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retries failed requests of a route, within a {@link RetryBudget} and with
+ * {@link JitteredBackoff} between the attempts:
+ * <pre>
+ * filters:
+ *   - name: BudgetedRetry
+ *     args:
+ *       retries: 3
+ *       statuses: BAD_GATEWAY,SERVICE_UNAVAILABLE
+ *       methods: GET,HEAD,OPTIONS,PUT,DELETE  # other methods only with the idempotency key header
+ *       first-backoff: 50ms
+ *       max-backoff: 1s
+ *       budget-ratio: 0.1                     # retries per request over the budget window
+ * </pre>
+ * Requests of other methods are retried only when the client sent an {@code Idempotency-Key}
+ * header, i.e. declared that repeating the request is safe. Unlike the built-in Retry filter,
+ * retries stop as soon as the budget is spent, so an outage costs the upstream at most
+ * {@code budget-ratio} extra load. Retries are counted in {@code gateway.retry.attempts}, tagged
+ * with the route and retried or budget_exhausted. A route keeps its budget across route
+ * refreshes; changed budget settings take effect on restart.
+ */
+@Component
+public class BudgetedRetryGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<BudgetedRetryGatewayFilterFactory.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetedRetryGatewayFilterFactory.class);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RetryBudget> routeBudgets = new ConcurrentHashMap<>();
+
+    public BudgetedRetryGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("retries", "statuses", "methods");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Keeps the request body of the route readable for the next attempt
+        if (config.getRouteId() != null && getPublisher() != null) {
+            getPublisher().publishEvent(new EnableBodyCachingEvent(this, config.getRouteId()));
+        }
+        RetryBudget budget = routeBudgets.computeIfAbsent(String.valueOf(config.getRouteId()),
+                id -> new RetryBudget(config.getBudgetRatio(), config.getMinRetriesPerSecond(), config.getBudgetWindow()));
+        JitteredBackoff backoff = new JitteredBackoff(config.getFirstBackoff(), config.getMaxBackoff(),
+                config.getFactor());
+        Counter retried = attemptCounter(config.getRouteId(), "retried");
+        Counter exhausted = attemptCounter(config.getRouteId(), "budget_exhausted");
+        Retrier retrier = new Retrier(config, budget, backoff, retried, exhausted);
+        return (exchange, chain) -> {
+            budget.recordRequest();
+            if (!isRetryable(config, exchange.getRequest())) {
+                return chain.filter(exchange);
+            }
+            return retrier.attempt(exchange, chain, 0);
+        };
+    }
+
+    private Counter attemptCounter(String routeId, String result) {
+        return Counter.builder("gateway.retry.attempts")
+                .tag("route", String.valueOf(routeId))
+                .tag("result", result)
+                .description("Retries of failed requests by whether the retry budget allowed them")
+                .register(meterRegistry);
+    }
+
+    private static boolean isRetryable(Config config, ServerHttpRequest request) {
+        if (config.getMethods().contains(request.getMethod())) {
+            return true;
+        }
+        String idempotencyKey = request.getHeaders().getFirst(config.getIdempotencyKeyHeader());
+        return idempotencyKey != null && !idempotencyKey.isBlank();
+    }
+
+    private record Retrier(Config config, RetryBudget budget, JitteredBackoff backoff,
+                           Counter retried, Counter exhausted) {
+
+        Mono<Void> attempt(ServerWebExchange exchange, GatewayFilterChain chain, int retry) {
+            return chain.filter(exchange)
+                    .then(Mono.just(Optional.<Throwable>empty()))
+                    .onErrorResume(error -> Mono.just(Optional.of(error)))
+                    .flatMap(error -> {
+                        boolean failed = error.map(this::isRetryableError).orElseGet(() -> isRetryableStatus(exchange));
+                        if (!failed || retry >= config.getRetries() || exchange.getResponse().isCommitted()) {
+                            return error.map(Mono::<Void>error).orElseGet(Mono::empty);
+                        }
+                        if (!budget.tryAcquireRetry()) {
+                            exhausted.increment();
+                            logger.debug("Бюджет повторов маршрута {} исчерпан, запрос {} не повторяется",
+                                    config.getRouteId(), exchange.getRequest().getPath());
+                            return error.map(Mono::<Void>error).orElseGet(Mono::empty);
+                        }
+                        retried.increment();
+                        reset(exchange);
+                        return Mono.delay(backoff.delay(retry)).then(attempt(exchange, chain, retry + 1));
+                    });
+        }
+
+        private boolean isRetryableStatus(ServerWebExchange exchange) {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            return status != null && config.getStatuses().stream().anyMatch(retryable -> retryable.value() == status.value());
+        }
+
+        private boolean isRetryableError(Throwable error) {
+            for (Throwable current = error; current != null; current = current.getCause()) {
+                Throwable cause = current;
+                if (config.getExceptions().stream().anyMatch(type -> type.isInstance(cause))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Same as the built-in Retry filter: drop the failed upstream response before routing again
+        private static void reset(ServerWebExchange exchange) {
+            Connection connection = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+            if (connection != null) {
+                connection.dispose();
+                exchange.getAttributes().remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+            }
+            ServerWebExchangeUtils.reset(exchange);
+        }
+    }
+
+    public static class Config implements HasRouteId {
+
+        private int retries = 3;
+        private List<HttpStatus> statuses = List.of(HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE);
+        private List<HttpMethod> methods = List.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS,
+                HttpMethod.PUT, HttpMethod.DELETE);
+        private String idempotencyKeyHeader = "Idempotency-Key";
+        private List<Class<? extends Throwable>> exceptions = List.of(IOException.class, TimeoutException.class);
+        private Duration firstBackoff = Duration.ofMillis(50);
+        private Duration maxBackoff = Duration.ofSeconds(1);
+        private double factor = 2;
+        private double budgetRatio = 0.1;
+        private double minRetriesPerSecond = 1;
+        private Duration budgetWindow = Duration.ofSeconds(10);
+        private String routeId;
+
+        public int getRetries() {
+            return retries;
+        }
+
+        public void setRetries(int retries) {
+            this.retries = retries;
+        }
+
+        public List<HttpStatus> getStatuses() {
+            return statuses;
+        }
+
+        public void setStatuses(List<HttpStatus> statuses) {
+            this.statuses = statuses;
+        }
+
+        public List<HttpMethod> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<HttpMethod> methods) {
+            this.methods = methods;
+        }
+
+        public String getIdempotencyKeyHeader() {
+            return idempotencyKeyHeader;
+        }
+
+        public void setIdempotencyKeyHeader(String idempotencyKeyHeader) {
+            this.idempotencyKeyHeader = idempotencyKeyHeader;
+        }
+
+        public List<Class<? extends Throwable>> getExceptions() {
+            return exceptions;
+        }
+
+        public void setExceptions(List<Class<? extends Throwable>> exceptions) {
+            this.exceptions = exceptions;
+        }
+
+        public Duration getFirstBackoff() {
+            return firstBackoff;
+        }
+
+        public void setFirstBackoff(Duration firstBackoff) {
+            this.firstBackoff = firstBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public double getFactor() {
+            return factor;
+        }
+
+        public void setFactor(double factor) {
+            this.factor = factor;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public double getMinRetriesPerSecond() {
+            return minRetriesPerSecond;
+        }
+
+        public void setMinRetriesPerSecond(double minRetriesPerSecond) {
+            this.minRetriesPerSecond = minRetriesPerSecond;
+        }
+
+        public Duration getBudgetWindow() {
+            return budgetWindow;
+        }
+
+        public void setBudgetWindow(Duration budgetWindow) {
+            this.budgetWindow = budgetWindow;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+    }
+}
\ No newline at end of file
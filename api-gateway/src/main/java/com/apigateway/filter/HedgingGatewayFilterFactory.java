@@ -0,0 +1,361 @@
+package com.apigateway.filter;
+
+import com.apigateway.hedge.LatencyPercentile;
+import com.apigateway.loadbalancer.PeakEwmaLoadBalancer;
+import com.apigateway.retry.RetryBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.Connection;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hedges slow GET requests of a route: when the first attempt has not answered after the hedge
+ * delay, a second one goes to a different instance and whichever answers first is taken, the
+ * other is cancelled.
+ * <pre>
+ * filters:
+ *   - name: Hedging
+ *     args:
+ *       percentile: 95       # hedge after the route's observed p95, 0 always waits the delay
+ *       delay: 100ms         # until the route has seen enough requests for the percentile
+ *       budget-ratio: 0.1    # hedges per GET request over the budget window
+ * </pre>
+ * Put last, after BudgetedRetry, so that each retry can be hedged as well. Hedges are capped by a
+ * {@link RetryBudget}: when the whole upstream slows down and every request passes the delay,
+ * hedging adds at most {@code budget-ratio} to the load. A hedge that fails or answers with 5xx
+ * is ignored, the first attempt decides how the request fails. Hedges are counted in
+ * {@code gateway.hedge.attempts}, tagged with the route and sent or budget_exhausted, and the ones
+ * that answered first in {@code gateway.hedge.won}. A route keeps its budget and latencies across
+ * route refreshes; changed budget settings take effect on restart.
+ */
+@Component
+public class HedgingGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgingGatewayFilterFactory.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingGatewayFilterFactory.class);
+
+    // The percentile is taken over the last thousand requests and recomputed every hundred
+    private static final int LATENCY_SAMPLES = 1000;
+    private static final int LATENCY_REFRESH_INTERVAL = 100;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteHedging> routes = new ConcurrentHashMap<>();
+
+    public HedgingGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("percentile", "delay");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = String.valueOf(config.getRouteId());
+        RouteHedging route = routes.computeIfAbsent(routeId, id -> new RouteHedging(
+                new RetryBudget(config.getBudgetRatio(), config.getMinHedgesPerSecond(), config.getBudgetWindow()),
+                config.getPercentile() > 0
+                        ? new LatencyPercentile(config.getPercentile(), LATENCY_SAMPLES, LATENCY_REFRESH_INTERVAL)
+                        : null));
+        Counter sent = attemptCounter(routeId, "sent");
+        Counter exhausted = attemptCounter(routeId, "budget_exhausted");
+        Counter won = Counter.builder("gateway.hedge.won")
+                .tag("route", routeId)
+                .description("Hedges that answered before the attempt they backed up")
+                .register(meterRegistry);
+        return (exchange, chain) -> {
+            if (!HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+                return chain.filter(exchange);
+            }
+            // Only requests that can be hedged count, or a burst of writes would allow more hedges
+            route.budget().recordRequest();
+            long start = System.nanoTime();
+            Attempt first = new Attempt(exchange, exchange.getRequest());
+            AtomicReference<Attempt> hedge = new AtomicReference<>();
+            Mono<Attempt> hedged = Mono.delay(route.delay(config)).flatMap(tick -> {
+                if (!route.budget().tryAcquireRetry()) {
+                    exhausted.increment();
+                    logger.debug("Бюджет хеджирования маршрута {} исчерпан, запрос {} не дублируется",
+                            routeId, exchange.getRequest().getPath());
+                    return Mono.never();
+                }
+                sent.increment();
+                Attempt attempt = new Attempt(exchange, excluding(exchange.getRequest(), first.chosenInstance()));
+                hedge.set(attempt);
+                return attempt.run(chain)
+                        .filter(Attempt::succeeded)
+                        .onErrorResume(error -> {
+                            logger.debug("Дублирующий запрос {} завершился ошибкой: {}",
+                                    exchange.getRequest().getPath(), error.getMessage());
+                            return Mono.empty();
+                        })
+                        // Leaves the answer to the first attempt
+                        .switchIfEmpty(Mono.defer(() -> {
+                            attempt.discard();
+                            return Mono.never();
+                        }));
+            });
+            return Mono.firstWithSignal(first.run(chain), hedged)
+                    .doOnNext(winner -> {
+                        Attempt loser = winner == first ? hedge.get() : first;
+                        if (loser != null) {
+                            loser.discard();
+                        }
+                        if (winner != first) {
+                            won.increment();
+                        }
+                        winner.copyTo(exchange);
+                        if (winner.succeeded()) {
+                            route.record(Duration.ofNanos(System.nanoTime() - start));
+                        }
+                    })
+                    .then();
+        };
+    }
+
+    private Counter attemptCounter(String routeId, String result) {
+        return Counter.builder("gateway.hedge.attempts")
+                .tag("route", routeId)
+                .tag("result", result)
+                .description("Hedges of slow requests by whether the hedge budget allowed them")
+                .register(meterRegistry);
+    }
+
+    // Copies the headers: mutating the request would edit the first attempt's headers in place
+    private static ServerHttpRequest excluding(ServerHttpRequest request, String instance) {
+        if (instance == null) {
+            return request;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(request.getHeaders());
+        headers.set(PeakEwmaLoadBalancer.EXCLUDED_INSTANCE_HEADER, instance);
+        return new ServerHttpRequestDecorator(request) {
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+
+    /**
+     * @param latencies null when the route always waits the configured delay
+     */
+    private record RouteHedging(RetryBudget budget, LatencyPercentile latencies) {
+
+        Duration delay(Config config) {
+            return latencies == null ? config.getDelay() : latencies.value().orElse(config.getDelay());
+        }
+
+        void record(Duration latency) {
+            if (latencies != null) {
+                latencies.record(latency);
+            }
+        }
+    }
+
+    /**
+     * One attempt of a hedged request. It runs on its own copy of the exchange attributes and
+     * keeps the response status and headers to itself, so that the loser leaves no trace in the
+     * exchange; the winner's are copied over once it is known.
+     */
+    private static final class Attempt {
+
+        private final Map<String, Object> attributes;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ServerWebExchange exchange;
+        private volatile HttpStatusCode status;
+        private volatile boolean discarded;
+
+        Attempt(ServerWebExchange original, ServerHttpRequest request) {
+            attributes = new ConcurrentHashMap<>(original.getAttributes());
+            // Chosen anew for each attempt, e.g. when a retry is hedged
+            attributes.remove(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+            // The load balancer adds to this set, which must not be shared between threads
+            Set<URI> originalUrls = original.getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+            if (originalUrls != null) {
+                attributes.put(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR, new LinkedHashSet<>(originalUrls));
+            }
+            ServerHttpResponse response = new ServerHttpResponseDecorator(original.getResponse()) {
+                @Override
+                public HttpHeaders getHeaders() {
+                    return headers;
+                }
+
+                @Override
+                public boolean setStatusCode(HttpStatusCode statusCode) {
+                    status = statusCode;
+                    return true;
+                }
+
+                @Override
+                public HttpStatusCode getStatusCode() {
+                    return status;
+                }
+
+                @Override
+                @Deprecated
+                public boolean setRawStatusCode(Integer statusCode) {
+                    return setStatusCode(statusCode != null ? HttpStatusCode.valueOf(statusCode) : null);
+                }
+
+                @Override
+                @Deprecated
+                public Integer getRawStatusCode() {
+                    return status != null ? status.value() : null;
+                }
+
+                @Override
+                public boolean isCommitted() {
+                    return false;
+                }
+            };
+            exchange = new ServerWebExchangeDecorator(original) {
+                @Override
+                public ServerHttpRequest getRequest() {
+                    return request;
+                }
+
+                @Override
+                public ServerHttpResponse getResponse() {
+                    return response;
+                }
+
+                @Override
+                public Map<String, Object> getAttributes() {
+                    return attributes;
+                }
+            };
+        }
+
+        Mono<Attempt> run(GatewayFilterChain chain) {
+            return chain.filter(exchange).thenReturn(this).doFinally(signal -> {
+                if (signal == SignalType.CANCEL || discarded) {
+                    disposeConnection();
+                }
+            });
+        }
+
+        /**
+         * @return the {@code host:port} the load balancer sent this attempt to, if it has chosen yet
+         */
+        String chosenInstance() {
+            Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+            return chosen != null && chosen.hasServer() ? PeakEwmaLoadBalancer.address(chosen.getServer()) : null;
+        }
+
+        boolean succeeded() {
+            return status == null || !status.is5xxServerError();
+        }
+
+        void copyTo(ServerWebExchange original) {
+            original.getAttributes().putAll(attributes);
+            if (status != null) {
+                original.getResponse().setStatusCode(status);
+            }
+            original.getResponse().getHeaders().putAll(headers);
+        }
+
+        // The loser may have received its response headers just before it was cancelled
+        void discard() {
+            discarded = true;
+            disposeConnection();
+        }
+
+        private void disposeConnection() {
+            Connection connection = (Connection) attributes.remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+            if (connection != null) {
+                connection.dispose();
+            }
+        }
+    }
+
+    public static class Config implements HasRouteId {
+
+        private double percentile = 95;
+        private Duration delay = Duration.ofMillis(100);
+        private double budgetRatio = 0.1;
+        private double minHedgesPerSecond = 1;
+        private Duration budgetWindow = Duration.ofSeconds(10);
+        private String routeId;
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getDelay() {
+            return delay;
+        }
+
+        public void setDelay(Duration delay) {
+            this.delay = delay;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public double getMinHedgesPerSecond() {
+            return minHedgesPerSecond;
+        }
+
+        public void setMinHedgesPerSecond(double minHedgesPerSecond) {
+            this.minHedgesPerSecond = minHedgesPerSecond;
+        }
+
+        public Duration getBudgetWindow() {
+            return budgetWindow;
+        }
+
+        public void setBudgetWindow(Duration budgetWindow) {
+            this.budgetWindow = budgetWindow;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+    }
+}
\ No newline at end of file
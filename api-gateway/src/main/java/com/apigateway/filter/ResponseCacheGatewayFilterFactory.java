@@ -0,0 +1,274 @@
+package com.apigateway.filter;
+
+import com.apigateway.cache.CacheControlDirectives;
+import com.apigateway.cache.CachedResponse;
+import com.apigateway.cache.ResponseCache;
+import com.apigateway.cache.ResponseCaches;
+import com.apigateway.kafka.UserEventCacheListener;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Answers GET requests of a route from a {@link ResponseCache}, sized per route in application.yml:
+ * <pre>
+ * filters:
+ *   - name: ResponseCache
+ *     args:
+ *       time-to-live: 60s
+ *       maximum-size: 10MB
+ *       maximum-entry-size: 256KB
+ * </pre>
+ * Only 200 responses are stored, and only when their Cache-Control lets a shared cache reuse them
+ * without revalidation; a shorter max-age or s-maxage wins over the time to live. Only responses
+ * with a Content-Length up to the maximum entry size are held in memory to be stored, chunked and
+ * larger ones, such as the export stream, go through as they arrive. A request with Cache-Control
+ * no-cache goes downstream and refreshes the entry, one with no-store bypasses the cache. So does
+ * one with user-service's read-your-writes cookie, which has to reach the primary database.
+ * If-None-Match and If-Modified-Since are answered by the gateway from the stored ETag and
+ * Last-Modified. Hits never reach the filters after this one, such as circuit breaker and retry.
+ * <p>
+ * A successful write through the route evicts the responses about the user it changed before the
+ * client gets its answer, without waiting for the user event; the event evicts them on the
+ * other gateway instances.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    // Ahead of the filter that writes the downstream response, so it writes through the decorator below
+    static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    // Connection-level headers, they describe the exchange with the downstream service, not the response
+    private static final List<String> UNSTORED_HEADERS = List.of(HttpHeaders.CONNECTION, "Keep-Alive",
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONTENT_LENGTH);
+
+    private static final Set<HttpMethod> WRITE_METHODS = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH,
+            HttpMethod.DELETE);
+
+    // Set by user-service's ReadYourWritesFilter after a write, for as long as reads must see it
+    static final String READ_YOUR_WRITES_COOKIE = "primary-reads-until";
+
+    private final ResponseCaches responseCaches;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCaches responseCaches) {
+        super(Config.class);
+        this.responseCaches = responseCaches;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("timeToLive", "maximumSize", "maximumEntrySize");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        ResponseCache cache = responseCaches.forRoute(config.getRouteId(), config.getTimeToLive(), config.getMaximumSize());
+        long maximumEntrySize = config.getMaximumEntrySize().toBytes();
+        return new OrderedGatewayFilter((exchange, chain) -> filter(cache, maximumEntrySize, exchange, chain), ORDER);
+    }
+
+    private Mono<Void> filter(ResponseCache cache, long maximumEntrySize, ServerWebExchange exchange,
+                              GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (WRITE_METHODS.contains(request.getMethod())) {
+            exchange.getResponse().beforeCommit(() -> {
+                evictIfWritten(exchange);
+                return Mono.empty();
+            });
+            return chain.filter(exchange);
+        }
+        if (request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        CacheControlDirectives directives = CacheControlDirectives.of(request.getHeaders());
+        if (directives.noStore()) {
+            cache.recordBypass();
+            return chain.filter(exchange);
+        }
+
+        ResponseCache.Key key = ResponseCache.Key.of(request);
+        if (directives.noCache() || request.getCookies().containsKey(READ_YOUR_WRITES_COOKIE)) {
+            cache.recordBypass();
+        } else {
+            CachedResponse cached = cache.get(key);
+            if (cached != null) {
+                return serve(cache, cached, exchange);
+            }
+        }
+
+        // Downstream has to send the full response for it to be stored, conditionals are answered here.
+        // A copy, request.mutate() would edit the headers the conditionals are later read from.
+        HttpHeaders unconditionalHeaders = new HttpHeaders();
+        unconditionalHeaders.putAll(request.getHeaders());
+        unconditionalHeaders.remove(HttpHeaders.IF_NONE_MATCH);
+        unconditionalHeaders.remove(HttpHeaders.IF_MODIFIED_SINCE);
+        ServerHttpRequest unconditional = new ServerHttpRequestDecorator(request) {
+            @Override
+            public HttpHeaders getHeaders() {
+                return unconditionalHeaders;
+            }
+        };
+        StoringResponse response = new StoringResponse(exchange, cache, key, cache.generation(), maximumEntrySize);
+        return chain.filter(exchange.mutate().request(unconditional).response(response).build());
+    }
+
+    // Before the client can send its next request, so that no GET gets the old body and ETag
+    private void evictIfWritten(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status != null && status.is2xxSuccessful()) {
+            Long userId = UserEventCacheListener.userIdOf(exchange.getRequest().getPath().value());
+            responseCaches.invalidate(UserEventCacheListener.stalePaths(userId));
+        }
+    }
+
+    private static Mono<Void> serve(ResponseCache cache, CachedResponse cached, ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().set(HttpHeaders.AGE, String.valueOf(cache.age(cached).toSeconds()));
+        if (notModified(exchange, cached.headers())) {
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    // Sets the status to 304 when the request's validators match
+    private static boolean notModified(ServerWebExchange exchange, HttpHeaders headers) {
+        long lastModified = headers.getLastModified();
+        return exchange.checkNotModified(headers.getETag(),
+                lastModified >= 0 ? Instant.ofEpochMilli(lastModified) : Instant.MIN);
+    }
+
+    private static boolean isStorable(ServerHttpResponse response, CacheControlDirectives directives) {
+        HttpHeaders headers = response.getHeaders();
+        return HttpStatus.OK.equals(response.getStatusCode())
+                && !directives.noStore() && !directives.noCache() && !directives.privateOnly()
+                && !headers.containsKey(HttpHeaders.SET_COOKIE)
+                // Requests only share a response when they asked for the same media types
+                && headers.getVary().stream().allMatch(HttpHeaders.ACCEPT::equalsIgnoreCase);
+    }
+
+    private static boolean fitsEntry(HttpHeaders headers, long maximumEntrySize) {
+        long length = headers.getContentLength();
+        return length >= 0 && length <= maximumEntrySize;
+    }
+
+    /**
+     * Stores the body of a storable response on its way to the client.
+     */
+    private static final class StoringResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final ResponseCache cache;
+        private final ResponseCache.Key key;
+        private final long generation;
+        private final long maximumEntrySize;
+
+        StoringResponse(ServerWebExchange exchange, ResponseCache cache, ResponseCache.Key key, long generation,
+                        long maximumEntrySize) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.cache = cache;
+            this.key = key;
+            this.generation = generation;
+            this.maximumEntrySize = maximumEntrySize;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            CacheControlDirectives directives = CacheControlDirectives.of(getHeaders());
+            boolean storable = isStorable(getDelegate(), directives) && fitsEntry(getHeaders(), maximumEntrySize);
+            if (!storable) {
+                boolean conditional = !exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty()
+                        || exchange.getRequest().getHeaders().getIfModifiedSince() >= 0;
+                if (conditional && HttpStatus.OK.equals(getStatusCode()) && notModified(exchange, getHeaders())) {
+                    // Downstream got the request without its conditionals, its full body is not wanted
+                    getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                    return Flux.from(body).doOnNext(DataBufferUtils::release).then(setComplete());
+                }
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+                HttpHeaders stored = new HttpHeaders();
+                stored.putAll(getHeaders());
+                UNSTORED_HEADERS.forEach(stored::remove);
+                cache.put(key, getStatusCode(), stored, bytes, directives.maxAge(), generation);
+                if (notModified(exchange, getHeaders())) {
+                    getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                    return setComplete();
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+    }
+
+    public static class Config implements HasRouteId {
+
+        private Duration timeToLive = Duration.ofMinutes(1);
+        private DataSize maximumSize = DataSize.ofMegabytes(10);
+        private DataSize maximumEntrySize = DataSize.ofKilobytes(256);
+        private String routeId;
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public DataSize getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(DataSize maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public DataSize getMaximumEntrySize() {
+            return maximumEntrySize;
+        }
+
+        public void setMaximumEntrySize(DataSize maximumEntrySize) {
+            this.maximumEntrySize = maximumEntrySize;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+    }
+}
\ No newline at end of file
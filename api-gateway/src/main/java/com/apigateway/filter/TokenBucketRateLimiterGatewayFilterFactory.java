@@ -0,0 +1,207 @@
+package com.apigateway.filter;
+
+import com.apigateway.ratelimit.TokenBuckets;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the request rate of a route per client with in-memory {@link TokenBuckets}, so the
+ * limit holds per gateway instance:
+ * <pre>
+ * filters:
+ *   - name: TokenBucketRateLimiter
+ *     args:
+ *       key: client-ip          # client-ip, header or route
+ *       header-name: X-API-Key  # for key: header, clients without it are limited by IP
+ *       replenish-rate: 50      # requests per second
+ *       burst-capacity: 100
+ * </pre>
+ * Rejected requests get 429 with Retry-After. The decisions are counted in
+ * {@code gateway.ratelimit.requests}, tagged with the route and allowed or denied. A route keeps
+ * its buckets across route refreshes, which re-create the filter on every discovery heartbeat;
+ * changed settings take effect on restart.
+ */
+@Component
+public class TokenBucketRateLimiterGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<TokenBucketRateLimiterGatewayFilterFactory.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenBucketRateLimiterGatewayFilterFactory.class);
+
+    // Ahead of the response cache, answers from the cache count against the limit as well
+    private static final int ORDER = ResponseCacheGatewayFilterFactory.ORDER - 1;
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final Map<String, TokenBuckets> routeBuckets = new ConcurrentHashMap<>();
+
+    public TokenBucketRateLimiterGatewayFilterFactory(MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("replenishRate", "burstCapacity", "key");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        TokenBuckets buckets = routeBuckets.computeIfAbsent(String.valueOf(config.getRouteId()),
+                id -> new TokenBuckets(config.getReplenishRate(), config.getBurstCapacity(),
+                        config.getMaxKeys(), config.getIdleTimeout()));
+        Counter allowed = requestCounter(config.getRouteId(), "allowed");
+        Counter denied = requestCounter(config.getRouteId(), "denied");
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            String key = resolveKey(config, exchange);
+            long waitNanos = buckets.tryAcquire(key);
+            if (waitNanos == 0) {
+                allowed.increment();
+                return chain.filter(exchange);
+            }
+            denied.increment();
+            logger.debug("Превышен лимит запросов маршрута {} для ключа {}", config.getRouteId(), key);
+            return tooManyRequests(exchange, waitNanos);
+        }, ORDER);
+    }
+
+    private Counter requestCounter(String routeId, String result) {
+        return Counter.builder("gateway.ratelimit.requests")
+                .tag("route", String.valueOf(routeId))
+                .tag("result", result)
+                .description("Requests of rate-limited routes by the limiter's decision")
+                .register(meterRegistry);
+    }
+
+    // The address of the connection: X-Forwarded-For is set by the client unless a trusted proxy replaces it
+    private static String resolveKey(Config config, ServerWebExchange exchange) {
+        if (config.getKey() == KeySource.ROUTE) {
+            return "route";
+        }
+        if (config.getKey() == KeySource.HEADER) {
+            String value = exchange.getRequest().getHeaders().getFirst(config.getHeaderName());
+            if (value != null && !value.isBlank()) {
+                return "header:" + value;
+            }
+        }
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        return "ip:" + (remoteAddress != null && remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress() : "unknown");
+    }
+
+    private Mono<Void> tooManyRequests(ServerWebExchange exchange, long waitNanos) {
+        // Rounded up, a client retrying on time must find a token
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.name());
+        body.put("error", HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+        body.put("message", "Слишком много запросов. Повторите попытку через " + retryAfterSeconds + " с.");
+        body.put("path", exchange.getRequest().getPath().value());
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.fromCallable(() -> response.bufferFactory().wrap(objectMapper.writeValueAsBytes(body))));
+    }
+
+    public enum KeySource {
+        CLIENT_IP,
+        HEADER,
+        ROUTE
+    }
+
+    public static class Config implements HasRouteId {
+
+        private KeySource key = KeySource.CLIENT_IP;
+        private String headerName = "X-API-Key";
+        private double replenishRate = 50;
+        private int burstCapacity = 100;
+        private long maxKeys = 100_000;
+        private Duration idleTimeout = Duration.ofMinutes(10);
+        private String routeId;
+
+        public KeySource getKey() {
+            return key;
+        }
+
+        public void setKey(KeySource key) {
+            this.key = key;
+        }
+
+        public String getHeaderName() {
+            return headerName;
+        }
+
+        public void setHeaderName(String headerName) {
+            this.headerName = headerName;
+        }
+
+        public double getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(double replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public long getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(long maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+    }
+}
\ No newline at end of file
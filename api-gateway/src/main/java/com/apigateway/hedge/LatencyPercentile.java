@@ -0,0 +1,68 @@
+package com.apigateway.hedge;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A percentile of the latest latencies of a route, e.g. its p95. Samples go into a ring of the
+ * last {@code capacity} ones; every {@code refreshInterval} samples the thread recording the
+ * sample sorts a copy of the ring and publishes the new value. Sorting a thousand numbers every
+ * hundred requests costs next to nothing per request, and unlike a moving average the value
+ * follows the tail of the distribution, which is what a hedge delay has to match.
+ * <p>
+ * Samples overwritten while being copied make the value approximate, which is fine for a delay.
+ */
+public class LatencyPercentile {
+
+    private final double percentile;
+    private final int refreshInterval;
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+    private volatile long valueNanos = -1;
+
+    /**
+     * @param percentile      in (0, 100], e.g. 95 for the p95
+     * @param capacity        number of latest samples the percentile is taken over
+     * @param refreshInterval samples between two computations, also the samples needed for the first one
+     */
+    public LatencyPercentile(double percentile, int capacity, int refreshInterval) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be in (0, 100]: " + percentile);
+        }
+        if (capacity < 1 || refreshInterval < 1 || refreshInterval > capacity) {
+            throw new IllegalArgumentException("latency percentile must satisfy 1 <= refresh interval <= capacity");
+        }
+        this.percentile = percentile;
+        this.refreshInterval = refreshInterval;
+        this.samples = new AtomicLongArray(capacity);
+    }
+
+    public void record(Duration latency) {
+        long recorded = count.incrementAndGet();
+        samples.set((int) ((recorded - 1) % samples.length()), latency.toNanos());
+        if (recorded % refreshInterval == 0) {
+            refresh((int) Math.min(recorded, samples.length()));
+        }
+    }
+
+    /**
+     * @return the percentile, or empty until {@code refreshInterval} samples have been recorded
+     */
+    public Optional<Duration> value() {
+        long nanos = valueNanos;
+        return nanos < 0 ? Optional.empty() : Optional.of(Duration.ofNanos(nanos));
+    }
+
+    private void refresh(int size) {
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        valueNanos = sorted[Math.max(0, rank - 1)];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.apigateway.kafka;
+
+/**
+ * The part of user-service's user events the gateway needs to drop cached responses.
+ */
+public class UserEvent {
+    private String eventType;
+    private Long userId;
+    private String email;
+    private String previousEmail;
+
+    public UserEvent() {
+    }
+
+    public UserEvent(String eventType, Long userId, String email) {
+        this.eventType = eventType;
+        this.userId = userId;
+        this.email = email;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPreviousEmail() {
+        return previousEmail;
+    }
+
+    public void setPreviousEmail(String previousEmail) {
+        this.previousEmail = previousEmail;
+    }
+
+    @Override
+    public String toString() {
+        return "UserEvent{" +
+                "eventType='" + eventType + '\'' +
+                ", userId=" + userId +
+                ", email='" + email + '\'' +
+                ", previousEmail='" + previousEmail + '\'' +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.apigateway.kafka;
+
+import com.apigateway.cache.ResponseCaches;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drops the cached user-service responses a user event makes stale, whatever its type: the ones
+ * of the user itself and every response about more than one user, such as pages, counts and
+ * lookups by email. Every gateway instance joins with its own consumer group, kafka.cache.group-id,
+ * so each one sees every event.
+ */
+@Component
+public class UserEventCacheListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventCacheListener.class);
+
+    private static final String USERS_PATH = "/api/users";
+
+    private static final Pattern USER_PATH = Pattern.compile(Pattern.quote(USERS_PATH) + "/(\\d+)(/.*)?");
+
+    private final ResponseCaches responseCaches;
+
+    public UserEventCacheListener(ResponseCaches responseCaches) {
+        this.responseCaches = responseCaches;
+    }
+
+    @KafkaListener(topics = "${kafka.topic.user-events}", groupId = "${kafka.cache.group-id}")
+    public void onUserEvent(UserEvent event) {
+        logger.debug("Сброс кэша ответов по событию {} для пользователя {}", event.getEventType(), event.getUserId());
+        responseCaches.invalidate(stalePaths(event.getUserId()));
+    }
+
+    /**
+     * The id of the user a path is about, {@code null} when it is not about a single user.
+     */
+    public static Long userIdOf(String path) {
+        Matcher matcher = USER_PATH.matcher(path);
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    /**
+     * The paths whose responses a change of the user makes stale. Without a user, as for a
+     * create, only the responses about more than one user.
+     */
+    public static Predicate<String> stalePaths(Long userId) {
+        return path -> {
+            if (!path.equals(USERS_PATH) && !path.startsWith(USERS_PATH + "/")) {
+                return false;
+            }
+            Matcher matcher = USER_PATH.matcher(path);
+            return !matcher.matches() || matcher.group(1).equals(String.valueOf(userId));
+        };
+    }
+}
\ No newline at end of file
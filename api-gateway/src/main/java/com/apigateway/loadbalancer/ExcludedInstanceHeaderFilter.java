@@ -0,0 +1,25 @@
+package com.apigateway.loadbalancer;
+
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Keeps the {@link PeakEwmaLoadBalancer#EXCLUDED_INSTANCE_HEADER} inside the gateway: the load
+ * balancer has read it by the time the request is forwarded.
+ */
+@Component
+public class ExcludedInstanceHeaderFilter implements HttpHeadersFilter {
+
+    @Override
+    public HttpHeaders filter(HttpHeaders input, ServerWebExchange exchange) {
+        if (!input.containsKey(PeakEwmaLoadBalancer.EXCLUDED_INSTANCE_HEADER)) {
+            return input;
+        }
+        HttpHeaders filtered = new HttpHeaders();
+        filtered.putAll(input);
+        filtered.remove(PeakEwmaLoadBalancer.EXCLUDED_INSTANCE_HEADER);
+        return filtered;
+    }
+}
\ No newline at end of file
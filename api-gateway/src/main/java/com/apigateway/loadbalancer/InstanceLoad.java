@@ -0,0 +1,78 @@
+package com.apigateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Load of one upstream instance as seen from this gateway: a peak-sensitive moving average of
+ * its response latency, multiplied by the number of requests still waiting for it.
+ * <p>
+ * A latency above the average replaces it at once, lower ones pull it down with a weight that
+ * depends on the time since the previous observation. Without new observations the average
+ * decays towards zero over {@code decayTime}, so an instance that was slow once gets another
+ * chance instead of being avoided for good.
+ * <p>
+ * An instance nobody has heard from yet costs nothing while idle, so it gets a first request
+ * quickly. While that request is running it costs {@code penalty}, so a cold instance is not
+ * flooded before it has shown how fast it is. Failed requests count as at least
+ * {@code penalty} slow.
+ */
+public class InstanceLoad {
+
+    private final double decayNanos;
+    private final long penaltyNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    // Guarded by this
+    private double averageNanos;
+    private long stamp;
+    private boolean observed;
+
+    InstanceLoad(long decayNanos, long penaltyNanos, LongSupplier nanoTime) {
+        this.decayNanos = decayNanos;
+        this.penaltyNanos = penaltyNanos;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Counts a request sent to the instance.
+     *
+     * @return the start of the request, to pass to {@link #end}
+     */
+    public long start() {
+        outstanding.incrementAndGet();
+        return nanoTime.getAsLong();
+    }
+
+    /**
+     * Counts a request as answered, failed or abandoned, and records its latency.
+     */
+    public void end(long startNanos, boolean failed) {
+        outstanding.decrementAndGet();
+        long now = nanoTime.getAsLong();
+        long latency = now - startNanos;
+        observe(failed ? Math.max(latency, penaltyNanos) : latency, now);
+    }
+
+    /**
+     * Expected wait for a new request, in nanoseconds; the balancer prefers the lower one.
+     */
+    public synchronized double cost() {
+        int waiting = Math.max(outstanding.get(), 0);
+        if (!observed && waiting > 0) {
+            return penaltyNanos + waiting;
+        }
+        return averageNanos * weight(nanoTime.getAsLong()) * (waiting + 1);
+    }
+
+    private synchronized void observe(double latencyNanos, long now) {
+        double weight = weight(now);
+        averageNanos = latencyNanos > averageNanos ? latencyNanos : averageNanos * weight + latencyNanos * (1 - weight);
+        stamp = now;
+        observed = true;
+    }
+
+    private double weight(long now) {
+        return Math.exp(-Math.max(now - stamp, 0) / decayNanos);
+    }
+}
\ No newline at end of file
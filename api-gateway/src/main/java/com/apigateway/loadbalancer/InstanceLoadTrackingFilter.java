@@ -0,0 +1,50 @@
+package com.apigateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Records every request to a load-balanced instance in its {@link InstanceLoad}: runs right
+ * after the instance has been chosen and ends when its response headers arrive, the call fails
+ * or it is abandoned, e.g. on a circuit breaker timeout. Load balancer lifecycle callbacks would
+ * miss the last case and leave the request outstanding forever. Errors and 5xx responses count
+ * as failures, so an instance that fails fast does not look fast.
+ */
+@Component
+public class InstanceLoadTrackingFilter implements GlobalFilter, Ordered {
+
+    private final InstanceLoads instanceLoads;
+
+    public InstanceLoadTrackingFilter(InstanceLoads instanceLoads) {
+        this.instanceLoads = instanceLoads;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (chosen == null || !chosen.hasServer()) {
+            return chain.filter(exchange);
+        }
+        InstanceLoad load = instanceLoads.get(chosen.getServer());
+        long start = load.start();
+        return chain.filter(exchange).doFinally(signal -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            load.end(start, signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError()));
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.apigateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * The {@link InstanceLoad} of every upstream instance, shared by the {@link PeakEwmaLoadBalancer}
+ * of each service and the {@link InstanceLoadTrackingFilter} that feeds it. Instances that have
+ * not been used for ten minutes, typically ones that left the registry, are forgotten.
+ */
+@Component
+public class InstanceLoads {
+
+    private final long decayNanos;
+    private final long penaltyNanos;
+    private final LongSupplier nanoTime;
+    private final Cache<String, InstanceLoad> loads = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    @Autowired
+    public InstanceLoads(@Value("${gateway.loadbalancer.decay-time:10s}") Duration decayTime,
+                         @Value("${gateway.loadbalancer.penalty:1s}") Duration penalty) {
+        this(decayTime, penalty, System::nanoTime);
+    }
+
+    InstanceLoads(Duration decayTime, Duration penalty, LongSupplier nanoTime) {
+        this.decayNanos = decayTime.toNanos();
+        this.penaltyNanos = penalty.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    public InstanceLoad get(ServiceInstance instance) {
+        String key = instance.getServiceId() + "/" + instance.getHost() + ":" + instance.getPort();
+        return loads.get(key, k -> new InstanceLoad(decayNanos, penaltyNanos, nanoTime));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.apigateway.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power of two choices over the {@link InstanceLoads}: takes two random instances and sends the
+ * request to the one with the lower expected wait. Unlike round robin, an instance that turns
+ * slow, e.g. in a GC pause or with a cold JIT, stops getting its full share within a few
+ * requests. Picking from two random instances rather than the single best one keeps the gateway
+ * instances from all piling onto the same upstream.
+ * <p>
+ * A request carrying the {@link #EXCLUDED_INSTANCE_HEADER} goes to any instance but the one
+ * named there, as long as there is another one. Hedged requests use it to reach a different
+ * instance than the attempt they back up; the header is not forwarded upstream.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    /**
+     * Instance a request must not be sent to, as {@code host:port}.
+     */
+    public static final String EXCLUDED_INSTANCE_HEADER = "X-Gateway-Excluded-Instance";
+
+    private static final Logger logger = LoggerFactory.getLogger(PeakEwmaLoadBalancer.class);
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final InstanceLoads instanceLoads;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                String serviceId, InstanceLoads instanceLoads) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.instanceLoads = instanceLoads;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = choose(excluding(instances, excludedInstance(request)));
+            if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+                callback.selectedServiceInstance(response.getServer());
+            }
+            return response;
+        });
+    }
+
+    /**
+     * @return the {@code host:port} the {@link #EXCLUDED_INSTANCE_HEADER} refers to
+     */
+    public static String address(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static String excludedInstance(Request<?> request) {
+        if (request.getContext() instanceof RequestDataContext context && context.getClientRequest() != null) {
+            return context.getClientRequest().getHeaders().getFirst(EXCLUDED_INSTANCE_HEADER);
+        }
+        return null;
+    }
+
+    // Falls back to all instances rather than none when the excluded one is the only one
+    private static List<ServiceInstance> excluding(List<ServiceInstance> instances, String excluded) {
+        if (excluded == null) {
+            return instances;
+        }
+        List<ServiceInstance> others = instances.stream()
+                .filter(instance -> !Objects.equals(address(instance), excluded))
+                .toList();
+        return others.isEmpty() ? instances : others;
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            logger.warn("Нет доступных экземпляров сервиса {}", serviceId);
+            return new EmptyResponse();
+        }
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(instances.size());
+        // Any index but the first one
+        int second = (first + 1 + random.nextInt(instances.size() - 1)) % instances.size();
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return new DefaultResponse(instanceLoads.get(a).cost() <= instanceLoads.get(b).cost() ? a : b);
+    }
+}
\ No newline at end of file
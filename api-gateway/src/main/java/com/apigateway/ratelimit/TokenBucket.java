@@ -0,0 +1,55 @@
+package com.apigateway.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket holding up to {@code capacity} tokens, refilled with one token every
+ * {@code 1 / replenishRate} seconds. Instead of a token count it keeps the single moment the
+ * bucket will be full again, so taking a token is one compare-and-set on that moment: no lock,
+ * no refill task and no allocation per request.
+ */
+public class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    // Moment the bucket is full again; in the past while it is full
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double replenishRate, int capacity, long nowNanos) {
+        if (replenishRate <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("replenish rate and capacity must be positive");
+        }
+        this.nanosPerToken = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / replenishRate));
+        this.capacityNanos = nanosPerToken * capacity;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @return 0 when a token was taken, otherwise how long until the next one is available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            // A full bucket does not get fuller, however long it sat idle
+            long next = Math.max(current, nowNanos) + nanosPerToken;
+            long wait = next - nowNanos - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Time a bucket needs to fill up from empty; after that long without requests it is
+     * indistinguishable from a new one.
+     */
+    public long refillNanos() {
+        return capacityNanos;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.apigateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * One {@link TokenBucket} per client key, all with the same rate and capacity. The map is bounded
+ * and drops buckets that have not been used for the idle timeout. The timeout is never shorter
+ * than the time a bucket takes to fill up, so dropping a bucket cannot hand out tokens its
+ * client would not have had anyway. Only when more than {@code maxKeys} clients are active at
+ * once can an evicted client start over with a full bucket.
+ */
+public class TokenBuckets {
+
+    private final double replenishRate;
+    private final int capacity;
+    private final LongSupplier nanoTime;
+    private final Cache<String, TokenBucket> buckets;
+
+    public TokenBuckets(double replenishRate, int capacity, long maxKeys, Duration idleTimeout) {
+        this(replenishRate, capacity, maxKeys, idleTimeout, System::nanoTime);
+    }
+
+    TokenBuckets(double replenishRate, int capacity, long maxKeys, Duration idleTimeout, LongSupplier nanoTime) {
+        this.replenishRate = replenishRate;
+        this.capacity = capacity;
+        this.nanoTime = nanoTime;
+        long refillNanos = new TokenBucket(replenishRate, capacity, 0).refillNanos();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(Math.max(idleTimeout.toNanos(), refillNanos)))
+                .build();
+    }
+
+    /**
+     * @return 0 when the key may make a request, otherwise how long until it may make the next
+     */
+    public long tryAcquire(String key) {
+        long now = nanoTime.getAsLong();
+        return buckets.get(key, k -> new TokenBucket(replenishRate, capacity, now)).tryAcquire(now);
+    }
+
+    public long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.apigateway.retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Exponential backoff with full jitter: retry n (counting from 0) waits a random time between
+ * zero and {@code min(maxBackoff, firstBackoff * factor^n)}. Without the jitter, requests that
+ * failed together would retry together and hit the recovering service in waves.
+ */
+public class JitteredBackoff {
+
+    private final long firstNanos;
+    private final long maxNanos;
+    private final double factor;
+    private final DoubleSupplier random;
+
+    public JitteredBackoff(Duration firstBackoff, Duration maxBackoff, double factor) {
+        this(firstBackoff, maxBackoff, factor, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    JitteredBackoff(Duration firstBackoff, Duration maxBackoff, double factor, DoubleSupplier random) {
+        if (firstBackoff.isNegative() || maxBackoff.compareTo(firstBackoff) < 0 || factor < 1) {
+            throw new IllegalArgumentException("backoff must grow from the first to the maximum delay");
+        }
+        this.firstNanos = firstBackoff.toNanos();
+        this.maxNanos = maxBackoff.toNanos();
+        this.factor = factor;
+        this.random = random;
+    }
+
+    public Duration delay(int retry) {
+        double ceiling = Math.min(maxNanos, firstNanos * Math.pow(factor, retry));
+        return Duration.ofNanos((long) (ceiling * random.getAsDouble()));
+    }
+}
\ No newline at end of file
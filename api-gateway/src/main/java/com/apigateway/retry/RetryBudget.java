@@ -0,0 +1,96 @@
+package com.apigateway.retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Allows retries only while they stay below a share of the requests seen in a sliding window,
+ * plus a small floor so that a quiet route can still retry at all. While the upstream is healthy
+ * the budget is never felt. During an outage, when every request fails, retries add at most
+ * {@code ratio} to the load instead of multiplying it by the number of attempts.
+ * <p>
+ * The window is a ring of ten slots with atomic counters, so recording a request takes no lock.
+ * Counts are approximate while a slot turns over, and threads racing for the last retry can
+ * overshoot the budget by a few; neither matters for a budget.
+ * <p>
+ * Each gateway instance keeps its own budget. As every instance retries at most {@code ratio} of
+ * its own requests, all instances together retry at most {@code ratio} of the cluster's requests
+ * without sharing any state.
+ */
+public class RetryBudget {
+
+    private static final int SLOTS = 10;
+
+    private final double ratio;
+    private final double minRetriesPerWindow;
+    private final long slotNanos;
+    private final LongSupplier nanoTime;
+    // Slot i counts the requests and retries of the slot-sized period stored in slotPeriods[i]
+    private final AtomicLongArray slotPeriods = new AtomicLongArray(SLOTS);
+    private final AtomicLongArray requests = new AtomicLongArray(SLOTS);
+    private final AtomicLongArray retries = new AtomicLongArray(SLOTS);
+
+    public RetryBudget(double ratio, double minRetriesPerSecond, Duration window) {
+        this(ratio, minRetriesPerSecond, window, System::nanoTime);
+    }
+
+    RetryBudget(double ratio, double minRetriesPerSecond, Duration window, LongSupplier nanoTime) {
+        if (ratio < 0 || minRetriesPerSecond < 0) {
+            throw new IllegalArgumentException("retry ratio and minimum retries must not be negative");
+        }
+        if (window.toNanos() < SLOTS) {
+            throw new IllegalArgumentException("retry budget window is too short: " + window);
+        }
+        this.ratio = ratio;
+        this.minRetriesPerWindow = minRetriesPerSecond * window.toNanos() / Duration.ofSeconds(1).toNanos();
+        this.slotNanos = window.toNanos() / SLOTS;
+        this.nanoTime = nanoTime;
+        for (int i = 0; i < SLOTS; i++) {
+            slotPeriods.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Counts a request towards the budget, whether or not it will ever be retried.
+     */
+    public void recordRequest() {
+        requests.incrementAndGet(slot(period()));
+    }
+
+    /**
+     * Takes a retry from the budget if one is left.
+     */
+    public boolean tryAcquireRetry() {
+        long period = period();
+        int slot = slot(period);
+        long requested = 0;
+        long retried = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            if (slotPeriods.get(i) > period - SLOTS) {
+                requested += requests.get(i);
+                retried += retries.get(i);
+            }
+        }
+        if (retried >= minRetriesPerWindow + ratio * requested) {
+            return false;
+        }
+        retries.incrementAndGet(slot);
+        return true;
+    }
+
+    private long period() {
+        return Math.floorDiv(nanoTime.getAsLong(), slotNanos);
+    }
+
+    // Reuses the slot of a period that has left the window; whoever claims it clears the counts
+    private int slot(long period) {
+        int slot = (int) Math.floorMod(period, (long) SLOTS);
+        long current = slotPeriods.get(slot);
+        if (current < period && slotPeriods.compareAndSet(slot, current, period)) {
+            requests.set(slot, 0);
+            retries.set(slot, 0);
+        }
+        return slot;
+    }
+}
\ No newline at end of file
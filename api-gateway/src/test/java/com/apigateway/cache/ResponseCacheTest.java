@@ -0,0 +1,84 @@
+package com.apigateway.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ResponseCache unit tests")
+class ResponseCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final ResponseCache cache = new ResponseCache(Duration.ofSeconds(60), DataSize.ofKilobytes(1), nanos::get);
+
+    @Test
+    @DisplayName("entries should expire after the route's time to live")
+    void entriesShouldExpireAfterTimeToLive() {
+        ResponseCache.Key key = key("/api/users/1");
+        cache.put(key, HttpStatus.OK, new HttpHeaders(), new byte[10], null, cache.generation());
+
+        advance(Duration.ofSeconds(59));
+        assertNotNull(cache.get(key));
+        assertEquals(Duration.ofSeconds(59), cache.age(cache.get(key)));
+
+        advance(Duration.ofSeconds(1));
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    @DisplayName("a shorter max-age should win over the time to live")
+    void shorterMaxAgeShouldWin() {
+        ResponseCache.Key key = key("/api/users/1");
+        cache.put(key, HttpStatus.OK, new HttpHeaders(), new byte[10], Duration.ofSeconds(5), cache.generation());
+
+        advance(Duration.ofSeconds(5));
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    @DisplayName("bodies should count against the size limit")
+    void bodiesShouldCountAgainstSizeLimit() {
+        cache.put(key("/api/users/1"), HttpStatus.OK, new HttpHeaders(), new byte[600], null, cache.generation());
+        cache.put(key("/api/users/2"), HttpStatus.OK, new HttpHeaders(), new byte[600], null, cache.generation());
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("responses fetched before an invalidation should not be stored")
+    void staleGenerationShouldNotBeStored() {
+        long generation = cache.generation();
+        cache.invalidate(path -> false);
+
+        cache.put(key("/api/users/1"), HttpStatus.OK, new HttpHeaders(), new byte[10], null, generation);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("CacheControlDirectives should prefer s-maxage and ignore malformed values")
+    void directivesShouldBeParsed() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl("public, max-age=60, s-maxage=\"30\"");
+        assertEquals(Duration.ofSeconds(30), CacheControlDirectives.of(headers).maxAge());
+
+        headers.setCacheControl("Private, max-age=soon");
+        CacheControlDirectives directives = CacheControlDirectives.of(headers);
+        assertTrue(directives.privateOnly());
+        assertNull(directives.maxAge());
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private static ResponseCache.Key key(String path) {
+        return new ResponseCache.Key(path, null, null);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.apigateway.concurrency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("GradientLimit unit tests")
+class GradientLimitTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final GradientLimit limit = new GradientLimit(20, 5, 100, 1.5, 0.2, 4, 600);
+
+    @Test
+    @DisplayName("the limit should grow while the upstream answers as fast as usual")
+    void shouldGrowWhileLatencyIsSteady() {
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, limit.limit(), false);
+        }
+
+        assertTrue(limit.limit() > 40, "limit " + limit.limit());
+    }
+
+    @Test
+    @DisplayName("the limit should stay within the maximum")
+    void shouldNotGrowBeyondMaximum() {
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(RTT, limit.limit(), false);
+        }
+
+        assertEquals(100, limit.limit());
+    }
+
+    @Test
+    @DisplayName("the limit should shrink once requests start queueing in the upstream")
+    void shouldShrinkWhenLatencyRises() {
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(RTT, 20, false);
+        }
+        int before = limit.limit();
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(4 * RTT, limit.limit(), false);
+        }
+
+        assertTrue(limit.limit() < before / 2, "limit " + before + " -> " + limit.limit());
+        assertTrue(limit.limit() >= 5);
+    }
+
+    @Test
+    @DisplayName("samples with most of the limit unused should not change it")
+    void shouldIgnoreSamplesWhenUnderused() {
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, 3, false);
+        }
+
+        assertEquals(20, limit.limit());
+    }
+
+    @Test
+    @DisplayName("failed requests should cut the limit down to the minimum")
+    void dropsShouldCutLimit() {
+        limit.onSample(RTT, 20, true);
+        assertEquals(18, limit.limit());
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, 20, true);
+        }
+        assertEquals(5, limit.limit());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.apigateway.filter;
+
+import com.apigateway.concurrency.UpstreamRttFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AdaptiveConcurrencyLimitGatewayFilterFactory unit tests")
+class AdaptiveConcurrencyLimitGatewayFilterFactoryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveConcurrencyLimitGatewayFilterFactory factory;
+    private AdaptiveConcurrencyLimitGatewayFilterFactory.Config config;
+    // One per forwarded request, completing it answers the request
+    private List<Sinks.Empty<Void>> upstream;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        factory = new AdaptiveConcurrencyLimitGatewayFilterFactory(meterRegistry, new ObjectMapper());
+        config = new AdaptiveConcurrencyLimitGatewayFilterFactory.Config();
+        config.setRouteId("user-service");
+        // A fixed limit of two
+        config.setInitialLimit(2);
+        config.setMinLimit(2);
+        config.setMaxLimit(2);
+        config.setMaxQueue(0);
+        upstream = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("requests over the limit should get 503 at once")
+    void requestsOverLimitShouldBeRejected() {
+        GatewayFilter filter = factory.apply(config);
+
+        start(filter);
+        start(filter);
+        MockServerWebExchange rejected = start(filter);
+
+        assertEquals(2, upstream.size());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.getResponse().getBodyAsString().block().contains("\"status\":\"SERVICE_UNAVAILABLE\""));
+        assertEquals(2, meterRegistry.get("gateway.concurrency.inflight").gauge().value());
+        assertEquals(2, meterRegistry.get("gateway.concurrency.limit").gauge().value());
+        assertEquals(1, meterRegistry.get("gateway.concurrency.requests").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("a queued request should go ahead as soon as another one finishes")
+    void queuedRequestShouldGetFreedSlot() {
+        config.setMaxQueue(1);
+        config.setMaxWait(Duration.ofSeconds(10));
+        GatewayFilter filter = factory.apply(config);
+
+        start(filter);
+        start(filter);
+        start(filter);
+        assertEquals(2, upstream.size());
+        assertEquals(1, meterRegistry.get("gateway.concurrency.queued").gauge().value());
+
+        upstream.get(0).tryEmitEmpty();
+
+        assertEquals(3, upstream.size());
+        assertEquals(2, meterRegistry.get("gateway.concurrency.inflight").gauge().value());
+        assertEquals(1, meterRegistry.get("gateway.concurrency.requests").tag("result", "queued").counter().count());
+    }
+
+    @Test
+    @DisplayName("a queued request should be rejected when its wait runs out")
+    void queuedRequestShouldTimeOut() {
+        config.setMaxQueue(1);
+        config.setMaxWait(Duration.ofMillis(20));
+        GatewayFilter filter = factory.apply(config);
+        start(filter);
+        start(filter);
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users"));
+        filter.filter(exchange, this::forward).block(Duration.ofSeconds(5));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+        assertEquals(0, meterRegistry.get("gateway.concurrency.queued").gauge().value());
+
+        // The slot of a finished request is free for the next one
+        upstream.get(0).tryEmitEmpty();
+        start(filter);
+        assertEquals(3, upstream.size());
+    }
+
+    @Test
+    @DisplayName("a route refresh should keep the requests in flight")
+    void limiterShouldSurviveRouteRefresh() {
+        start(factory.apply(config));
+        start(factory.apply(config));
+        MockServerWebExchange rejected = start(factory.apply(config));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("time spent outside the upstream attempt, e.g. in retry backoff, should not shrink the limit")
+    void limitShouldLearnFromUpstreamRttOnly() throws InterruptedException {
+        config.setMinLimit(5);
+        config.setMaxLimit(200);
+        config.setInitialLimit(20);
+        GatewayFilter filter = factory.apply(config);
+
+        // The upstream attempts always take a millisecond, the requests themselves soon much longer
+        for (int round = 0; round < 2; round++) {
+            List<MockServerWebExchange> requests = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                requests.add(start(filter));
+            }
+            requests.forEach(exchange -> exchange.<AtomicLong>getAttribute(UpstreamRttFilter.UPSTREAM_RTT_ATTR)
+                    .set(Duration.ofMillis(1).toNanos()));
+            if (round == 1) {
+                Thread.sleep(100);
+            }
+            upstream.forEach(Sinks.Empty::tryEmitEmpty);
+            upstream.clear();
+        }
+
+        assertTrue(meterRegistry.get("gateway.concurrency.limit").gauge().value() >= 20);
+    }
+
+    private MockServerWebExchange start(GatewayFilter filter) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users"));
+        filter.filter(exchange, this::forward).subscribe();
+        return exchange;
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange) {
+        Sinks.Empty<Void> response = Sinks.empty();
+        upstream.add(response);
+        return response.asMono();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.apigateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BudgetedRetryGatewayFilterFactory unit tests")
+class BudgetedRetryGatewayFilterFactoryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BudgetedRetryGatewayFilterFactory factory;
+    private BudgetedRetryGatewayFilterFactory.Config config;
+    // Upstream outcomes in order: a status, or an exception to fail the attempt with
+    private Deque<Object> upstream;
+    private int attempts;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        factory = new BudgetedRetryGatewayFilterFactory(meterRegistry);
+        config = new BudgetedRetryGatewayFilterFactory.Config();
+        config.setRouteId("user-service");
+        config.setFirstBackoff(Duration.ofMillis(1));
+        config.setMaxBackoff(Duration.ofMillis(5));
+        upstream = new ArrayDeque<>();
+        attempts = 0;
+    }
+
+    @Test
+    @DisplayName("a failed GET should be retried until it succeeds")
+    void failedGetShouldBeRetried() {
+        upstream.addAll(List.of(HttpStatus.SERVICE_UNAVAILABLE, new ConnectException("refused"), HttpStatus.OK));
+
+        MockServerWebExchange exchange = send(factory.apply(config), MockServerHttpRequest.get("/api/users/1"));
+
+        assertEquals(3, attempts);
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals(2, meterRegistry.get("gateway.retry.attempts").tag("result", "retried").counter().count());
+    }
+
+    @Test
+    @DisplayName("after the configured retries the last failure should be returned")
+    void shouldGiveUpAfterConfiguredRetries() {
+        config.setRetries(2);
+        upstream.addAll(List.of(HttpStatus.BAD_GATEWAY, HttpStatus.BAD_GATEWAY, HttpStatus.BAD_GATEWAY, HttpStatus.OK));
+
+        MockServerWebExchange exchange = send(factory.apply(config), MockServerHttpRequest.get("/api/users/1"));
+
+        assertEquals(3, attempts);
+        assertEquals(HttpStatus.BAD_GATEWAY, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("a POST should be retried only with an idempotency key")
+    void postShouldBeRetriedOnlyWithIdempotencyKey() {
+        GatewayFilter filter = factory.apply(config);
+
+        upstream.addAll(List.of(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.CREATED));
+        MockServerWebExchange plain = send(filter, MockServerHttpRequest.post("/api/users"));
+        assertEquals(1, attempts);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, plain.getResponse().getStatusCode());
+
+        upstream.clear();
+        upstream.addAll(List.of(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.CREATED));
+        attempts = 0;
+        MockServerWebExchange keyed = send(filter, MockServerHttpRequest.post("/api/users").header("Idempotency-Key", "k-1"));
+        assertEquals(2, attempts);
+        assertEquals(HttpStatus.CREATED, keyed.getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("once the budget is spent failures should be returned without a retry")
+    void shouldStopRetryingWhenBudgetIsSpent() {
+        config.setBudgetRatio(0.5);
+        config.setMinRetriesPerSecond(0);
+
+        for (int i = 0; i < 4; i++) {
+            upstream.addAll(List.of(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.OK));
+            // A new filter per request, as after route refreshes: the budget stays the same
+            send(factory.apply(config), MockServerHttpRequest.get("/api/users/" + i));
+            upstream.clear();
+        }
+
+        // Four requests buy two retries, the other two failures go back to the client
+        assertEquals(6, attempts);
+        assertEquals(2, meterRegistry.get("gateway.retry.attempts").tag("result", "retried").counter().count());
+        assertEquals(2, meterRegistry.get("gateway.retry.attempts").tag("result", "budget_exhausted").counter().count());
+    }
+
+    private MockServerWebExchange send(GatewayFilter filter, MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, forwardedExchange -> {
+            attempts++;
+            Object outcome = upstream.poll();
+            if (outcome instanceof Throwable error) {
+                return Mono.error(error);
+            }
+            forwardedExchange.getResponse().setStatusCode((HttpStatus) outcome);
+            return Mono.empty();
+        }).block();
+        return exchange;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.apigateway.filter;
+
+import com.apigateway.loadbalancer.PeakEwmaLoadBalancer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HedgingGatewayFilterFactory unit tests")
+class HedgingGatewayFilterFactoryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private HedgingGatewayFilterFactory.Config config;
+    private GatewayFilter filter;
+    // One per forwarded attempt, in the order they were sent
+    private List<Upstream> upstream;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        config = new HedgingGatewayFilterFactory.Config();
+        config.setRouteId("user-service");
+        config.setPercentile(0);
+        config.setDelay(Duration.ofMillis(20));
+        upstream = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    @DisplayName("a request answered within the delay should not be hedged")
+    void fastRequestShouldNotBeHedged() throws Exception {
+        filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1"));
+        CompletableFuture<Void> done = filter.filter(exchange, this::forward).toFuture();
+
+        upstream.get(0).answer(HttpStatus.OK);
+        done.get(1, TimeUnit.SECONDS);
+        Thread.sleep(100);
+
+        assertEquals(1, upstream.size());
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals(0, meterRegistry.get("gateway.hedge.attempts").tag("result", "sent").counter().count());
+    }
+
+    @Test
+    @DisplayName("a slow request should be hedged to another instance and take the hedge's answer")
+    void hedgeShouldWinOverSlowAttempt() throws Exception {
+        filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1"));
+        CompletableFuture<Void> done = filter.filter(exchange, this::forward).toFuture();
+
+        Upstream hedge = awaitUpstream(2);
+        assertEquals("localhost:8081",
+                hedge.exchange().getRequest().getHeaders().getFirst(PeakEwmaLoadBalancer.EXCLUDED_INSTANCE_HEADER));
+        assertNull(exchange.getRequest().getHeaders().getFirst(PeakEwmaLoadBalancer.EXCLUDED_INSTANCE_HEADER));
+
+        hedge.exchange().getResponse().getHeaders().set("X-Instance", "hedge");
+        hedge.answer(HttpStatus.OK);
+        done.get(1, TimeUnit.SECONDS);
+
+        assertTrue(upstream.get(0).cancelled().get());
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals("hedge", exchange.getResponse().getHeaders().getFirst("X-Instance"));
+        assertEquals(1, meterRegistry.get("gateway.hedge.attempts").tag("result", "sent").counter().count());
+        assertEquals(1, meterRegistry.get("gateway.hedge.won").counter().count());
+    }
+
+    @Test
+    @DisplayName("a failed hedge should leave the answer to the first attempt")
+    void failedHedgeShouldBeIgnored() throws Exception {
+        filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1"));
+        CompletableFuture<Void> done = filter.filter(exchange, this::forward).toFuture();
+
+        awaitUpstream(2).answer(HttpStatus.SERVICE_UNAVAILABLE);
+        assertFalse(done.isDone());
+        assertNull(exchange.getResponse().getStatusCode());
+
+        upstream.get(0).answer(HttpStatus.OK);
+        done.get(1, TimeUnit.SECONDS);
+
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals(0, meterRegistry.get("gateway.hedge.won").counter().count());
+    }
+
+    @Test
+    @DisplayName("no hedge should be sent once the budget is spent")
+    void hedgesShouldStopWhenBudgetIsExhausted() throws Exception {
+        config.setBudgetRatio(0);
+        config.setMinHedgesPerSecond(0);
+        filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1"));
+        CompletableFuture<Void> done = filter.filter(exchange, this::forward).toFuture();
+
+        Thread.sleep(200);
+        upstream.get(0).answer(HttpStatus.OK);
+        done.get(1, TimeUnit.SECONDS);
+
+        assertEquals(1, upstream.size());
+        assertEquals(1, meterRegistry.get("gateway.hedge.attempts").tag("result", "budget_exhausted").counter().count());
+    }
+
+    @Test
+    @DisplayName("requests other than GET should not add to the hedge budget")
+    void nonGetRequestsShouldNotGrowBudget() throws Exception {
+        config.setMinHedgesPerSecond(0);
+        filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+        for (int i = 0; i < 20; i++) {
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.post("/api/users")), this::forward).subscribe();
+            upstream.get(i).answer(HttpStatus.CREATED);
+        }
+
+        // A tenth of two GET requests leaves room for a single hedge
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1")), this::forward).subscribe();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/2")), this::forward).subscribe();
+        Thread.sleep(200);
+
+        assertEquals(1, meterRegistry.get("gateway.hedge.attempts").tag("result", "sent").counter().count());
+        assertEquals(1, meterRegistry.get("gateway.hedge.attempts").tag("result", "budget_exhausted").counter().count());
+    }
+
+    @Test
+    @DisplayName("requests other than GET should never be hedged")
+    void nonGetRequestShouldNotBeHedged() throws Exception {
+        filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/users"));
+        filter.filter(exchange, this::forward).subscribe();
+
+        Thread.sleep(200);
+
+        assertEquals(1, upstream.size());
+        assertSame(exchange, upstream.get(0).exchange());
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange) {
+        // What the load balancer records: the first attempt goes to port 8081, the others to 8082
+        int port = upstream.isEmpty() ? 8081 : 8082;
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(
+                new DefaultServiceInstance(String.valueOf(port), "user-service", "localhost", port, false)));
+        Upstream call = new Upstream(exchange, Sinks.empty(), new AtomicBoolean());
+        upstream.add(call);
+        return call.response().asMono().doOnCancel(() -> call.cancelled().set(true));
+    }
+
+    private Upstream awaitUpstream(int count) throws InterruptedException {
+        for (int i = 0; i < 200 && upstream.size() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, upstream.size());
+        return upstream.get(count - 1);
+    }
+
+    private record Upstream(ServerWebExchange exchange, Sinks.Empty<Void> response, AtomicBoolean cancelled) {
+
+        void answer(HttpStatus status) {
+            exchange.getResponse().setStatusCode(status);
+            response.tryEmitEmpty();
+        }
+    }
+}
\ No newline at end of file
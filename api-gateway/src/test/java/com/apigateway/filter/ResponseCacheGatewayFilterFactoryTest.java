@@ -0,0 +1,249 @@
+package com.apigateway.filter;
+
+import com.apigateway.cache.ResponseCaches;
+import com.apigateway.kafka.UserEvent;
+import com.apigateway.kafka.UserEventCacheListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ResponseCacheGatewayFilterFactory unit tests")
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCaches responseCaches;
+    private ResponseCacheGatewayFilterFactory.Config config;
+    private GatewayFilter filter;
+    private List<HttpHeaders> downstreamRequests;
+    private String cacheControl;
+    private HttpStatus downstreamStatus;
+    private Runnable onDownstreamRequest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        responseCaches = new ResponseCaches(meterRegistry);
+        config = new ResponseCacheGatewayFilterFactory.Config();
+        config.setRouteId("user-service");
+        filter = new ResponseCacheGatewayFilterFactory(responseCaches).apply(config);
+        downstreamRequests = new ArrayList<>();
+        cacheControl = null;
+        downstreamStatus = HttpStatus.OK;
+        onDownstreamRequest = () -> {
+        };
+    }
+
+    @Test
+    @DisplayName("a repeated GET should be answered by the gateway")
+    void repeatedGetShouldBeServedFromCache() {
+        MockServerWebExchange first = get("/api/users/1");
+        MockServerWebExchange second = get("/api/users/1");
+
+        assertEquals("{\"id\":\"/api/users/1\"}", first.getResponse().getBodyAsString().block());
+        assertEquals("{\"id\":\"/api/users/1\"}", second.getResponse().getBodyAsString().block());
+        assertEquals(HttpStatus.OK, second.getResponse().getStatusCode());
+        assertEquals("\"1-2\"", second.getResponse().getHeaders().getETag());
+        assertEquals("0", second.getResponse().getHeaders().getFirst(HttpHeaders.AGE));
+        assertEquals(1, downstreamRequests.size());
+        assertEquals(0.5, meterRegistry.get("gateway.response.cache.hit.ratio").tag("route", "user-service").gauge().value());
+        assertEquals(1, meterRegistry.get("gateway.response.cache.requests").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("responses marked no-store should not be kept")
+    void noStoreResponsesShouldNotBeCached() {
+        cacheControl = "no-store";
+
+        get("/api/users/1");
+        get("/api/users/1");
+
+        assertEquals(2, downstreamRequests.size());
+    }
+
+    @Test
+    @DisplayName("requests with no-cache should go downstream and refresh the entry")
+    void noCacheRequestsShouldRefreshTheEntry() {
+        get("/api/users/1");
+        exchange(MockServerHttpRequest.get("/api/users/1").header(HttpHeaders.CACHE_CONTROL, "no-cache"));
+        get("/api/users/1");
+
+        assertEquals(2, downstreamRequests.size());
+        assertEquals(1, meterRegistry.get("gateway.response.cache.requests").tag("result", "bypass").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("a matching If-None-Match should get 304 from the cached ETag")
+    void matchingIfNoneMatchShouldBeAnsweredWithNotModified() {
+        get("/api/users/1");
+
+        MockServerWebExchange revalidation = exchange(MockServerHttpRequest.get("/api/users/1").ifNoneMatch("\"1-2\""));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidation.getResponse().getStatusCode());
+        assertEquals("", revalidation.getResponse().getBodyAsString().defaultIfEmpty("").block());
+        assertEquals(1, downstreamRequests.size());
+    }
+
+    @Test
+    @DisplayName("a conditional miss should fetch the full response and answer 304 itself")
+    void conditionalMissShouldFetchFullResponse() {
+        MockServerWebExchange revalidation = exchange(MockServerHttpRequest.get("/api/users/1").ifNoneMatch("\"1-2\""));
+        MockServerWebExchange next = get("/api/users/1");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidation.getResponse().getStatusCode());
+        assertFalse(downstreamRequests.get(0).containsKey(HttpHeaders.IF_NONE_MATCH));
+        assertEquals(HttpStatus.OK, next.getResponse().getStatusCode());
+        assertEquals(1, downstreamRequests.size());
+    }
+
+    @Test
+    @DisplayName("a user event should evict the user and every multi-user response, but not other users")
+    void userEventShouldEvictAffectedResponses() {
+        get("/api/users/1");
+        get("/api/users/2");
+        get("/api/users");
+        get("/api/users/count");
+
+        new UserEventCacheListener(responseCaches).onUserEvent(new UserEvent("USER_UPDATED", 1L, "user@example.com"));
+        downstreamRequests.clear();
+        get("/api/users/1");
+        get("/api/users/2");
+        get("/api/users");
+        get("/api/users/count");
+
+        assertEquals(3, downstreamRequests.size());
+    }
+
+    @Test
+    @DisplayName("a response fetched while the cache was invalidated should not be kept")
+    void responseFetchedDuringInvalidationShouldNotBeCached() {
+        onDownstreamRequest = () -> responseCaches.invalidate(path -> true);
+
+        get("/api/users/1");
+        onDownstreamRequest = () -> {
+        };
+        get("/api/users/1");
+
+        assertEquals(2, downstreamRequests.size());
+    }
+
+    @Test
+    @DisplayName("a chunked response should reach the client as it arrives and not be kept")
+    void chunkedResponseShouldStreamThrough() {
+        Sinks.Many<DataBuffer> chunks = Sinks.many().unicast().onBackpressureBuffer();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/export"));
+        filter.filter(exchange, downstream -> {
+            downstreamRequests.add(downstream.getRequest().getHeaders());
+            downstream.getResponse().setStatusCode(HttpStatus.OK);
+            return downstream.getResponse().writeWith(chunks.asFlux());
+        }).subscribe();
+
+        chunks.tryEmitNext(exchange.getResponse().bufferFactory().wrap("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8)));
+        DataBuffer first = exchange.getResponse().getBody().blockFirst(Duration.ofSeconds(1));
+        assertEquals("{\"id\":1}\n", first.toString(StandardCharsets.UTF_8));
+
+        chunks.tryEmitComplete();
+        get("/api/users/export");
+        assertEquals(2, downstreamRequests.size());
+    }
+
+    @Test
+    @DisplayName("a response above the maximum entry size should not be kept")
+    void oversizedResponseShouldNotBeCached() {
+        config.setMaximumEntrySize(DataSize.ofBytes(10));
+        filter = new ResponseCacheGatewayFilterFactory(new ResponseCaches(meterRegistry)).apply(config);
+
+        MockServerWebExchange first = get("/api/users/1");
+        get("/api/users/1");
+
+        assertEquals("{\"id\":\"/api/users/1\"}", first.getResponse().getBodyAsString().block());
+        assertEquals(2, downstreamRequests.size());
+    }
+
+    @Test
+    @DisplayName("a successful write should evict the user's responses before the client sees the answer")
+    void writeShouldEvictAffectedResponses() {
+        get("/api/users/1");
+        get("/api/users/2");
+        get("/api/users");
+
+        exchange(MockServerHttpRequest.put("/api/users/1"));
+        downstreamRequests.clear();
+        get("/api/users/1");
+        get("/api/users/2");
+        get("/api/users");
+
+        assertEquals(2, downstreamRequests.size());
+    }
+
+    @Test
+    @DisplayName("a failed write should leave the cache alone")
+    void failedWriteShouldNotEvict() {
+        get("/api/users/1");
+
+        downstreamStatus = HttpStatus.PRECONDITION_FAILED;
+        exchange(MockServerHttpRequest.put("/api/users/1"));
+        downstreamStatus = HttpStatus.OK;
+        get("/api/users/1");
+
+        assertEquals(2, downstreamRequests.size());
+    }
+
+    @Test
+    @DisplayName("requests with the read-your-writes cookie should go downstream")
+    void readYourWritesRequestsShouldBypassTheCache() {
+        get("/api/users/1");
+
+        exchange(MockServerHttpRequest.get("/api/users/1")
+                .cookie(new HttpCookie(ResponseCacheGatewayFilterFactory.READ_YOUR_WRITES_COOKIE, "1")));
+
+        assertEquals(2, downstreamRequests.size());
+        assertEquals(1, meterRegistry.get("gateway.response.cache.requests").tag("result", "bypass").functionCounter().count());
+    }
+
+    private MockServerWebExchange get(String path) {
+        return exchange(MockServerHttpRequest.get(path));
+    }
+
+    private MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, downstream()).block();
+        return exchange;
+    }
+
+    // Stands in for the routing filters: answers with the path as body, with its Content-Length, and writes the way Netty's filter does
+    private GatewayFilterChain downstream() {
+        return exchange -> {
+            downstreamRequests.add(exchange.getRequest().getHeaders());
+            onDownstreamRequest.run();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(downstreamStatus);
+            response.getHeaders().setETag("\"1-2\"");
+            if (cacheControl != null) {
+                response.getHeaders().setCacheControl(cacheControl);
+            }
+            byte[] body = ("{\"id\":\"" + exchange.getRequest().getURI().getPath() + "\"}").getBytes(StandardCharsets.UTF_8);
+            response.getHeaders().setContentLength(body.length);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.apigateway.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TokenBucketRateLimiterGatewayFilterFactory unit tests")
+class TokenBucketRateLimiterGatewayFilterFactoryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenBucketRateLimiterGatewayFilterFactory factory;
+    private TokenBucketRateLimiterGatewayFilterFactory.Config config;
+    private int forwarded;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        factory = new TokenBucketRateLimiterGatewayFilterFactory(meterRegistry, new ObjectMapper());
+        config = new TokenBucketRateLimiterGatewayFilterFactory.Config();
+        config.setRouteId("user-service");
+        // Slow enough that no token comes back while a test runs
+        config.setReplenishRate(0.01);
+        config.setBurstCapacity(2);
+        forwarded = 0;
+    }
+
+    @Test
+    @DisplayName("requests over the burst should get 429 with Retry-After")
+    void excessRequestsShouldBeRejected() {
+        GatewayFilter filter = factory.apply(config);
+
+        send(filter, MockServerHttpRequest.get("/api/users/1").remoteAddress(address("10.0.0.1")));
+        send(filter, MockServerHttpRequest.get("/api/users/1").remoteAddress(address("10.0.0.1")));
+        MockServerWebExchange rejected = send(filter, MockServerHttpRequest.get("/api/users/1").remoteAddress(address("10.0.0.1")));
+
+        assertEquals(2, forwarded);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("100", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.getResponse().getBodyAsString().block().contains("\"status\":\"TOO_MANY_REQUESTS\""));
+        assertEquals(2, meterRegistry.get("gateway.ratelimit.requests").tag("result", "allowed").counter().count());
+        assertEquals(1, meterRegistry.get("gateway.ratelimit.requests").tag("result", "denied").counter().count());
+    }
+
+    @Test
+    @DisplayName("each client IP should have its own bucket")
+    void clientsShouldBeLimitedSeparately() {
+        GatewayFilter filter = factory.apply(config);
+
+        for (int i = 0; i < 3; i++) {
+            send(filter, MockServerHttpRequest.get("/api/users").remoteAddress(address("10.0.0.1")));
+        }
+        MockServerWebExchange other = send(filter, MockServerHttpRequest.get("/api/users").remoteAddress(address("10.0.0.2")));
+
+        assertEquals(3, forwarded);
+        assertNull(other.getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("with the header key, API keys should be limited separately and clients without one by IP")
+    void headerKeyShouldFallBackToClientIp() {
+        config.setKey(TokenBucketRateLimiterGatewayFilterFactory.KeySource.HEADER);
+        GatewayFilter filter = factory.apply(config);
+
+        for (int i = 0; i < 3; i++) {
+            send(filter, MockServerHttpRequest.get("/api/users").header("X-API-Key", "a").remoteAddress(address("10.0.0.1")));
+        }
+        send(filter, MockServerHttpRequest.get("/api/users").header("X-API-Key", "b").remoteAddress(address("10.0.0.1")));
+        send(filter, MockServerHttpRequest.get("/api/users").remoteAddress(address("10.0.0.1")));
+
+        assertEquals(4, forwarded);
+    }
+
+    @Test
+    @DisplayName("with the route key, all clients should share one bucket")
+    void routeKeyShouldShareOneBucket() {
+        config.setKey(TokenBucketRateLimiterGatewayFilterFactory.KeySource.ROUTE);
+        GatewayFilter filter = factory.apply(config);
+
+        send(filter, MockServerHttpRequest.get("/api/users").remoteAddress(address("10.0.0.1")));
+        send(filter, MockServerHttpRequest.get("/api/users").remoteAddress(address("10.0.0.2")));
+        MockServerWebExchange rejected = send(filter, MockServerHttpRequest.get("/api/users").remoteAddress(address("10.0.0.3")));
+
+        assertEquals(2, forwarded);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("a route refresh should not refill the buckets")
+    void bucketsShouldSurviveRouteRefresh() {
+        send(factory.apply(config), MockServerHttpRequest.get("/api/users").remoteAddress(address("10.0.0.1")));
+        send(factory.apply(config), MockServerHttpRequest.get("/api/users").remoteAddress(address("10.0.0.1")));
+        MockServerWebExchange rejected = send(factory.apply(config), MockServerHttpRequest.get("/api/users").remoteAddress(address("10.0.0.1")));
+
+        assertEquals(2, forwarded);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+    }
+
+    private MockServerWebExchange send(GatewayFilter filter, MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, forwardedExchange -> {
+            forwarded++;
+            return Mono.empty();
+        }).block();
+        return exchange;
+    }
+
+    private static InetSocketAddress address(String ip) {
+        return new InetSocketAddress(ip, 40000);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.apigateway.hedge;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LatencyPercentile unit tests")
+class LatencyPercentileTest {
+
+    private final LatencyPercentile p95 = new LatencyPercentile(95, 100, 10);
+
+    @Test
+    @DisplayName("the percentile should be empty until enough samples are recorded")
+    void shouldBeEmptyUntilFirstRefresh() {
+        for (int i = 1; i < 10; i++) {
+            p95.record(Duration.ofMillis(i));
+        }
+        assertEquals(Optional.empty(), p95.value());
+
+        p95.record(Duration.ofMillis(10));
+        assertEquals(Optional.of(Duration.ofMillis(10)), p95.value());
+    }
+
+    @Test
+    @DisplayName("the percentile should be taken over the latest samples only")
+    void shouldFollowLatestSamples() {
+        for (int i = 1; i <= 100; i++) {
+            p95.record(Duration.ofMillis(i));
+        }
+        assertEquals(Optional.of(Duration.ofMillis(95)), p95.value());
+
+        for (int i = 1; i <= 100; i++) {
+            p95.record(Duration.ofMillis(1000 + i));
+        }
+        assertEquals(Optional.of(Duration.ofMillis(1095)), p95.value());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.apigateway.loadbalancer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("InstanceLoad unit tests")
+class InstanceLoadTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private long now;
+    private InstanceLoad load;
+
+    @BeforeEach
+    void setUp() {
+        now = 0;
+        load = new InstanceLoad(10 * SECOND, SECOND, () -> now);
+    }
+
+    @Test
+    @DisplayName("a cold instance should be free while idle and cost the penalty while busy")
+    void coldInstanceShouldCostPenaltyWhileBusy() {
+        assertEquals(0, load.cost());
+
+        long start = load.start();
+        assertTrue(load.cost() >= SECOND);
+
+        now = 5 * MILLI;
+        load.end(start, false);
+        assertEquals(5 * MILLI, load.cost(), 1);
+    }
+
+    @Test
+    @DisplayName("a slow response should count at once and outstanding requests should multiply the cost")
+    void peakLatencyShouldCountAtOnce() {
+        load.end(load.start(), false);
+        long start = load.start();
+        now = 200 * MILLI;
+        load.end(start, false);
+
+        assertEquals(200 * MILLI, load.cost(), 1);
+        load.start();
+        load.start();
+        assertEquals(600 * MILLI, load.cost(), 1);
+    }
+
+    @Test
+    @DisplayName("the cost should decay while no new latency is observed")
+    void costShouldDecayWithTime() {
+        long start = load.start();
+        now = 100 * MILLI;
+        load.end(start, false);
+
+        now += 10 * SECOND;
+        assertEquals(100 * MILLI / Math.E, load.cost(), MILLI);
+        now += 60 * SECOND;
+        assertTrue(load.cost() < MILLI);
+    }
+
+    @Test
+    @DisplayName("a failed request should count as at least the penalty")
+    void failureShouldCountAsPenalty() {
+        long start = load.start();
+        now = MILLI;
+        load.end(start, true);
+
+        assertEquals(SECOND, load.cost(), 1);
+    }
+}
\ No newline at end of file
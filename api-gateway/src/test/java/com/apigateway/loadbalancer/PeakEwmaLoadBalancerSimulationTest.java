@@ -0,0 +1,105 @@
+package com.apigateway.loadbalancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends the same requests through round robin and through {@link PeakEwmaLoadBalancer} to four
+ * simulated instances, one of which answers 100ms late, and compares the tail latency. Time is
+ * simulated: the {@link InstanceLoads} read a virtual clock that jumps from one response to the
+ * next, so the outcome does not depend on how busy the machine running the test is.
+ */
+@DisplayName("PeakEwmaLoadBalancer simulation tests")
+class PeakEwmaLoadBalancerSimulationTest {
+
+    private static final String SERVICE_ID = "user-service";
+    private static final Duration SLOW = Duration.ofMillis(100);
+    private static final Duration FAST = Duration.ofMillis(2);
+    private static final int REQUESTS = 1200;
+    private static final int CONCURRENCY = 6;
+
+    private final ServiceInstance[] instances = {
+            new DefaultServiceInstance("slow", SERVICE_ID, "slow", 8080, false),
+            new DefaultServiceInstance("fast-1", SERVICE_ID, "fast-1", 8080, false),
+            new DefaultServiceInstance("fast-2", SERVICE_ID, "fast-2", 8080, false),
+            new DefaultServiceInstance("fast-3", SERVICE_ID, "fast-3", 8080, false)
+    };
+    private long now;
+
+    @Test
+    @DisplayName("a slow instance should stop getting its share and leave the tail latency")
+    void slowInstanceShouldLeaveTheTail() {
+        Result roundRobin = run(new RoundRobinLoadBalancer(
+                ServiceInstanceListSuppliers.toProvider(SERVICE_ID, instances), SERVICE_ID), newInstanceLoads());
+        InstanceLoads instanceLoads = newInstanceLoads();
+        Result peakEwma = run(new PeakEwmaLoadBalancer(
+                ServiceInstanceListSuppliers.toProvider(SERVICE_ID, instances), SERVICE_ID, instanceLoads), instanceLoads);
+
+        String summary = String.format("p99 round robin %dms, peak EWMA %dms; slow instance got %d and %d of %d requests",
+                roundRobin.p99Millis(), peakEwma.p99Millis(), roundRobin.slowRequests(), peakEwma.slowRequests(), REQUESTS);
+        assertEquals(REQUESTS / instances.length, roundRobin.slowRequests(), summary);
+        assertTrue(roundRobin.p99Millis() >= SLOW.toMillis(), summary);
+        assertTrue(peakEwma.slowRequests() < REQUESTS / 100, summary);
+        assertTrue(peakEwma.p99Millis() < SLOW.toMillis() / 2, summary);
+    }
+
+    // Each of the concurrent clients sends its next request as soon as the previous one is answered
+    private Result run(ReactorServiceInstanceLoadBalancer balancer, InstanceLoads instanceLoads) {
+        now = 0;
+        PriorityQueue<Call> inFlight = new PriorityQueue<>(Comparator.comparingLong(Call::endNanos));
+        List<Long> latencies = new ArrayList<>();
+        int slowRequests = 0;
+        for (int sent = 0; sent < REQUESTS || !inFlight.isEmpty(); ) {
+            if (sent < REQUESTS && inFlight.size() < CONCURRENCY) {
+                ServiceInstance instance = balancer.choose(new DefaultRequest<>()).block().getServer();
+                if (instance == instances[0]) {
+                    slowRequests++;
+                }
+                inFlight.add(call(instance, instanceLoads.get(instance)));
+                sent++;
+                continue;
+            }
+            Call answered = inFlight.poll();
+            now = answered.endNanos();
+            // Tracks the request the way InstanceLoadTrackingFilter does in the gateway
+            answered.load().end(answered.startNanos(), false);
+            latencies.add(now - answered.startNanos());
+        }
+        latencies.sort(null);
+        return new Result(latencies, slowRequests);
+    }
+
+    private Call call(ServiceInstance instance, InstanceLoad load) {
+        long start = load.start();
+        return new Call(load, start, start + (instance == instances[0] ? SLOW : FAST).toNanos());
+    }
+
+    private InstanceLoads newInstanceLoads() {
+        return new InstanceLoads(Duration.ofSeconds(10), Duration.ofSeconds(1), () -> now);
+    }
+
+    private record Call(InstanceLoad load, long startNanos, long endNanos) {
+    }
+
+    private record Result(List<Long> latencies, int slowRequests) {
+
+        long p99Millis() {
+            return TimeUnit.NANOSECONDS.toMillis(latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1));
+        }
+    }
+}
\ No newline at end of file
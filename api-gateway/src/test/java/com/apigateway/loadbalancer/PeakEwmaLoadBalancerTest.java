@@ -0,0 +1,55 @@
+package com.apigateway.loadbalancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PeakEwmaLoadBalancer unit tests")
+class PeakEwmaLoadBalancerTest {
+
+    private static final String SERVICE_ID = "user-service";
+
+    private final ServiceInstance first = new DefaultServiceInstance("1", SERVICE_ID, "localhost", 8081, false);
+    private final ServiceInstance second = new DefaultServiceInstance("2", SERVICE_ID, "localhost", 8082, false);
+    private final InstanceLoads instanceLoads = new InstanceLoads(Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+    @Test
+    @DisplayName("a request should never go to the instance it excludes")
+    void shouldSkipExcludedInstance() {
+        PeakEwmaLoadBalancer loadBalancer = loadBalancer(first, second);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(second, loadBalancer.choose(excluding("localhost:8081")).block().getServer());
+        }
+    }
+
+    @Test
+    @DisplayName("excluding the only instance should still reach it")
+    void shouldFallBackToExcludedInstanceWhenAlone() {
+        PeakEwmaLoadBalancer loadBalancer = loadBalancer(first);
+
+        assertEquals(first, loadBalancer.choose(excluding("localhost:8081")).block().getServer());
+    }
+
+    private PeakEwmaLoadBalancer loadBalancer(ServiceInstance... instances) {
+        return new PeakEwmaLoadBalancer(ServiceInstanceListSuppliers.toProvider(SERVICE_ID, instances),
+                SERVICE_ID, instanceLoads);
+    }
+
+    private static DefaultRequest<RequestDataContext> excluding(String instance) {
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/users/1")
+                .header(PeakEwmaLoadBalancer.EXCLUDED_INSTANCE_HEADER, instance)
+                .build();
+        return new DefaultRequest<>(new RequestDataContext(new RequestData(request)));
+    }
+}
\ No newline at end of file
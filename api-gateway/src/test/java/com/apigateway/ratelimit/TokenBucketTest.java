@@ -0,0 +1,89 @@
+package com.apigateway.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TokenBucket unit tests")
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("a full bucket should allow a burst of its capacity, then say when the next token comes")
+    void shouldAllowBurstThenReportWait() {
+        TokenBucket bucket = new TokenBucket(10, 3, 0);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(SECOND / 10, bucket.tryAcquire(0));
+        assertEquals(SECOND / 20, bucket.tryAcquire(SECOND / 20));
+    }
+
+    @Test
+    @DisplayName("tokens should come back at the replenish rate")
+    void shouldRefillAtReplenishRate() {
+        TokenBucket bucket = new TokenBucket(10, 3, 0);
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(0);
+        }
+
+        assertEquals(0, bucket.tryAcquire(SECOND / 10));
+        assertNotEquals(0, bucket.tryAcquire(SECOND / 10));
+        assertEquals(0, bucket.tryAcquire(SECOND / 5));
+    }
+
+    @Test
+    @DisplayName("an idle bucket should not grow beyond its capacity")
+    void idleBucketShouldStayAtCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 3, 0);
+
+        long later = 60 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(later));
+        }
+        assertNotEquals(0, bucket.tryAcquire(later));
+    }
+
+    @Test
+    @DisplayName("concurrent requests should take exactly the available tokens")
+    void concurrentRequestsShouldNotOvershoot() throws Exception {
+        TokenBucket bucket = new TokenBucket(1, 1000, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int taken = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (bucket.tryAcquire(0) == 0) {
+                            taken++;
+                        }
+                    }
+                    return taken;
+                }));
+            }
+            start.countDown();
+
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(1000, total);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
\ No newline at end of file
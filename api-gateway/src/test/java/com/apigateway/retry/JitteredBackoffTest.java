@@ -0,0 +1,39 @@
+package com.apigateway.retry;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JitteredBackoff unit tests")
+class JitteredBackoffTest {
+
+    @Test
+    @DisplayName("the delay ceiling should grow by the factor up to the maximum")
+    void ceilingShouldGrowExponentiallyUpToMaximum() {
+        JitteredBackoff backoff = new JitteredBackoff(Duration.ofMillis(50), Duration.ofMillis(300), 2, () -> 1.0);
+
+        assertEquals(Duration.ofMillis(50), backoff.delay(0));
+        assertEquals(Duration.ofMillis(100), backoff.delay(1));
+        assertEquals(Duration.ofMillis(200), backoff.delay(2));
+        assertEquals(Duration.ofMillis(300), backoff.delay(3));
+        assertEquals(Duration.ofMillis(300), backoff.delay(30));
+    }
+
+    @Test
+    @DisplayName("the delay should be a random share of the ceiling")
+    void delayShouldBeJittered() {
+        JitteredBackoff backoff = new JitteredBackoff(Duration.ofMillis(50), Duration.ofSeconds(1), 2, () -> 0.25);
+
+        assertEquals(Duration.ofMillis(50), backoff.delay(2));
+
+        JitteredBackoff random = new JitteredBackoff(Duration.ofMillis(50), Duration.ofSeconds(1), 2);
+        for (int i = 0; i < 100; i++) {
+            Duration delay = random.delay(2);
+            assertFalse(delay.isNegative());
+            assertTrue(delay.compareTo(Duration.ofMillis(200)) < 0);
+        }
+    }
+}
\ No newline at end of file
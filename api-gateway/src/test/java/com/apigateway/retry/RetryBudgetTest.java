@@ -0,0 +1,66 @@
+package com.apigateway.retry;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RetryBudget unit tests")
+class RetryBudgetTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private long now;
+
+    @Test
+    @DisplayName("retries should be limited to the ratio of recent requests")
+    void shouldAllowRetriesUpToRatio() {
+        RetryBudget budget = new RetryBudget(0.1, 0, Duration.ofSeconds(10), () -> now);
+        for (int i = 0; i < 50; i++) {
+            budget.recordRequest();
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(budget.tryAcquireRetry());
+        }
+        assertFalse(budget.tryAcquireRetry());
+    }
+
+    @Test
+    @DisplayName("a quiet route should still get the minimum retries")
+    void shouldAllowMinimumRetriesWithoutTraffic() {
+        RetryBudget budget = new RetryBudget(0.1, 0.5, Duration.ofSeconds(10), () -> now);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(budget.tryAcquireRetry());
+        }
+        assertFalse(budget.tryAcquireRetry());
+    }
+
+    @Test
+    @DisplayName("requests and retries should leave the budget once they slide out of the window")
+    void shouldForgetOldRequestsAndRetries() {
+        RetryBudget budget = new RetryBudget(0.5, 0, Duration.ofSeconds(10), () -> now);
+        for (int i = 0; i < 4; i++) {
+            budget.recordRequest();
+        }
+        assertTrue(budget.tryAcquireRetry());
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+
+        now = 5 * SECOND;
+        budget.recordRequest();
+        budget.recordRequest();
+        assertTrue(budget.tryAcquireRetry());
+
+        // The first four requests and their two retries are out of the window, the last two are not
+        now = 12 * SECOND;
+        assertFalse(budget.tryAcquireRetry());
+        budget.recordRequest();
+        budget.recordRequest();
+        assertTrue(budget.tryAcquireRetry());
+    }
+}
\ No newline at end of file
@@ -26,6 +26,8 @@ public class UserEventConsumer {
                 emailService.sendUserCreatedEmail(event);
             } else if ("USER_DELETED".equals(event.getEventType())) {
                 emailService.sendUserDeletedEmail(event);
+            } else if ("USER_UPDATED".equals(event.getEventType())) {
+                logger.debug("Событие USER_UPDATED не требует уведомления");
             } else {
                 logger.warn("Неизвестный тип события: {}", event.getEventType());
             }
@@ -0,0 +1,11 @@
+#!/bin/sh
+# Runs once, when the postgres container initialises an empty data directory: creates the role
+# postgres-replica clones the primary with and lets it open replication connections.
+# An existing postgres_data volume has to be recreated for this to take effect.
+set -e
+
+psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$POSTGRES_DB" <<-EOSQL
+	CREATE ROLE replicator WITH REPLICATION LOGIN PASSWORD '${REPLICATION_PASSWORD}';
+EOSQL
+
+echo "host replication replicator all scram-sha-256" >> "$PGDATA/pg_hba.conf"
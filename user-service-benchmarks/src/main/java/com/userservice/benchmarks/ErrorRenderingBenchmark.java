@@ -0,0 +1,63 @@
+package com.userservice.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.userservice.dto.UserCreateDto;
+import com.userservice.exception.GlobalExceptionHandler;
+import com.userservice.exception.UserNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error responses as a client receives them: the GlobalExceptionHandler method plus JSON
+ * serialization of its body with a mapper configured the way Spring Boot configures it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ErrorRenderingBenchmark {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private UserNotFoundException notFound;
+    private MethodArgumentNotValidException invalid;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        notFound = new UserNotFoundException(42L);
+
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new UserCreateDto(), "userCreateDto");
+        bindingResult.addError(new FieldError("userCreateDto", "name", "Имя должно содержать от 2 до 30 символов"));
+        bindingResult.addError(new FieldError("userCreateDto", "email", "Некорректный формат Email"));
+        bindingResult.addError(new FieldError("userCreateDto", "age", "Возраст не может быть отрицательным"));
+        MethodParameter parameter = new MethodParameter(
+                ErrorRenderingBenchmark.class.getDeclaredMethod("createUser", UserCreateDto.class), 0);
+        invalid = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    @Benchmark
+    public byte[] userNotFound() throws Exception {
+        return objectMapper.writeValueAsBytes(handler.handleUserNotFoundException(notFound).getBody());
+    }
+
+    @Benchmark
+    public byte[] validationFailed() throws Exception {
+        return objectMapper.writeValueAsBytes(handler.handleMethodArgumentNotValid(invalid).getBody());
+    }
+
+    @SuppressWarnings("unused")
+    private void createUser(UserCreateDto createDto) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.userservice.benchmarks;
+
+import com.userservice.controller.UserController;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.async.AsyncLoggerContext;
+import org.apache.logging.log4j.core.config.builder.api.AppenderComponentBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFactory;
+import org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One per-request INFO line as UserController writes it, logged from four threads to a file:
+ * <ul>
+ *     <li>{@code sync} - a synchronous logger, the request thread formats and writes the line;</li>
+ *     <li>{@code async} - an async logger context like user-service runs with, the request thread
+ *     only fills a ring buffer slot;</li>
+ *     <li>{@code async-rate-limited} - the same with the BurstFilter of the whole configuration
+ *     from log4j2-spring.xml, the setup user-service ships: lines over the limit are dropped on the
+ *     request thread before they are queued.</li>
+ * </ul>
+ * At this rate the plain async mode fills the ring buffer. The fork blocks on a full ring buffer
+ * instead of applying the Discard policy from log4j2.component.properties, so that mode measures
+ * how fast the background thread writes, not how fast events are dropped. Run with
+ * {@code -prof gc} (the default of benchmarks.jar) to see that the async path does not allocate
+ * per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.asyncQueueFullPolicy=Default")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RequestLoggingBenchmark {
+
+    private static final String PATTERN = "%d{ISO8601} %5p [%15.15t] %-40.40c{1.} : %m%n";
+
+    @Param({"sync", "async", "async-rate-limited"})
+    public String mode;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private Path logFile;
+    private LoggerContext context;
+    private Logger logger;
+
+    @Setup
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("request-logging-" + mode, ".log");
+        context = mode.equals("sync") ? new LoggerContext(mode) : new AsyncLoggerContext(mode);
+        context.start(configuration());
+        logger = context.getLogger(UserController.class.getName());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.stop();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void requestLine() {
+        logger.info("REST request to get user by ID: {}", ids.incrementAndGet());
+    }
+
+    private BuiltConfiguration configuration() {
+        ConfigurationBuilder<BuiltConfiguration> builder = ConfigurationBuilderFactory.newConfigurationBuilder();
+        builder.setConfigurationName(mode);
+        builder.setStatusLevel(Level.WARN);
+
+        // Synchronous appenders flush per event, async ones at the end of each ring buffer batch
+        AppenderComponentBuilder file = builder.newAppender("File", "File")
+                .addAttribute("fileName", logFile.toString())
+                .addAttribute("immediateFlush", mode.equals("sync"))
+                .add(builder.newLayout("PatternLayout").addAttribute("pattern", PATTERN));
+        builder.add(file);
+
+        if (mode.equals("async-rate-limited")) {
+            builder.add(builder.newFilter("BurstFilter", Filter.Result.NEUTRAL, Filter.Result.DENY)
+                    .addAttribute("level", Level.INFO)
+                    .addAttribute("rate", 50)
+                    .addAttribute("maxBurst", 500));
+        }
+        builder.add(builder.newLogger("com.userservice.controller", Level.INFO)
+                .add(builder.newAppenderRef("File"))
+                .addAttribute("additivity", false));
+        builder.add(builder.newRootLogger(Level.OFF));
+        return builder.build(false);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.userservice.benchmarks;
+
+import com.userservice.kafka.UserEvent;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Kafka value (de)serializers exactly as KafkaProducerConfig and KafkaConsumerConfig set them up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserEventSerializationBenchmark {
+
+    private static final String TOPIC = "user-events";
+
+    private final JsonSerializer<UserEvent> serializer = new JsonSerializer<>();
+    private final JsonDeserializer<UserEvent> deserializer = new JsonDeserializer<>(UserEvent.class, false);
+
+    private UserEvent event;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        event = new UserEvent("USER_UPDATED", 42L, "john@example.com", "John Doe", 30);
+        event.setPreviousEmail("old@example.com");
+        event.setTimestamp(LocalDateTime.of(2024, 1, 1, 12, 0));
+        payload = serializer.serialize(TOPIC, event);
+    }
+
+    @TearDown
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public UserEvent deserialize() {
+        return deserializer.deserialize(TOPIC, payload);
+    }
+}
\ No newline at end of file
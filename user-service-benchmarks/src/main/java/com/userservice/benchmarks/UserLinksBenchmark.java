@@ -0,0 +1,75 @@
+package com.userservice.benchmarks;
+
+import com.userservice.controller.UserController;
+import com.userservice.controller.UserLinks;
+import com.userservice.dto.UserDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * The links UserController puts on a single user, built with the precomputed {@link UserLinks}
+ * the controller uses and with per-call {@code linkTo(methodOn(...))} for comparison. A fresh
+ * request is bound per invocation, as every HTTP request resolves its base URI once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserLinksBenchmark {
+
+    private final UserLinks userLinks = new UserLinks();
+
+    private UserDto user;
+
+    @Setup
+    public void setUp() {
+        user = new UserDto(42L, "John Doe", "john@example.com", 30);
+    }
+
+    @Setup(Level.Invocation)
+    public void bindRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/42");
+        request.setServerName("localhost");
+        request.setServerPort(8081);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Invocation)
+    public void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public EntityModel<UserDto> precomputedLinks() {
+        Long id = user.getId();
+        EntityModel<UserDto> model = EntityModel.of(user);
+        model.add(userLinks.self(id));
+        model.add(userLinks.update(id));
+        model.add(userLinks.patch(id));
+        model.add(userLinks.delete(id));
+        model.add(userLinks.users());
+        return model;
+    }
+
+    @Benchmark
+    public EntityModel<UserDto> methodOnLinks() {
+        Long id = user.getId();
+        EntityModel<UserDto> model = EntityModel.of(user);
+        model.add(linkTo(methodOn(UserController.class).getUserById(id, null)).withSelfRel());
+        model.add(linkTo(methodOn(UserController.class).updateUser(id, null, null)).withRel("update"));
+        model.add(linkTo(methodOn(UserController.class).patchUser(id, null, null)).withRel("patch"));
+        model.add(linkTo(methodOn(UserController.class).deleteUser(id)).withRel("delete"));
+        model.add(linkTo(methodOn(UserController.class).getAllUsers(null, null)).withRel("users"));
+        return model;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.userservice.benchmarks;
+
+import com.userservice.dto.UserCreateDto;
+import com.userservice.dto.UserDto;
+import com.userservice.dto.UserUpdateDto;
+import com.userservice.entity.User;
+import com.userservice.mapper.UserMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserMapperBenchmark {
+
+    private final UserMapper mapper = new UserMapper();
+
+    private User user;
+    private UserCreateDto createDto;
+    private UserUpdateDto updateDto;
+
+    @Setup
+    public void setUp() {
+        user = new User(42L, "John Doe", "john@example.com", 30, LocalDateTime.of(2024, 1, 1, 12, 0));
+        user.setVersion(3L);
+        createDto = new UserCreateDto("John Doe", "john@example.com", 30);
+        updateDto = new UserUpdateDto("Jane Doe", "jane@example.com", 31);
+    }
+
+    @Benchmark
+    public UserDto toDto() {
+        return mapper.toDto(user);
+    }
+
+    @Benchmark
+    public User toEntity() {
+        return mapper.toEntity(createDto);
+    }
+
+    @Benchmark
+    public User updateEntityFromDto() {
+        mapper.updateEntityFromDto(updateDto, user);
+        return user;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.userservice.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Settings of one load test run, read from {@code loadtest.*} system properties. The defaults
+ * match the ones in the module pom, which passes every property to the forked JVM.
+ */
+record LoadTestConfig(int ratePerSecond,
+                      Duration warmup,
+                      Duration duration,
+                      Map<Operation, Integer> mix,
+                      int seedUsers,
+                      int maxInFlight,
+                      Slo slo,
+                      String datasourceUrl,
+                      String datasourceUsername,
+                      String datasourcePassword,
+                      Path reportDir) {
+
+    /**
+     * Limits a run has to stay within. Latencies are measured from the moment a request was
+     * scheduled to start, so a generator or service that falls behind shows up in them.
+     */
+    record Slo(double p99Millis, double p999Millis, double maxErrorRate, double minThroughputRatio) {
+    }
+
+    static LoadTestConfig fromSystemProperties() {
+        int rate = Integer.getInteger("loadtest.rate", 200);
+        if (rate <= 0) {
+            throw new IllegalArgumentException("loadtest.rate must be positive: " + rate);
+        }
+        int seedUsers = Integer.getInteger("loadtest.seed-users", 1000);
+        if (seedUsers <= 0) {
+            throw new IllegalArgumentException("loadtest.seed-users must be positive: " + seedUsers);
+        }
+        return new LoadTestConfig(
+                rate,
+                Duration.ofSeconds(Integer.getInteger("loadtest.warmup-seconds", 15)),
+                Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 60)),
+                Operation.parseMix(System.getProperty("loadtest.mix", "create=20,get=50,patch=15,delete=5,list=10")),
+                seedUsers,
+                Integer.getInteger("loadtest.max-in-flight", 512),
+                new Slo(
+                        doubleProperty("loadtest.slo.p99-ms", 100),
+                        doubleProperty("loadtest.slo.p999-ms", 250),
+                        doubleProperty("loadtest.slo.max-error-rate", 0.001),
+                        doubleProperty("loadtest.slo.min-throughput-ratio", 0.98)),
+                stringProperty("loadtest.datasource.url"),
+                stringProperty("loadtest.datasource.username"),
+                stringProperty("loadtest.datasource.password"),
+                Path.of(System.getProperty("loadtest.report-dir", "target/loadtest")));
+    }
+
+    boolean embeddedDatabase() {
+        return datasourceUrl == null;
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = stringProperty(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    // The pom passes unset properties as empty strings
+    private static String stringProperty(String name) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
\ No newline at end of file
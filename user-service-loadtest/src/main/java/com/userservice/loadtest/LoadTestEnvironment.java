@@ -0,0 +1,175 @@
+package com.userservice.loadtest;
+
+import com.userservice.UserServiceApplication;
+import com.userservice.reactive.ReactiveUserServiceApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * user-service started in this JVM on a random port, with an embedded Kafka broker and either an
+ * embedded PostgreSQL or the database from {@code loadtest.datasource.url}. Config server and
+ * Eureka are switched off, everything else runs with the service's own configuration.
+ * user-service-reactive can be started next to it on the same database.
+ */
+final class LoadTestEnvironment implements AutoCloseable {
+
+    private static final String USER_EVENTS_TOPIC = "user-events";
+
+    // A command line value replaces the whole list of application.yml, which has to be kept.
+    // user-service-reactive on the classpath brings R2DBC, the servlet application must not set it up.
+    private static final String SERVLET_AUTOCONFIGURE_EXCLUDE =
+            "org.springframework.boot.actuate.autoconfigure.metrics.MetricsAspectsAutoConfiguration,"
+                    + "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration";
+
+    // The reactive application reads through R2DBC only, the JDBC and Kafka setup of user-service is not its own
+    private static final String REACTIVE_AUTOCONFIGURE_EXCLUDE =
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,"
+                    + "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration,"
+                    + "org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration";
+
+    private final EmbeddedPostgres postgres;
+    private final EmbeddedKafkaBroker kafka;
+    private final ConfigurableApplicationContext application;
+    private final String datasourceUrl;
+    private final String datasourceUsername;
+    private final String datasourcePassword;
+    private ConfigurableApplicationContext reactiveApplication;
+
+    private LoadTestEnvironment(EmbeddedPostgres postgres, EmbeddedKafkaBroker kafka,
+                                ConfigurableApplicationContext application,
+                                String datasourceUrl, String datasourceUsername, String datasourcePassword) {
+        this.postgres = postgres;
+        this.kafka = kafka;
+        this.application = application;
+        this.datasourceUrl = datasourceUrl;
+        this.datasourceUsername = datasourceUsername;
+        this.datasourcePassword = datasourcePassword;
+    }
+
+    /**
+     * @param applicationArgs further command line arguments of user-service, on top of the ones
+     *                        of the load test
+     */
+    static LoadTestEnvironment start(LoadTestConfig config, String... applicationArgs) throws IOException {
+        EmbeddedPostgres postgres = null;
+        EmbeddedKafkaBroker kafka = null;
+        try {
+            String url = config.datasourceUrl();
+            String username = config.datasourceUsername();
+            String password = config.datasourcePassword();
+            if (config.embeddedDatabase()) {
+                postgres = EmbeddedPostgres.builder().start();
+                url = postgres.getJdbcUrl("postgres", "postgres");
+                username = "postgres";
+                password = "";
+            }
+
+            kafka = new EmbeddedKafkaKraftBroker(1, 1, USER_EVENTS_TOPIC);
+            kafka.afterPropertiesSet();
+
+            // Command line arguments, so they win over the default profile in application.yml
+            List<String> args = new ArrayList<>(List.of("--server.port=0",
+                    "--spring.cloud.config.enabled=false",
+                    "--eureka.client.enabled=false",
+                    "--spring.autoconfigure.exclude=" + SERVLET_AUTOCONFIGURE_EXCLUDE,
+                    "--logging.config=classpath:log4j2-loadtest.xml",
+                    "--spring.datasource.url=" + url,
+                    "--spring.datasource.username=" + (username != null ? username : ""),
+                    "--spring.datasource.password=" + (password != null ? password : ""),
+                    "--spring.jpa.hibernate.ddl-auto=update",
+                    "--spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString(),
+                    "--kafka.topic.user-events=" + USER_EVENTS_TOPIC));
+            args.addAll(List.of(applicationArgs));
+            // user-service scans all of com.userservice, the reactive controller would end up in it
+            ConfigurableApplicationContext application = new SpringApplicationBuilder(UserServiceApplication.class)
+                    .initializers(context -> context.getBeanFactory()
+                            .registerSingleton("reactiveTypeExcludeFilter", new ReactiveTypeExcludeFilter()))
+                    .run(args.toArray(String[]::new));
+            return new LoadTestEnvironment(postgres, kafka, application, url, username, password);
+        } catch (RuntimeException | IOException e) {
+            if (kafka != null) {
+                kafka.destroy();
+            }
+            if (postgres != null) {
+                postgres.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts user-service-reactive on a random port, reading the database user-service writes to.
+     * Its R2DBC pool has as many connections as the Hikari pool of user-service.
+     *
+     * @return the base URI of the reactive application
+     */
+    URI startReactive() {
+        // The query of the JDBC URL carries JDBC driver settings, R2DBC gets the credentials on their own
+        String r2dbcUrl = "r2dbc:" + datasourceUrl.substring("jdbc:".length()).replaceFirst("\\?.*$", "");
+        // No application.yml: the only one on this classpath is the one of user-service.
+        // Boot would serve WebFlux from Tomcat, which user-service brings along, instead of Reactor Netty.
+        reactiveApplication = new SpringApplicationBuilder(ReactiveUserServiceApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .initializers(context -> ((GenericApplicationContext) context)
+                        .registerBean(NettyReactiveWebServerFactory.class))
+                .run("--server.port=0",
+                        "--spring.config.name=user-service-reactive",
+                        "--spring.application.name=user-service-reactive",
+                        "--spring.cloud.config.enabled=false",
+                        "--eureka.client.enabled=false",
+                        "--spring.autoconfigure.exclude=" + REACTIVE_AUTOCONFIGURE_EXCLUDE,
+                        "--logging.config=classpath:log4j2-loadtest.xml",
+                        "--spring.r2dbc.url=" + r2dbcUrl,
+                        "--spring.r2dbc.username=" + (datasourceUsername != null ? datasourceUsername : ""),
+                        "--spring.r2dbc.password=" + (datasourcePassword != null ? datasourcePassword : ""),
+                        "--spring.r2dbc.pool.initial-size=10",
+                        "--spring.r2dbc.pool.max-size=10");
+        return baseUri(reactiveApplication);
+    }
+
+    URI baseUri() {
+        return baseUri(application);
+    }
+
+    private static URI baseUri(ConfigurableApplicationContext application) {
+        Integer port = application.getEnvironment().getProperty("local.server.port", Integer.class);
+        return URI.create("http://localhost:" + port);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (reactiveApplication != null) {
+                reactiveApplication.close();
+            }
+            application.close();
+            kafka.destroy();
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private static final class ReactiveTypeExcludeFilter extends TypeExcludeFilter {
+
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            return metadataReader.getClassMetadata().getClassName().startsWith("com.userservice.reactive.");
+        }
+    }
+}
\ No newline at end of file
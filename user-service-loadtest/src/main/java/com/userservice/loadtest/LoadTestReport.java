@@ -0,0 +1,151 @@
+package com.userservice.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of the measured part of a run, per operation and in total. Requests
+ * scheduled during warm-up are not recorded. Anything but a 2xx response counts as an error,
+ * as do requests that failed, timed out or were dropped because too many were in flight.
+ */
+class LoadTestReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Stats total = new Stats();
+
+    LoadTestReport() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    void recordResponse(Operation operation, long latencyNanos, int status) {
+        boolean success = status / 100 == 2;
+        stats.get(operation).record(latencyNanos, success);
+        total.record(latencyNanos, success);
+    }
+
+    void recordFailure(Operation operation, long latencyNanos) {
+        stats.get(operation).record(latencyNanos, false);
+        total.record(latencyNanos, false);
+    }
+
+    void recordDropped(Operation operation) {
+        stats.get(operation).dropped.increment();
+        total.dropped.increment();
+    }
+
+    /**
+     * Compares the totals with the SLO and returns one line per violated limit.
+     */
+    List<String> violations(LoadTestConfig.Slo slo, int ratePerSecond, Duration measured) {
+        List<String> violations = new ArrayList<>();
+        double p99 = total.percentileMillis(99.0);
+        if (p99 > slo.p99Millis()) {
+            violations.add(String.format(Locale.ROOT, "p99 latency %.2f ms exceeds %.2f ms", p99, slo.p99Millis()));
+        }
+        double p999 = total.percentileMillis(99.9);
+        if (p999 > slo.p999Millis()) {
+            violations.add(String.format(Locale.ROOT, "p99.9 latency %.2f ms exceeds %.2f ms", p999, slo.p999Millis()));
+        }
+        double errorRate = total.errorRate();
+        if (errorRate > slo.maxErrorRate()) {
+            violations.add(String.format(Locale.ROOT, "error rate %.4f exceeds %.4f", errorRate, slo.maxErrorRate()));
+        }
+        double throughput = total.successful() / seconds(measured);
+        double minThroughput = ratePerSecond * slo.minThroughputRatio();
+        if (throughput < minThroughput) {
+            violations.add(String.format(Locale.ROOT, "throughput %.1f req/s is below %.1f req/s", throughput, minThroughput));
+        }
+        return violations;
+    }
+
+    void print(PrintStream out, int ratePerSecond, Duration measured) {
+        out.printf(Locale.ROOT, "Target rate %d req/s, measured for %d s%n", ratePerSecond, measured.toSeconds());
+        out.printf(Locale.ROOT, "%-8s %9s %8s %8s %10s %9s %9s %9s %9s %9s%n",
+                "op", "requests", "errors", "dropped", "ok req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        stats.forEach((operation, s) -> {
+            if (s.requests() > 0) {
+                printRow(out, operation.name().toLowerCase(Locale.ROOT), s, measured);
+            }
+        });
+        printRow(out, "total", total, measured);
+    }
+
+    /**
+     * Writes the percentile distribution of every operation as .hgrm files, which HdrHistogram's
+     * plotter reads, so runs of two commits can be overlaid.
+     */
+    void writeHistograms(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            if (entry.getValue().requests() > 0) {
+                writeHistogram(entry.getValue().latencies, dir.resolve(entry.getKey().name().toLowerCase(Locale.ROOT) + ".hgrm"));
+            }
+        }
+        writeHistogram(total.latencies, dir.resolve("total.hgrm"));
+    }
+
+    private static void writeHistogram(Histogram histogram, Path file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, Stats s, Duration measured) {
+        out.printf(Locale.ROOT, "%-8s %9d %8d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, s.requests(), s.errors.sum(), s.dropped.sum(), s.successful() / seconds(measured),
+                s.percentileMillis(50.0), s.percentileMillis(90.0), s.percentileMillis(99.0),
+                s.percentileMillis(99.9), s.latencies.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toNanos() / 1_000_000_000.0;
+    }
+
+    private static final class Stats {
+
+        // Auto-resizing, so requests slower than any fixed bound are still recorded exactly
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        void record(long latencyNanos, boolean success) {
+            latencies.recordValue(latencyNanos);
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        long requests() {
+            return latencies.getTotalCount() + dropped.sum();
+        }
+
+        long successful() {
+            return latencies.getTotalCount() - errors.sum();
+        }
+
+        double errorRate() {
+            long requests = requests();
+            return requests == 0 ? 0.0 : (double) (errors.sum() + dropped.sum()) / requests;
+        }
+
+        double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.userservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+
+/**
+ * Starts user-service, seeds users, runs the configured open-model workload and prints latency
+ * percentiles, throughput and error rates per operation. Exits with status 1 when the run broke
+ * one of the {@code loadtest.slo.*} limits, which fails {@code mvn exec:exec}.
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        List<String> violations;
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(config)) {
+            UserServiceClient client = new UserServiceClient(environment.baseUri(), new ObjectMapper());
+            System.out.printf("Seeding %d users at %s%n", config.seedUsers(), environment.baseUri());
+            client.seed(config.seedUsers());
+
+            System.out.printf("Running %d req/s: %d s warm-up, %d s measured%n",
+                    config.ratePerSecond(), config.warmup().toSeconds(), config.duration().toSeconds());
+            LoadTestReport report = new OpenModelLoadGenerator(config, client::execute).run();
+
+            report.print(System.out, config.ratePerSecond(), config.duration());
+            report.writeHistograms(config.reportDir());
+            System.out.println("Latency distributions written to " + config.reportDir().toAbsolutePath());
+            violations = report.violations(config.slo(), config.ratePerSecond(), config.duration());
+        }
+
+        if (violations.isEmpty()) {
+            System.out.println("All SLOs met");
+            System.exit(0);
+        }
+        System.err.println("SLO violated:");
+        violations.forEach(violation -> System.err.println("  " + violation));
+        // Explicit exit, Kafka and pool threads must not keep a failed run alive
+        System.exit(1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.userservice.loadtest;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Constant-arrival-rate (open model) generator: request {@code i} is scheduled at
+ * {@code start + i / rate} no matter how many earlier requests are still running, and its latency
+ * is measured from that scheduled time. A slow service therefore cannot throttle the load it
+ * receives, and time a request spent waiting for the generator is counted against it instead of
+ * being silently omitted.
+ */
+class OpenModelLoadGenerator {
+
+    private final LoadTestConfig config;
+    private final Function<Operation, CompletableFuture<Integer>> executor;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    OpenModelLoadGenerator(LoadTestConfig config, Function<Operation, CompletableFuture<Integer>> executor) {
+        this.config = config;
+        this.executor = executor;
+        Map<Operation, Integer> mix = config.mix();
+        this.operations = mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += mix.get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    LoadTestReport run() throws InterruptedException {
+        LoadTestReport report = new LoadTestReport();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.ratePerSecond();
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * intervalNanos;
+            if (scheduled >= end) {
+                break;
+            }
+            waitUntil(scheduled);
+            Operation operation = nextOperation();
+            boolean measured = scheduled >= measureFrom;
+            if (inFlight.get() >= config.maxInFlight()) {
+                if (measured) {
+                    report.recordDropped(operation);
+                }
+                continue;
+            }
+            inFlight.incrementAndGet();
+            executor.apply(operation).whenComplete((status, error) -> {
+                long latency = System.nanoTime() - scheduled;
+                inFlight.decrementAndGet();
+                if (!measured) {
+                    return;
+                }
+                if (error != null) {
+                    report.recordFailure(operation, latency);
+                } else {
+                    report.recordResponse(operation, latency, status);
+                }
+            });
+        }
+        awaitInFlight();
+        return report;
+    }
+
+    private Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Weight " + pick + " outside the mix");
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        // Requests time out on their own, so the drain ends within one request timeout
+        long deadline = System.nanoTime() + UserServiceClient.REQUEST_TIMEOUT.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.userservice.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The user-service calls the workload is made of. The mix is given as weights,
+ * e.g. {@code create=20,get=50,patch=15,delete=5,list=10}. GET, EMAIL, LIST and COUNT are the
+ * reads user-service-reactive serves as well.
+ */
+enum Operation {
+    CREATE,
+    GET,
+    EMAIL,
+    PATCH,
+    DELETE,
+    LIST,
+    COUNT;
+
+    boolean isRead() {
+        return this == GET || this == EMAIL || this == LIST || this == COUNT;
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+            }
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in loadtest.mix: " + entry);
+            }
+            weights.put(operation, weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weight: " + mix);
+        }
+        return weights;
+    }
+}
\ No newline at end of file
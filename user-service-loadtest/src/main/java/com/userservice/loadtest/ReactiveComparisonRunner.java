@@ -0,0 +1,60 @@
+package com.userservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the same read-only workload against user-service and user-service-reactive, one after the
+ * other on the same database and seed users, and prints both reports. The Caffeine cache of
+ * user-service is switched off, so both answer every read from PostgreSQL with the same number
+ * of connections. Exits with status 1 when either of them broke one of the {@code loadtest.slo.*}
+ * limits.
+ */
+public final class ReactiveComparisonRunner {
+
+    private ReactiveComparisonRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        List<Operation> writes = config.mix().keySet().stream().filter(operation -> !operation.isRead()).toList();
+        if (!writes.isEmpty()) {
+            throw new IllegalArgumentException("user-service-reactive only serves reads, loadtest.mix has " + writes);
+        }
+
+        List<String> violations = new ArrayList<>();
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(config, "--spring.cache.caffeine.spec=maximumSize=0")) {
+            UserServiceClient servletClient = new UserServiceClient(environment.baseUri(), new ObjectMapper());
+            System.out.printf("Seeding %d users at %s%n", config.seedUsers(), environment.baseUri());
+            servletClient.seed(config.seedUsers());
+            UserServiceClient reactiveClient = servletClient.withBaseUri(environment.startReactive());
+
+            violations.addAll(run(config, "servlet", servletClient));
+            violations.addAll(run(config, "reactive", reactiveClient));
+        }
+
+        if (violations.isEmpty()) {
+            System.out.println("All SLOs met");
+            System.exit(0);
+        }
+        System.err.println("SLO violated:");
+        violations.forEach(violation -> System.err.println("  " + violation));
+        // Explicit exit, Kafka, Netty and pool threads must not keep a failed run alive
+        System.exit(1);
+    }
+
+    private static List<String> run(LoadTestConfig config, String name, UserServiceClient client) throws Exception {
+        System.out.printf("%n[%s] Running %d req/s: %d s warm-up, %d s measured%n",
+                name, config.ratePerSecond(), config.warmup().toSeconds(), config.duration().toSeconds());
+        LoadTestReport report = new OpenModelLoadGenerator(config, client::execute).run();
+
+        report.print(System.out, config.ratePerSecond(), config.duration());
+        report.writeHistograms(config.reportDir().resolve(name));
+        System.out.println("Latency distributions written to " + config.reportDir().resolve(name).toAbsolutePath());
+        return report.violations(config.slo(), config.ratePerSecond(), config.duration()).stream()
+                .map(violation -> name + ": " + violation)
+                .toList();
+    }
+}
\ No newline at end of file
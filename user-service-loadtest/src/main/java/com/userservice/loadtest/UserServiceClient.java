@@ -0,0 +1,184 @@
+package com.userservice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues the workload operations against a running user-service. GET, EMAIL and PATCH only touch
+ * users created by {@link #seed(int)}, DELETE only removes users created by this client, so
+ * a 404 or 409 is always a real error and never a race inside the workload itself.
+ */
+class UserServiceClient {
+
+    static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final String JSON = "application/json";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI usersUri;
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong emailSequence = new AtomicLong();
+    private final List<SeededUser> stableUsers;
+    private final Queue<Long> deletableIds;
+
+    UserServiceClient(URI baseUri, ObjectMapper objectMapper) {
+        this(baseUri, objectMapper, new ArrayList<>(), new ConcurrentLinkedQueue<>());
+    }
+
+    private UserServiceClient(URI baseUri, ObjectMapper objectMapper, List<SeededUser> stableUsers, Queue<Long> deletableIds) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.objectMapper = objectMapper;
+        this.usersUri = baseUri.resolve("/api/users");
+        this.stableUsers = stableUsers;
+        this.deletableIds = deletableIds;
+    }
+
+    /**
+     * Client of another instance on the same database, working with the users seeded through
+     * this one.
+     */
+    UserServiceClient withBaseUri(URI baseUri) {
+        return new UserServiceClient(baseUri, objectMapper, stableUsers, deletableIds);
+    }
+
+    /**
+     * Creates {@code count} users for GET and PATCH and as many again for DELETE to consume
+     * before the creates of the run refill the queue.
+     */
+    void seed(int count) throws IOException, InterruptedException {
+        List<SeededUser> created = new ArrayList<>(2 * count);
+        for (int remaining = 2 * count; remaining > 0; remaining -= SEED_BATCH_SIZE) {
+            created.addAll(createBatch(Math.min(remaining, SEED_BATCH_SIZE)));
+        }
+        stableUsers.addAll(created.subList(0, count));
+        created.subList(count, created.size()).forEach(user -> deletableIds.add(user.id()));
+    }
+
+    /**
+     * Completes with the HTTP status of the call, or fails when the request could not be sent
+     * or timed out.
+     */
+    CompletableFuture<Integer> execute(Operation operation) {
+        return switch (operation) {
+            case CREATE -> send(post(usersUri, newUser()))
+                    .thenApply(response -> {
+                        if (response.statusCode() == 201) {
+                            deletableIds.add(readId(response.body()));
+                        }
+                        return response.statusCode();
+                    });
+            case GET -> send(HttpRequest.newBuilder(userUri(randomStableUser().id())).GET())
+                    .thenApply(HttpResponse::statusCode);
+            case EMAIL -> send(HttpRequest.newBuilder(URI.create(usersUri + "/by-email?email="
+                    + URLEncoder.encode(randomStableUser().email(), StandardCharsets.UTF_8))).GET())
+                    .thenApply(HttpResponse::statusCode);
+            case PATCH -> send(HttpRequest.newBuilder(userUri(randomStableUser().id()))
+                    .header("Content-Type", JSON)
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                            "{\"age\":" + ThreadLocalRandom.current().nextInt(18, 90) + "}")))
+                    .thenApply(HttpResponse::statusCode);
+            case DELETE -> delete();
+            case LIST -> send(HttpRequest.newBuilder(URI.create(usersUri + "?size=20")).GET())
+                    .thenApply(HttpResponse::statusCode);
+            case COUNT -> send(HttpRequest.newBuilder(URI.create(usersUri + "/count")).GET())
+                    .thenApply(HttpResponse::statusCode);
+        };
+    }
+
+    private CompletableFuture<Integer> delete() {
+        Long id = deletableIds.poll();
+        if (id == null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("No user left to delete, raise loadtest.seed-users"));
+        }
+        return send(HttpRequest.newBuilder(userUri(id)).DELETE())
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    private List<SeededUser> createBatch(int size) throws IOException, InterruptedException {
+        ObjectNode request = objectMapper.createObjectNode();
+        ArrayNode users = request.putArray("users");
+        for (int i = 0; i < size; i++) {
+            users.add(newUser());
+        }
+        HttpResponse<String> response = httpClient.send(
+                post(usersUri.resolve("/api/users/batch"), request).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Seeding users failed with HTTP " + response.statusCode()
+                    + ": " + response.body());
+        }
+        List<SeededUser> created = new ArrayList<>(size);
+        for (JsonNode item : objectMapper.readTree(response.body()).path("items")) {
+            if (item.hasNonNull("user")) {
+                JsonNode user = item.path("user");
+                created.add(new SeededUser(user.path("id").asLong(), user.path("email").asText()));
+            }
+        }
+        if (created.size() != size) {
+            throw new IllegalStateException("Seeding created " + created.size() + " of " + size + " users");
+        }
+        return created;
+    }
+
+    private ObjectNode newUser() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return objectMapper.createObjectNode()
+                .put("name", "Load Test " + random.nextInt(100_000))
+                .put("email", "lt-" + runId + "-" + emailSequence.incrementAndGet() + "@load.test")
+                .put("age", random.nextInt(18, 90));
+    }
+
+    private HttpRequest.Builder post(URI uri, JsonNode body) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()));
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest.Builder request) {
+        return httpClient.sendAsync(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private long readId(String body) {
+        try {
+            return objectMapper.readTree(body).path("id").asLong();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable create response: " + body, e);
+        }
+    }
+
+    private SeededUser randomStableUser() {
+        return stableUsers.get(ThreadLocalRandom.current().nextInt(stableUsers.size()));
+    }
+
+    private URI userUri(long id) {
+        return URI.create(usersUri + "/" + id);
+    }
+
+    private record SeededUser(long id, String email) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.userservice.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadTestReportTest {
+
+    private static final LoadTestConfig.Slo SLO = new LoadTestConfig.Slo(100, 250, 0.01, 0.9);
+    private static final Duration ONE_SECOND = Duration.ofSeconds(1);
+
+    @Test
+    @DisplayName("Run within every limit has no violations")
+    void runWithinLimitsHasNoViolations() {
+        LoadTestReport report = new LoadTestReport();
+        for (int i = 0; i < 1000; i++) {
+            report.recordResponse(Operation.GET, millis(5), 200);
+        }
+
+        assertThat(report.violations(SLO, 1000, ONE_SECOND)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Slow tail breaks the p99 and p99.9 limits")
+    void slowTailBreaksLatencyLimits() {
+        LoadTestReport report = new LoadTestReport();
+        for (int i = 0; i < 980; i++) {
+            report.recordResponse(Operation.GET, millis(5), 200);
+        }
+        for (int i = 0; i < 20; i++) {
+            report.recordResponse(Operation.PATCH, millis(400), 200);
+        }
+
+        List<String> violations = report.violations(SLO, 1000, ONE_SECOND);
+
+        assertThat(violations).hasSize(2);
+        assertThat(violations.get(0)).startsWith("p99 latency");
+        assertThat(violations.get(1)).startsWith("p99.9 latency");
+    }
+
+    @Test
+    @DisplayName("Non-2xx responses, failures and dropped requests count as errors")
+    void errorsIncludeFailuresAndDroppedRequests() {
+        LoadTestReport report = new LoadTestReport();
+        for (int i = 0; i < 970; i++) {
+            report.recordResponse(Operation.GET, millis(5), 200);
+        }
+        for (int i = 0; i < 10; i++) {
+            report.recordResponse(Operation.GET, millis(5), 404);
+            report.recordFailure(Operation.DELETE, millis(5));
+            report.recordDropped(Operation.CREATE);
+        }
+
+        assertThat(report.violations(SLO, 1000, ONE_SECOND))
+                .containsExactly("error rate 0.0300 exceeds 0.0100");
+    }
+
+    @Test
+    @DisplayName("Completing fewer requests than the target rate breaks the throughput limit")
+    void lowThroughputBreaksLimit() {
+        LoadTestReport report = new LoadTestReport();
+        for (int i = 0; i < 500; i++) {
+            report.recordResponse(Operation.LIST, millis(5), 200);
+        }
+
+        assertThat(report.violations(SLO, 1000, ONE_SECOND))
+                .containsExactly("throughput 500.0 req/s is below 900.0 req/s");
+    }
+
+    @Test
+    @DisplayName("Mix weights are parsed per operation, case-insensitively")
+    void parsesMix() {
+        assertThat(Operation.parseMix("Create=2, get=5"))
+                .containsEntry(Operation.CREATE, 2)
+                .containsEntry(Operation.GET, 5)
+                .hasSize(2);
+    }
+
+    private static long millis(long value) {
+        return value * 1_000_000L;
+    }
+}
\ No newline at end of file
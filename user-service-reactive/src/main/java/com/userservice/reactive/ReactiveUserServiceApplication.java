@@ -0,0 +1,23 @@
+package com.userservice.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.hateoas.config.EnableHypermediaSupport;
+import org.springframework.hateoas.config.EnableHypermediaSupport.HypermediaType;
+import org.springframework.hateoas.support.WebStack;
+
+/**
+ * Read endpoints of user-service on WebFlux and R2DBC. Requests wait for PostgreSQL without
+ * holding a thread, so a burst of slow reads does not exhaust a request thread pool. Responses
+ * are rendered as HAL like in user-service, Spring Boot only sets that up for servlet stacks.
+ */
+@SpringBootApplication
+@EnableDiscoveryClient
+@EnableHypermediaSupport(type = HypermediaType.HAL, stacks = WebStack.WEBFLUX)
+public class ReactiveUserServiceApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveUserServiceApplication.class, args);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.userservice.reactive.controller;
+
+import com.userservice.controller.UserEtag;
+import com.userservice.dto.CursorPagedModel;
+import com.userservice.dto.UserDto;
+import com.userservice.exception.UserNotFoundException;
+import com.userservice.exception.ValidationException;
+import com.userservice.reactive.repository.ReactiveUserRepository;
+import com.userservice.service.UserCursor;
+import com.userservice.service.UserService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.methodOn;
+
+/**
+ * The read endpoints of the UserController of user-service: by id, by email, count and the
+ * cursor pages, with the same URLs, JSON, links and entity tags. Conditional GETs are answered by
+ * WebFlux from the ETag and Last-Modified of the response. Users are read from PostgreSQL on
+ * every request, without the cache user-service keeps in front of it.
+ */
+@RestController
+@RequestMapping(ReactiveUserController.BASE_PATH)
+public class ReactiveUserController {
+
+    static final String BASE_PATH = "/api/users";
+
+    private static final Logger log = LogManager.getLogger(ReactiveUserController.class);
+
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveUserLinks userLinks;
+
+    public ReactiveUserController(ReactiveUserRepository userRepository, ReactiveUserLinks userLinks) {
+        this.userRepository = userRepository;
+        this.userLinks = userLinks;
+    }
+
+    @GetMapping("/count")
+    public Mono<ResponseEntity<Long>> getUserCount(@RequestParam(defaultValue = "fast") String mode) {
+        log.info("REST request to get user count, mode: {}", mode);
+        Mono<Long> count = switch (mode) {
+            case "fast" -> userRepository.total();
+            case "exact" -> userRepository.count();
+            default -> Mono.error(new ValidationException("Неизвестный режим подсчета: " + mode));
+        };
+        return count.map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/by-email")
+    public Mono<ResponseEntity<EntityModel<UserDto>>> getUserByEmail(@RequestParam String email, ServerWebExchange exchange) {
+        log.info("REST request to get user by email: {}", email);
+        return userRepository.findByEmail(email)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException("User with email " + email + " not found")))
+                .zipWith(linkTo(methodOn(ReactiveUserController.class).getUserByEmail(email, null), exchange)
+                        .withSelfRel().toMono())
+                .map(userAndSelf -> {
+                    UserDto user = userAndSelf.getT1();
+                    String baseUri = userLinks.baseUri(exchange.getRequest());
+                    EntityModel<UserDto> userModel = EntityModel.of(user);
+                    userModel.add(userAndSelf.getT2());
+                    userModel.add(userLinks.user(baseUri, user.getId()));
+                    userModel.add(userLinks.update(baseUri, user.getId()));
+                    userModel.add(userLinks.delete(baseUri, user.getId()));
+                    userModel.add(userLinks.users(baseUri));
+                    return withValidators(user, userModel);
+                });
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<EntityModel<UserDto>>> getUserById(@PathVariable Long id, ServerWebExchange exchange) {
+        log.info("REST request to get user by ID: {}", id);
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException(id)))
+                .map(user -> {
+                    String baseUri = userLinks.baseUri(exchange.getRequest());
+                    EntityModel<UserDto> userModel = EntityModel.of(user);
+                    userModel.add(userLinks.self(baseUri, id));
+                    userModel.add(userLinks.update(baseUri, id));
+                    userModel.add(userLinks.patch(baseUri, id));
+                    userModel.add(userLinks.delete(baseUri, id));
+                    userModel.add(userLinks.users(baseUri));
+                    return withValidators(user, userModel);
+                });
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<CursorPagedModel<EntityModel<UserDto>>>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            ServerWebExchange exchange) {
+        log.info("REST request to get users page, cursor: {}, size: {}", cursor, size);
+        int pageSize = resolvePageSize(size);
+        Long afterId = UserCursor.decode(cursor);
+
+        return userRepository.findPage(afterId, pageSize + 1)
+                .collectList()
+                .flatMap(users -> {
+                    boolean hasNext = users.size() > pageSize;
+                    List<UserDto> content = hasNext ? users.subList(0, pageSize) : users;
+                    String nextCursor = hasNext ? UserCursor.encode(content.get(content.size() - 1).getId()) : null;
+
+                    String baseUri = userLinks.baseUri(exchange.getRequest());
+                    List<EntityModel<UserDto>> userModels = content.stream()
+                            .map(user -> {
+                                EntityModel<UserDto> userModel = EntityModel.of(user);
+                                userModel.add(userLinks.self(baseUri, user.getId()));
+                                userModel.add(userLinks.update(baseUri, user.getId()));
+                                userModel.add(userLinks.delete(baseUri, user.getId()));
+                                return userModel;
+                            })
+                            .toList();
+                    CursorPagedModel<EntityModel<UserDto>> pagedModel = new CursorPagedModel<>(userModels, nextCursor);
+
+                    Mono<Link> self = linkTo(methodOn(ReactiveUserController.class).getAllUsers(cursor, size, null), exchange)
+                            .withSelfRel().toMono();
+                    Mono<List<Link>> next = hasNext
+                            ? linkTo(methodOn(ReactiveUserController.class).getAllUsers(nextCursor, size, null), exchange)
+                                    .withRel(IanaLinkRelations.NEXT).toMono().map(List::of)
+                            : Mono.just(List.of());
+                    return Mono.zip(self, next).map(links -> {
+                        pagedModel.add(links.getT1());
+                        pagedModel.add(links.getT2());
+                        pagedModel.add(userLinks.create(baseUri));
+                        pagedModel.add(userLinks.count(baseUri));
+                        return ResponseEntity.ok(pagedModel);
+                    });
+                });
+    }
+
+    private static int resolvePageSize(Integer size) {
+        if (size == null) {
+            return UserService.DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1) {
+            throw new ValidationException("Размер страницы должен быть больше 0");
+        }
+        return Math.min(size, UserService.MAX_PAGE_SIZE);
+    }
+
+    private static ResponseEntity<EntityModel<UserDto>> withValidators(UserDto user, EntityModel<UserDto> userModel) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String etag = UserEtag.of(user);
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        long lastModified = UserEtag.lastModified(user);
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        return response.body(userModel);
+    }
+}
\ No newline at end of file
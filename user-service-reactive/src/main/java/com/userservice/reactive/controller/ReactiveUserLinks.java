@@ -0,0 +1,64 @@
+package com.userservice.reactive.controller;
+
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Links of a single user with the hrefs {@code UserLinks} gives them in user-service. The write
+ * routes they point to are served by user-service behind the same URLs. Like there, only the base
+ * URI of the request and the user id are filled in per link.
+ */
+@Component
+public class ReactiveUserLinks {
+
+    private static final String USER = ReactiveUserController.BASE_PATH + "/";
+    private static final String USERS = ReactiveUserController.BASE_PATH + "{?cursor,size}";
+    private static final String CREATE = ReactiveUserController.BASE_PATH;
+    private static final String COUNT = ReactiveUserController.BASE_PATH + "/count";
+
+    public Link self(String baseUri, Long id) {
+        return Link.of(baseUri + USER + id, IanaLinkRelations.SELF);
+    }
+
+    public Link user(String baseUri, Long id) {
+        return Link.of(baseUri + USER + id, "user");
+    }
+
+    public Link update(String baseUri, Long id) {
+        return Link.of(baseUri + USER + id, "update");
+    }
+
+    public Link patch(String baseUri, Long id) {
+        return Link.of(baseUri + USER + id, "patch");
+    }
+
+    public Link delete(String baseUri, Long id) {
+        return Link.of(baseUri + USER + id, "delete");
+    }
+
+    public Link users(String baseUri) {
+        return Link.of(baseUri + USERS, "users");
+    }
+
+    public Link create(String baseUri) {
+        return Link.of(baseUri + CREATE, "create");
+    }
+
+    public Link count(String baseUri) {
+        return Link.of(baseUri + COUNT, "count");
+    }
+
+    /**
+     * Scheme, host, port and context path of the request, the base {@code WebFluxLinkBuilder} uses.
+     */
+    public String baseUri(ServerHttpRequest request) {
+        return UriComponentsBuilder.fromHttpRequest(request)
+                .replacePath(request.getPath().contextPath().value())
+                .replaceQuery(null)
+                .build()
+                .toUriString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.userservice.reactive.repository;
+
+import com.userservice.dto.UserDto;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The queries behind the read endpoints, the same ones user-service runs through JPA, mapped
+ * straight to {@link UserDto}. Single users carry updatedAt and version for their entity tag,
+ * page rows do not need them.
+ * <p>
+ * Only unsharded deployments are supported: the queries read the users and user_counter tables of
+ * the one database behind {@code spring.r2dbc.url}. With users spread over several databases by
+ * {@code users.sharding.shard-urls} they would miss the users on the other shards, so the service
+ * refuses to start then.
+ */
+@Repository
+public class ReactiveUserRepository {
+
+    private static final String USER_COLUMNS = "id, name, email, age, created_at, updated_at, version";
+    private static final String PAGE_COLUMNS = "id, name, email, age, created_at";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserRepository(DatabaseClient databaseClient, Environment environment) {
+        List<String> shardUrls = Binder.get(environment)
+                .bind("users.sharding.shard-urls", Bindable.listOf(String.class))
+                .orElse(List.of());
+        if (shardUrls.size() > 1) {
+            throw new IllegalStateException("The reactive read path supports a single database only,"
+                    + " users.sharding.shard-urls cannot be set");
+        }
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<UserDto> findById(Long id) {
+        return databaseClient.sql("SELECT " + USER_COLUMNS + " FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<UserDto> findByEmail(String email) {
+        return databaseClient.sql("SELECT " + USER_COLUMNS + " FROM users WHERE email = :email")
+                .bind("email", email)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    /**
+     * Keyset page in id order: the first {@code limit} users with an id above {@code afterId},
+     * or from the start when it is {@code null}.
+     */
+    public Flux<UserDto> findPage(Long afterId, int limit) {
+        DatabaseClient.GenericExecuteSpec query = afterId == null
+                ? databaseClient.sql("SELECT " + PAGE_COLUMNS + " FROM users ORDER BY id LIMIT :limit")
+                : databaseClient.sql("SELECT " + PAGE_COLUMNS + " FROM users WHERE id > :afterId ORDER BY id LIMIT :limit")
+                        .bind("afterId", afterId);
+        return query.bind("limit", limit)
+                .map(row -> new UserDto(
+                        row.get("id", Long.class),
+                        row.get("name", String.class),
+                        row.get("email", String.class),
+                        row.get("age", Integer.class),
+                        row.get("created_at", LocalDateTime.class)))
+                .all();
+    }
+
+    /**
+     * Sum of the user_counter slots user-service keeps up to date on every create and delete.
+     */
+    public Mono<Long> total() {
+        return databaseClient.sql("SELECT COALESCE(SUM(total), 0) FROM user_counter")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Mono<Long> count() {
+        return databaseClient.sql("SELECT COUNT(*) FROM users")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private static UserDto toUser(Readable row) {
+        return new UserDto(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("age", Integer.class),
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class),
+                row.get("version", Long.class));
+    }
+}
\ No newline at end of file
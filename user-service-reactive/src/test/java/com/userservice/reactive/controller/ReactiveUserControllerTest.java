@@ -0,0 +1,178 @@
+package com.userservice.reactive.controller;
+
+import com.userservice.dto.UserDto;
+import com.userservice.reactive.exception.ReactiveExceptionHandler;
+import com.userservice.reactive.repository.ReactiveUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * The expected bodies are what the UserController of user-service returns for the same users.
+ */
+@WebFluxTest(ReactiveUserController.class)
+@Import({ReactiveUserLinks.class, ReactiveExceptionHandler.class})
+@DisplayName("ReactiveUserController API Test")
+class ReactiveUserControllerTest {
+
+    private static final UserDto USER = new UserDto(1L, "N", "e@x.com", 3, LocalDateTime.of(2024, 1, 2, 3, 4, 5),
+            LocalDateTime.of(2024, 1, 2, 3, 4, 6), 2L);
+    private static final String USER_LINKS = """
+            "self":{"href":"http://localhost/api/users/1"},\
+            "update":{"href":"http://localhost/api/users/1"},\
+            "delete":{"href":"http://localhost/api/users/1"}""";
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @MockBean
+    private ReactiveUserRepository userRepository;
+
+    // Absolute request URIs, as behind a real server, so that links are absolute as well
+    @BeforeEach
+    void setUp() {
+        webTestClient = webTestClient.mutate().baseUrl("http://localhost").build();
+    }
+
+    @Test
+    @DisplayName("GET /api/users/{id} - должен вернуть пользователя с теми же ссылками и ETag")
+    void shouldGetUserById() {
+        when(userRepository.findById(1L)).thenReturn(Mono.just(USER));
+
+        webTestClient.get().uri("/api/users/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaTypes.HAL_JSON)
+                .expectHeader().valueEquals("ETag", "\"1-2\"")
+                .expectHeader().exists("Last-Modified")
+                .expectBody().json("""
+                        {"id":1,"name":"N","email":"e@x.com","age":3,"createdAt":"2024.01.02 03.04.05","_links":{\
+                        "self":{"href":"http://localhost/api/users/1"},\
+                        "update":{"href":"http://localhost/api/users/1"},\
+                        "patch":{"href":"http://localhost/api/users/1"},\
+                        "delete":{"href":"http://localhost/api/users/1"},\
+                        "users":{"href":"http://localhost/api/users{?cursor,size}","templated":true}}}""", true);
+    }
+
+    @Test
+    @DisplayName("GET /api/users/{id} - должен вернуть 304 при совпадении If-None-Match")
+    void shouldReturnNotModifiedForMatchingEtag() {
+        when(userRepository.findById(1L)).thenReturn(Mono.just(USER));
+
+        webTestClient.get().uri("/api/users/1")
+                .header("If-None-Match", "\"1-2\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    @DisplayName("GET /api/users/{id} - должен вернуть 404, если пользователь не найден")
+    void shouldReturn404WhenUserNotFound() {
+        when(userRepository.findById(2L)).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/api/users/2")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.error").isEqualTo("Not Found")
+                .jsonPath("$.message").isEqualTo("Пользователь с ID 2 не найден");
+    }
+
+    @Test
+    @DisplayName("GET /api/users/by-email - должен вернуть пользователя со ссылкой на поиск по email")
+    void shouldGetUserByEmail() {
+        when(userRepository.findByEmail("e@x.com")).thenReturn(Mono.just(USER));
+
+        webTestClient.get().uri(uri -> uri.path("/api/users/by-email").queryParam("email", "e@x.com").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1-2\"")
+                .expectBody().json("""
+                        {"id":1,"name":"N","email":"e@x.com","age":3,"createdAt":"2024.01.02 03.04.05","_links":{\
+                        "self":{"href":"http://localhost/api/users/by-email?email=e%40x.com"},\
+                        "user":{"href":"http://localhost/api/users/1"},\
+                        "update":{"href":"http://localhost/api/users/1"},\
+                        "delete":{"href":"http://localhost/api/users/1"},\
+                        "users":{"href":"http://localhost/api/users{?cursor,size}","templated":true}}}""", true);
+    }
+
+    @Test
+    @DisplayName("GET /api/users - должен вернуть первую страницу с курсором и ссылкой на следующую")
+    void shouldGetFirstPage() {
+        UserDto second = new UserDto(2L, "M", "f@x.com", 4, LocalDateTime.of(2024, 1, 2, 3, 4, 7));
+        when(userRepository.findPage(null, 2)).thenReturn(Flux.just(USER, second));
+
+        webTestClient.get().uri("/api/users?size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("""
+                        {"_embedded":{"userDtoList":[{"id":1,"name":"N","email":"e@x.com","age":3,\
+                        "createdAt":"2024.01.02 03.04.05","_links":{%s}}]},\
+                        "_links":{"self":{"href":"http://localhost/api/users?size=1{&cursor}","templated":true},\
+                        "next":{"href":"http://localhost/api/users?cursor=aWQ6MQ&size=1"},\
+                        "create":{"href":"http://localhost/api/users"},\
+                        "count":{"href":"http://localhost/api/users/count"}},\
+                        "nextCursor":"aWQ6MQ"}""".formatted(USER_LINKS), true);
+    }
+
+    @Test
+    @DisplayName("GET /api/users - должен продолжить с курсора и не вернуть курсор на последней странице")
+    void shouldGetLastPage() {
+        when(userRepository.findPage(0L, 2)).thenReturn(Flux.just(USER));
+
+        webTestClient.get().uri("/api/users?cursor=aWQ6MA&size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("""
+                        {"_embedded":{"userDtoList":[{"id":1,"name":"N","email":"e@x.com","age":3,\
+                        "createdAt":"2024.01.02 03.04.05","_links":{%s}}]},\
+                        "_links":{"self":{"href":"http://localhost/api/users?cursor=aWQ6MA&size=1"},\
+                        "create":{"href":"http://localhost/api/users"},\
+                        "count":{"href":"http://localhost/api/users/count"}}}""".formatted(USER_LINKS), true);
+    }
+
+    @Test
+    @DisplayName("GET /api/users - должен вернуть 400 при некорректном курсоре")
+    void shouldReturn400WhenCursorInvalid() {
+        webTestClient.get().uri("/api/users?cursor=broken")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Некорректный курсор страницы");
+        verify(userRepository, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("GET /api/users/count - должен вернуть счетчик или точное количество")
+    void shouldGetUserCount() {
+        when(userRepository.total()).thenReturn(Mono.just(5L));
+        when(userRepository.count()).thenReturn(Mono.just(6L));
+
+        webTestClient.get().uri("/api/users/count")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class).isEqualTo(5L);
+        webTestClient.get().uri("/api/users/count?mode=exact")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class).isEqualTo(6L);
+        webTestClient.get().uri("/api/users/count?mode=bad")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Неизвестный режим подсчета: bad");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.userservice.reactive.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("ReactiveUserRepository tests")
+class ReactiveUserRepositoryTest {
+
+    @Test
+    @DisplayName("Should refuse to start when users are sharded")
+    void shouldRefuseShardedDeployments() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("users.sharding.shard-urls", "jdbc:postgresql://a/users,jdbc:postgresql://b/users");
+
+        assertThrows(IllegalStateException.class, () -> new ReactiveUserRepository(mock(DatabaseClient.class), environment));
+    }
+
+    @Test
+    @DisplayName("Should start with a single database")
+    void shouldStartUnsharded() {
+        assertDoesNotThrow(() -> new ReactiveUserRepository(mock(DatabaseClient.class), new MockEnvironment()));
+        assertDoesNotThrow(() -> new ReactiveUserRepository(mock(DatabaseClient.class),
+                new MockEnvironment().withProperty("users.sharding.shard-urls", "jdbc:postgresql://a/users")));
+    }
+}
\ No newline at end of file
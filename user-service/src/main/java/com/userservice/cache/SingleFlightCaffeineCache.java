@@ -0,0 +1,56 @@
+package com.userservice.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Caffeine cache whose {@code @Cacheable(sync = true)} loads run on the calling thread without
+ * holding a lock of the cache map. Concurrent misses for a key still share one load through the
+ * future placed in the map first.
+ * <p>
+ * Spring's {@link CaffeineCache} loads inside {@code computeIfAbsent}, so an evict of the same key
+ * waits for the load. Loads wait for a pooled connection while evicts run inside write
+ * transactions that hold one; under load that closes into a cycle that only the Hikari
+ * connection timeout breaks. Here an evict removes an in-flight load instead, and Caffeine does
+ * not store the result of a load that is no longer mapped, so a row read before a concurrent
+ * update commits is handed to the callers already waiting for it but never cached.
+ */
+public class SingleFlightCaffeineCache extends CaffeineCache {
+
+    public SingleFlightCaffeineCache(String name, AsyncCache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // getIfPresent keeps the hit and miss counters behind the cache.gets metric
+        CompletableFuture<Object> result = getAsyncCache().getIfPresent(key);
+        if (result == null) {
+            CompletableFuture<Object> loading = new CompletableFuture<>();
+            result = getAsyncCache().asMap().putIfAbsent(key, loading);
+            if (result == null) {
+                load(valueLoader, loading);
+                result = loading;
+            }
+        }
+        try {
+            return (T) fromStoreValue(result.join());
+        } catch (CompletionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    // A failed future is removed from the cache by Caffeine, the next miss loads again
+    private void load(Callable<?> valueLoader, CompletableFuture<Object> loading) {
+        try {
+            loading.complete(toStoreValue(valueLoader.call()));
+        } catch (Throwable e) {
+            loading.completeExceptionally(e);
+        }
+    }
+}
\ No newline at end of file
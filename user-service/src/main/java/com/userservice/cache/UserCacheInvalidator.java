@@ -0,0 +1,55 @@
+package com.userservice.cache;
+
+import com.userservice.config.CacheConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class UserCacheInvalidator {
+
+    private static final Logger log = LogManager.getLogger(UserCacheInvalidator.class);
+
+    private final CacheManager cacheManager;
+
+    public UserCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Drops the cached profile under its id and every given email. Inside a transaction the
+     * entries are dropped again after commit, so a concurrent reader that reloaded the old row
+     * before the commit cannot leave it cached.
+     */
+    public void evict(Long id, String... emails) {
+        evictNow(id, emails);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(id, emails);
+                }
+            });
+        }
+    }
+
+    private void evictNow(Long id, String... emails) {
+        log.debug("Evicting cached user {}", id);
+        Cache byId = cacheManager.getCache(CacheConfig.USERS_BY_ID);
+        if (byId != null && id != null) {
+            byId.evict(id);
+        }
+        Cache byEmail = cacheManager.getCache(CacheConfig.USERS_BY_EMAIL);
+        if (byEmail != null) {
+            for (String email : emails) {
+                if (email != null) {
+                    byEmail.evict(email);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
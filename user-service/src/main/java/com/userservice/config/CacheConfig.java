@@ -0,0 +1,40 @@
+package com.userservice.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.userservice.cache.SingleFlightCaffeineCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS_BY_ID = "users-by-id";
+
+    public static final String USERS_BY_EMAIL = "users-by-email";
+
+    /**
+     * Replaces Boot's Caffeine cache manager to hand out {@link SingleFlightCaffeineCache}s, which
+     * need the asynchronous Caffeine cache underneath. Actuator binds their metrics all the same.
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${spring.cache.caffeine.spec}") String cacheSpecification) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, AsyncCache<Object, Object> cache) {
+                return new SingleFlightCaffeineCache(name, cache, isAllowNullValues());
+            }
+        };
+        cacheManager.setCacheSpecification(cacheSpecification);
+        cacheManager.setAsyncCacheMode(true);
+        cacheManager.setCacheNames(List.of(USERS_BY_ID, USERS_BY_EMAIL));
+        return cacheManager;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.userservice.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Timer names shared by the instrumented classes and application.yml, where their SLO buckets
+ * are configured. Tags stay low-cardinality: class, method, exception and send result only.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String USER_SERVICE_TIMER = "user.service";
+
+    public static final String USER_EVENT_SEND_TIMER = "user.events.send";
+
+    @Bean
+    public Advisor timedBeansAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(Timed.class, true),
+                new TimedMethodInterceptor(meterRegistry));
+    }
+}
\ No newline at end of file
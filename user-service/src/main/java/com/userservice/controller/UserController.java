@@ -1,9 +1,21 @@
 package com.userservice.controller;
 
+import com.userservice.dto.CursorPagedModel;
+import com.userservice.dto.UserBatchCreateDto;
+import com.userservice.dto.UserBatchResultDto;
 import com.userservice.dto.UserCreateDto;
 import com.userservice.dto.UserDto;
+import com.userservice.dto.UserLookupDto;
+import com.userservice.dto.UserLookupResultDto;
+import com.userservice.dto.UserPageDto;
+import com.userservice.dto.UserSearchCriteria;
 import com.userservice.dto.UserUpdateDto;
+import com.userservice.exception.ValidationException;
 import com.userservice.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,16 +23,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.hateoas.CollectionModel;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,11 +54,19 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 public class UserController {
 
     private static final Logger log = LogManager.getLogger(UserController.class);
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
     private final UserService userService;
+    private final UserLinks userLinks;
+    private final ObjectWriter ndjsonWriter;
 
     @Autowired
-    public UserController(UserService userService){
+    public UserController(UserService userService, UserLinks userLinks, ObjectMapper objectMapper){
         this.userService = userService;
+        this.userLinks = userLinks;
+        this.ndjsonWriter = objectMapper.writerFor(UserDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
     }
 
     @PostMapping
@@ -56,92 +85,237 @@ public class UserController {
         log.info("REST request to create user: {}", createDto.getEmail());
         UserDto createdUser = userService.createUser(createDto);
         EntityModel<UserDto> userModel = EntityModel.of(createdUser);
-        userModel.add(linkTo(methodOn(UserController.class).getUserById(createdUser.getId())).withSelfRel());
-        userModel.add(linkTo(methodOn(UserController.class).updateUser(createdUser.getId(), null)).withRel("update"));
-        userModel.add(linkTo(methodOn(UserController.class).deleteUser(createdUser.getId())).withRel("delete"));
-        userModel.add(linkTo(methodOn(UserController.class).getAllUsers()).withRel("users"));
+        userModel.add(userLinks.self(createdUser.getId()));
+        userModel.add(userLinks.update(createdUser.getId()));
+        userModel.add(userLinks.delete(createdUser.getId()));
+        userModel.add(userLinks.users());
         return ResponseEntity.status(HttpStatus.CREATED).body(userModel);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Создать пользователей пакетом", description = "Создает до " + UserBatchCreateDto.MAX_BATCH_SIZE + " пользователей за один запрос. Пользователи с уже занятым email пропускаются, результат возвращается по каждой позиции")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пакет обработан",
+                    content = @Content(schema = @Schema(implementation = UserBatchResultDto.class))),
+            @ApiResponse(responseCode = "400", description = "Некорректные данные пользователей",
+                    content = @Content(schema = @Schema(implementation = com.userservice.exception.ValidationErrorResponse.class)))
+    })
+    public ResponseEntity<UserBatchResultDto> createUsers(
+            @Parameter(description = "Пользователи для создания", required = true)
+            @Valid @RequestBody UserBatchCreateDto batchDto){
+        log.info("REST request to create batch of {} users", batchDto.getUsers().size());
+        UserBatchResultDto result = userService.createUsers(batchDto.getUsers());
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/lookup")
+    @Operation(summary = "Получить пользователей по списку ID", description = "Возвращает до " + UserLookupDto.MAX_LOOKUP_SIZE + " пользователей за один запрос в порядке переданных ID. Повторяющиеся ID возвращаются один раз, ненайденные перечисляются в missingIds")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пользователи получены",
+                    content = @Content(schema = @Schema(implementation = UserLookupResultDto.class))),
+            @ApiResponse(responseCode = "400", description = "Пустой или слишком длинный список ID",
+                    content = @Content(schema = @Schema(implementation = com.userservice.exception.ValidationErrorResponse.class)))
+    })
+    public ResponseEntity<UserLookupResultDto> lookupUsers(
+            @Parameter(description = "Идентификаторы пользователей", required = true)
+            @Valid @RequestBody UserLookupDto lookupDto){
+        log.info("REST request to look up {} users by ID", lookupDto.getIds().size());
+        return ResponseEntity.ok(userService.getUsersByIds(lookupDto.getIds()));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Получить пользователей по списку ID", description = "То же, что POST /api/users/lookup, для коротких списков: ID передаются через запятую в параметре ids")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пользователи получены",
+                    content = @Content(schema = @Schema(implementation = UserLookupResultDto.class))),
+            @ApiResponse(responseCode = "400", description = "Пустой или слишком длинный список ID",
+                    content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class)))
+    })
+    public ResponseEntity<UserLookupResultDto> getUsersByIds(
+            @Parameter(description = "Идентификаторы пользователей через запятую", required = true, example = "3,1,2")
+            @RequestParam List<Long> ids){
+        log.info("REST request to get {} users by ID", ids.size());
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
+    }
+
     @GetMapping("/count")
-    @Operation(summary = "Получить количество пользователей", description = "Возвращает общее количество пользователей в системе")
+    @Operation(summary = "Получить количество пользователей", description = "Возвращает общее количество пользователей в системе. В режиме fast значение берется из счетчика, который обновляется вместе с созданием и удалением пользователей, в режиме exact пользователи пересчитываются по таблице")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Количество пользователей успешно получено",
-                    content = @Content(schema = @Schema(implementation = Long.class)))
+                    content = @Content(schema = @Schema(implementation = Long.class))),
+            @ApiResponse(responseCode = "400", description = "Неизвестный режим подсчета",
+                    content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class)))
     })
-    public ResponseEntity<Long> getUserCount(){
-        log.info("REST request to get user count");
-        long count = userService.getUserCount();
+    public ResponseEntity<Long> getUserCount(
+            @Parameter(description = "Режим подсчета: fast или exact", example = "fast")
+            @RequestParam(defaultValue = "fast") String mode){
+        log.info("REST request to get user count, mode: {}", mode);
+        long count = switch (mode) {
+            case "fast" -> userService.getUserCount();
+            case "exact" -> userService.getExactUserCount();
+            default -> throw new ValidationException("Неизвестный режим подсчета: " + mode);
+        };
         return ResponseEntity.ok(count);
     }
 
     @GetMapping("/by-email")
-    @Operation(summary = "Найти пользователя по email", description = "Возвращает пользователя с указанным email адресом")
+    @Operation(summary = "Найти пользователя по email", description = "Возвращает пользователя с указанным email адресом. Ответ содержит ETag и Last-Modified для условных запросов")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Пользователь найден",
                     content = @Content(schema = @Schema(implementation = UserDto.class))),
+            @ApiResponse(responseCode = "304", description = "Пользователь не изменился с версии, указанной в If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Пользователь не найден",
                     content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class)))
     })
     public ResponseEntity<EntityModel<UserDto>> getUserByEmail(
             @Parameter(description = "Email адрес пользователя", required = true, example = "user@example.com")
-            @RequestParam String email){
+            @RequestParam String email,
+            WebRequest request){
         log.info("REST request to get user by email: {}", email);
         UserDto user = userService.getUserByEmail(email);
+        if (isNotModified(user, request)) {
+            return null;
+        }
         EntityModel<UserDto> userModel = EntityModel.of(user);
-        userModel.add(linkTo(methodOn(UserController.class).getUserByEmail(email)).withSelfRel());
-        userModel.add(linkTo(methodOn(UserController.class).getUserById(user.getId())).withRel("user"));
-        userModel.add(linkTo(methodOn(UserController.class).updateUser(user.getId(), null)).withRel("update"));
-        userModel.add(linkTo(methodOn(UserController.class).deleteUser(user.getId())).withRel("delete"));
-        userModel.add(linkTo(methodOn(UserController.class).getAllUsers()).withRel("users"));
+        userModel.add(linkTo(methodOn(UserController.class).getUserByEmail(email, null)).withSelfRel());
+        userModel.add(userLinks.user(user.getId()));
+        userModel.add(userLinks.update(user.getId()));
+        userModel.add(userLinks.delete(user.getId()));
+        userModel.add(userLinks.users());
         return ResponseEntity.ok(userModel);
     }
     @GetMapping("/{id}")
-    @Operation(summary = "Получить пользователя по ID", description = "Возвращает пользователя с указанным идентификатором")
+    @Operation(summary = "Получить пользователя по ID", description = "Возвращает пользователя с указанным идентификатором. Ответ содержит ETag и Last-Modified для условных запросов")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Пользователь найден",
                     content = @Content(schema = @Schema(implementation = UserDto.class))),
+            @ApiResponse(responseCode = "304", description = "Пользователь не изменился с версии, указанной в If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Пользователь не найден",
                     content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class)))
     })
     public ResponseEntity<EntityModel<UserDto>> getUserById(
             @Parameter(description = "Идентификатор пользователя", required = true, example = "1")
-            @PathVariable Long id){
+            @PathVariable Long id,
+            WebRequest request){
         log.info("REST request to get user by ID: {}", id);
         UserDto user = userService.getUserById(id);
+        if (isNotModified(user, request)) {
+            return null;
+        }
         EntityModel<UserDto> userModel = EntityModel.of(user);
-        userModel.add(linkTo(methodOn(UserController.class).getUserById(id)).withSelfRel());
-        userModel.add(linkTo(methodOn(UserController.class).updateUser(id, null)).withRel("update"));
-        userModel.add(linkTo(methodOn(UserController.class).patchUser(id, null)).withRel("patch"));
-        userModel.add(linkTo(methodOn(UserController.class).deleteUser(id)).withRel("delete"));
-        userModel.add(linkTo(methodOn(UserController.class).getAllUsers()).withRel("users"));
+        userModel.add(userLinks.self(id));
+        userModel.add(userLinks.update(id));
+        userModel.add(userLinks.patch(id));
+        userModel.add(userLinks.delete(id));
+        userModel.add(userLinks.users());
         return ResponseEntity.ok(userModel);
     }
 
     @GetMapping
-    @Operation(summary = "Получить всех пользователей", description = "Возвращает список всех пользователей в системе")
+    @Operation(summary = "Получить страницу пользователей", description = "Возвращает пользователей постранично, упорядоченных по ID. Для перехода на следующую страницу передайте nextCursor из предыдущего ответа")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Страница пользователей успешно получена",
+                    content = @Content(schema = @Schema(implementation = UserDto.class))),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор или размер страницы",
+                    content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class)))
+    })
+    public ResponseEntity<CursorPagedModel<EntityModel<UserDto>>> getAllUsers(
+            @Parameter(description = "Курсор следующей страницы из предыдущего ответа", example = "aWQ6MjA")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы, не больше " + UserService.MAX_PAGE_SIZE, example = "20")
+            @RequestParam(required = false) Integer size){
+        log.info("REST request to get users page, cursor: {}, size: {}", cursor, size);
+        UserPageDto page = userService.getUsers(cursor, size);
+        List<EntityModel<UserDto>> userModels = page.getContent().stream()
+                .map(user -> {
+                    EntityModel<UserDto> userModel = EntityModel.of(user);
+                    userModel.add(userLinks.self(user.getId()));
+                    userModel.add(userLinks.update(user.getId()));
+                    userModel.add(userLinks.delete(user.getId()));
+                    return userModel;
+                })
+                .collect(Collectors.toList());
+
+        CursorPagedModel<EntityModel<UserDto>> pagedModel = new CursorPagedModel<>(userModels, page.getNextCursor());
+        pagedModel.add(linkTo(methodOn(UserController.class).getAllUsers(cursor, size)).withSelfRel());
+        if (page.hasNext()) {
+            pagedModel.add(linkTo(methodOn(UserController.class).getAllUsers(page.getNextCursor(), size)).withRel(IanaLinkRelations.NEXT));
+        }
+        pagedModel.add(userLinks.create());
+        pagedModel.add(userLinks.count());
+        return ResponseEntity.ok(pagedModel);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Найти пользователей по фильтрам", description = "Ищет пользователей по фрагменту имени (без учета регистра), диапазону возраста и периоду регистрации. Все фильтры необязательны и объединяются через И. Результат постраничный, упорядочен по ID, для следующей страницы передайте nextCursor из предыдущего ответа")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Список пользователей успешно получен",
-                    content = @Content(schema = @Schema(implementation = UserDto.class)))
+            @ApiResponse(responseCode = "200", description = "Страница найденных пользователей",
+                    content = @Content(schema = @Schema(implementation = UserDto.class))),
+            @ApiResponse(responseCode = "400", description = "Некорректные фильтры, курсор или размер страницы",
+                    content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class)))
     })
-    public ResponseEntity<CollectionModel<EntityModel<UserDto>>> getAllUsers(){
-        log.info("REST request to get all users");
-        List<UserDto> users = userService.getAllUsers();
-        List<EntityModel<UserDto>> userModels = users.stream()
+    public ResponseEntity<CursorPagedModel<EntityModel<UserDto>>> searchUsers(
+            @Parameter(description = "Фрагмент имени, лучше от трех символов", example = "ива")
+            @RequestParam(required = false) String name,
+            @Parameter(description = "Минимальный возраст включительно", example = "18")
+            @RequestParam(required = false) Integer minAge,
+            @Parameter(description = "Максимальный возраст включительно", example = "30")
+            @RequestParam(required = false) Integer maxAge,
+            @Parameter(description = "Начало периода регистрации включительно", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @Parameter(description = "Конец периода регистрации, не включая", example = "2024-02-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @Parameter(description = "Курсор следующей страницы из предыдущего ответа", example = "aWQ6MjA")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы, не больше " + UserService.MAX_PAGE_SIZE, example = "20")
+            @RequestParam(required = false) Integer size){
+        UserSearchCriteria criteria = new UserSearchCriteria(name, minAge, maxAge, createdFrom, createdTo);
+        log.info("REST request to search users by {}, cursor: {}, size: {}", criteria, cursor, size);
+        UserPageDto page = userService.searchUsers(criteria, cursor, size);
+        List<EntityModel<UserDto>> userModels = page.getContent().stream()
                 .map(user -> {
                     EntityModel<UserDto> userModel = EntityModel.of(user);
-                    userModel.add(linkTo(methodOn(UserController.class).getUserById(user.getId())).withSelfRel());
-                    userModel.add(linkTo(methodOn(UserController.class).updateUser(user.getId(), null)).withRel("update"));
-                    userModel.add(linkTo(methodOn(UserController.class).deleteUser(user.getId())).withRel("delete"));
+                    userModel.add(userLinks.self(user.getId()));
+                    userModel.add(userLinks.update(user.getId()));
+                    userModel.add(userLinks.delete(user.getId()));
                     return userModel;
                 })
                 .collect(Collectors.toList());
-        
-        CollectionModel<EntityModel<UserDto>> collectionModel = CollectionModel.of(userModels);
-        collectionModel.add(linkTo(methodOn(UserController.class).getAllUsers()).withSelfRel());
-        collectionModel.add(linkTo(methodOn(UserController.class).createUser(null)).withRel("create"));
-        collectionModel.add(linkTo(methodOn(UserController.class).getUserCount()).withRel("count"));
-        return ResponseEntity.ok(collectionModel);
+
+        CursorPagedModel<EntityModel<UserDto>> pagedModel = new CursorPagedModel<>(userModels, page.getNextCursor());
+        pagedModel.add(linkTo(methodOn(UserController.class)
+                .searchUsers(name, minAge, maxAge, createdFrom, createdTo, cursor, size)).withSelfRel());
+        if (page.hasNext()) {
+            pagedModel.add(linkTo(methodOn(UserController.class)
+                    .searchUsers(name, minAge, maxAge, createdFrom, createdTo, page.getNextCursor(), size))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+        pagedModel.add(userLinks.users());
+        return ResponseEntity.ok(pagedModel);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+    @Operation(summary = "Выгрузить всех пользователей", description = "Потоково выгружает всех пользователей в формате NDJSON (один JSON-объект на строку), упорядоченных по ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Выгрузка успешно сформирована",
+                    content = @Content(mediaType = NDJSON_MEDIA_TYPE, schema = @Schema(implementation = UserDto.class)))
+    })
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        log.info("REST request to export all users");
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        // A stream of the whole table, caches on the way must pass it through rather than hold it
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        try (SequenceWriter writer = ndjsonWriter.writeValues(response.getOutputStream())) {
+            userService.exportUsers(user -> {
+                try {
+                    writer.write(user);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        }
     }
 
     @PutMapping("/{id}")
@@ -154,22 +328,26 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "Пользователь не найден",
                     content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class))),
             @ApiResponse(responseCode = "409", description = "Email уже используется другим пользователем",
+                    content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class))),
+            @ApiResponse(responseCode = "412", description = "Версия из If-Match устарела",
                     content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class)))
     })
     public ResponseEntity<EntityModel<UserDto>> updateUser(
             @Parameter(description = "Идентификатор пользователя", required = true, example = "1")
             @PathVariable Long id,
             @Parameter(description = "Данные для обновления пользователя", required = true)
-            @Valid @RequestBody UserUpdateDto updateDto){
+            @Valid @RequestBody UserUpdateDto updateDto,
+            @Parameter(description = "ETag текущей версии пользователя для защиты от потерянных обновлений", example = "\"1-0\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
         log.info("REST request to update user with ID: {}", id);
-        UserDto updatedUser = userService.updateUser(id, updateDto);
+        UserDto updatedUser = userService.updateUser(id, updateDto, UserEtag.expectedVersion(ifMatch, id));
         EntityModel<UserDto> userModel = EntityModel.of(updatedUser);
-        userModel.add(linkTo(methodOn(UserController.class).getUserById(id)).withSelfRel());
-        userModel.add(linkTo(methodOn(UserController.class).updateUser(id, null)).withRel("update"));
-        userModel.add(linkTo(methodOn(UserController.class).patchUser(id, null)).withRel("patch"));
-        userModel.add(linkTo(methodOn(UserController.class).deleteUser(id)).withRel("delete"));
-        userModel.add(linkTo(methodOn(UserController.class).getAllUsers()).withRel("users"));
-        return ResponseEntity.ok(userModel);
+        userModel.add(userLinks.self(id));
+        userModel.add(userLinks.update(id));
+        userModel.add(userLinks.patch(id));
+        userModel.add(userLinks.delete(id));
+        userModel.add(userLinks.users());
+        return withValidators(updatedUser, userModel);
     }
 
     @PatchMapping("/{id}")
@@ -182,22 +360,26 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "Пользователь не найден",
                     content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class))),
             @ApiResponse(responseCode = "409", description = "Email уже используется другим пользователем",
+                    content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class))),
+            @ApiResponse(responseCode = "412", description = "Версия из If-Match устарела",
                     content = @Content(schema = @Schema(implementation = com.userservice.exception.ErrorResponse.class)))
     })
     public ResponseEntity<EntityModel<UserDto>> patchUser(
             @Parameter(description = "Идентификатор пользователя", required = true, example = "1")
             @PathVariable Long id,
             @Parameter(description = "Данные для частичного обновления пользователя", required = true)
-            @RequestBody UserUpdateDto updateDto){
+            @RequestBody UserUpdateDto updateDto,
+            @Parameter(description = "ETag текущей версии пользователя для защиты от потерянных обновлений", example = "\"1-0\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
         log.info("REST request to patch user with ID: {}", id);
-        UserDto updatedUser = userService.updateUser(id, updateDto);
+        UserDto updatedUser = userService.updateUser(id, updateDto, UserEtag.expectedVersion(ifMatch, id));
         EntityModel<UserDto> userModel = EntityModel.of(updatedUser);
-        userModel.add(linkTo(methodOn(UserController.class).getUserById(id)).withSelfRel());
-        userModel.add(linkTo(methodOn(UserController.class).updateUser(id, null)).withRel("update"));
-        userModel.add(linkTo(methodOn(UserController.class).patchUser(id, null)).withRel("patch"));
-        userModel.add(linkTo(methodOn(UserController.class).deleteUser(id)).withRel("delete"));
-        userModel.add(linkTo(methodOn(UserController.class).getAllUsers()).withRel("users"));
-        return ResponseEntity.ok(userModel);
+        userModel.add(userLinks.self(id));
+        userModel.add(userLinks.update(id));
+        userModel.add(userLinks.patch(id));
+        userModel.add(userLinks.delete(id));
+        userModel.add(userLinks.users());
+        return withValidators(updatedUser, userModel);
     }
 
     @DeleteMapping("/{id}")
@@ -215,4 +397,22 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 
+    private static boolean isNotModified(UserDto user, WebRequest request) {
+        String etag = UserEtag.of(user);
+        return etag != null && request.checkNotModified(etag, UserEtag.lastModified(user));
+    }
+
+    private static ResponseEntity<EntityModel<UserDto>> withValidators(UserDto user, EntityModel<UserDto> userModel) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String etag = UserEtag.of(user);
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        long lastModified = UserEtag.lastModified(user);
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        return response.body(userModel);
+    }
+
 }
\ No newline at end of file
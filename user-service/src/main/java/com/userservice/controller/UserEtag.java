@@ -0,0 +1,51 @@
+package com.userservice.controller;
+
+import com.userservice.dto.UserDto;
+import com.userservice.exception.PreconditionFailedException;
+
+import java.time.ZoneId;
+
+/**
+ * Strong entity tags for a single user, {@code "<id>-<version>"}. The id is part of the tag so
+ * that {@code /by-email} cannot confuse two users that held the same email at the same version.
+ * user-service-reactive tags the users it serves with the same values.
+ */
+public final class UserEtag {
+
+    private UserEtag() {
+    }
+
+    public static String of(UserDto user) {
+        if (user.getId() == null || user.getVersion() == null) {
+            return null;
+        }
+        return "\"" + user.getId() + "-" + user.getVersion() + "\"";
+    }
+
+    public static long lastModified(UserDto user) {
+        if (user.getUpdatedAt() == null) {
+            return -1;
+        }
+        return user.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Version a conditional update expects, or {@code null} when the request is unconditional.
+     * Anything other than {@code *} or a single strong tag of this user fails the precondition.
+     */
+    static Long expectedVersion(String ifMatch, Long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        String prefix = "\"" + id + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            throw new PreconditionFailedException(id);
+        }
+        try {
+            return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException(id);
+        }
+    }
+}
\ No newline at end of file
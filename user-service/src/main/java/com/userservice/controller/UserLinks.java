@@ -0,0 +1,107 @@
+package com.userservice.controller;
+
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Builds the links of {@link UserController} without an invocation proxy per link. Every route is
+ * resolved through {@code methodOn} once, at startup, and only the base URI of the current request
+ * and the user id are substituted afterwards, which yields the same hrefs as {@code linkTo}.
+ */
+@Component
+public class UserLinks {
+
+    private static final long ID_PLACEHOLDER = Long.MIN_VALUE;
+    private static final String BASE_URI_ATTRIBUTE = UserLinks.class.getName() + ".BASE_URI";
+
+    private final IdTemplate user;
+    private final IdTemplate update;
+    private final IdTemplate patch;
+    private final IdTemplate delete;
+    private final String users;
+    private final String create;
+    private final String count;
+
+    public UserLinks() {
+        UserController controller = methodOn(UserController.class);
+        this.user = IdTemplate.of(linkTo(controller.getUserById(ID_PLACEHOLDER, null)).withSelfRel().getHref());
+        this.update = IdTemplate.of(linkTo(controller.updateUser(ID_PLACEHOLDER, null, null)).withSelfRel().getHref());
+        this.patch = IdTemplate.of(linkTo(controller.patchUser(ID_PLACEHOLDER, null, null)).withSelfRel().getHref());
+        this.delete = IdTemplate.of(linkTo(controller.deleteUser(ID_PLACEHOLDER)).withSelfRel().getHref());
+        this.users = linkTo(controller.getAllUsers(null, null)).withSelfRel().getHref();
+        this.create = linkTo(controller.createUser(null)).withSelfRel().getHref();
+        this.count = linkTo(controller.getUserCount(null)).withSelfRel().expand().getHref();
+    }
+
+    public Link self(Long id) {
+        return Link.of(baseUri() + user.expand(id), IanaLinkRelations.SELF);
+    }
+
+    public Link user(Long id) {
+        return Link.of(baseUri() + user.expand(id), "user");
+    }
+
+    public Link update(Long id) {
+        return Link.of(baseUri() + update.expand(id), "update");
+    }
+
+    public Link patch(Long id) {
+        return Link.of(baseUri() + patch.expand(id), "patch");
+    }
+
+    public Link delete(Long id) {
+        return Link.of(baseUri() + delete.expand(id), "delete");
+    }
+
+    public Link users() {
+        return Link.of(baseUri() + users, "users");
+    }
+
+    public Link create() {
+        return Link.of(baseUri() + create, "create");
+    }
+
+    public Link count() {
+        return Link.of(baseUri() + count, "count");
+    }
+
+    /**
+     * Same base {@code linkTo} uses: the current servlet mapping, or nothing outside of a request,
+     * which leaves the links relative. Resolved once per request.
+     */
+    private String baseUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return "";
+        }
+        String baseUri = (String) attributes.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = ServletUriComponentsBuilder.fromCurrentServletMapping().build().toUriString();
+            attributes.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUri;
+    }
+
+    private record IdTemplate(String prefix, String suffix) {
+
+        static IdTemplate of(String href) {
+            String placeholder = Long.toString(ID_PLACEHOLDER);
+            int index = href.indexOf(placeholder);
+            if (index < 0) {
+                throw new IllegalStateException("Route does not contain the id placeholder: " + href);
+            }
+            return new IdTemplate(href.substring(0, index), href.substring(index + placeholder.length()));
+        }
+
+        String expand(Long id) {
+            return prefix + id + suffix;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.userservice.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Reads whose result outlives the request, i.e. the loads that fill the shared user caches. They
+ * go to the primary even in read-only transactions: a replica that has not replayed a write yet
+ * would put the old row into the cache after the write evicted it, for every client until the
+ * entry expires, not only for the one the read-your-writes cookie protects. Unlike a write they
+ * do not pin the rest of the request to the primary.
+ * <p>
+ * Only the connections taken inside {@link #call} are affected, which behind the lazy connection
+ * proxy are those of the first statement run there. Without replicas this does nothing.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T call(Supplier<T> reads) {
+        if (ACTIVE.get() != null) {
+            return reads.get();
+        }
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+}
\ No newline at end of file
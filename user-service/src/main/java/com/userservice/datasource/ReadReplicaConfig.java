@@ -0,0 +1,101 @@
+package com.userservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured pool with a primary pool plus one pool per replica when
+ * {@code users.datasource.replica-urls} is set. Replicas use the primary's credentials and driver.
+ * Without the property the service keeps the plain Spring Boot data source.
+ */
+@Configuration
+@ConditionalOnProperty(name = "users.datasource.replica-urls")
+public class ReadReplicaConfig {
+
+    @Value("${users.datasource.replica-urls}")
+    private List<String> replicaUrls;
+
+    @Value("${users.datasource.replica-connection-timeout-ms:1000}")
+    private long replicaConnectionTimeoutMs;
+
+    @Value("${users.datasource.replica-validation-timeout-seconds:1}")
+    private int replicaValidationTimeoutSeconds;
+
+    @Value("${users.datasource.read-your-writes-window-ms:2000}")
+    private long readYourWritesWindowMs;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                                     DataSourceProperties properties,
+                                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        List<DataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(replicaUrls.get(i).trim())
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            // A replica that is down must fail fast so the read can still go to the primary.
+            replica.setConnectionTimeout(replicaConnectionTimeoutMs);
+            replica.setInitializationFailTimeout(-1);
+            // Only bean pools get Hikari metrics from Spring Boot, the replica pools are wired here.
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.add(replica);
+        }
+        return new ReadReplicaRoutingDataSource(primaryDataSource, replicas, replicaValidationTimeoutSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readReplicaRoutingDataSource);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter(readYourWritesWindowMs));
+    }
+
+    @Bean
+    public ReplicaHealthCheck replicaHealthCheck(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+        return new ReplicaHealthCheck(readReplicaRoutingDataSource);
+    }
+
+    static class ReplicaHealthCheck {
+
+        private final ReadReplicaRoutingDataSource routingDataSource;
+
+        ReplicaHealthCheck(ReadReplicaRoutingDataSource routingDataSource) {
+            this.routingDataSource = routingDataSource;
+        }
+
+        @Scheduled(fixedDelayString = "${users.datasource.replica-health-check-interval-ms:5000}")
+        public void check() {
+            routingDataSource.checkReplicas();
+        }
+    }
+}
\ No newline at end of file
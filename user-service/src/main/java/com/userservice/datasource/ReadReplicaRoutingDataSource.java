@@ -0,0 +1,133 @@
+package com.userservice.datasource;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Hands out replica connections to read-only transactions, round-robin over the replicas that
+ * passed their last health check, and primary connections to everything else. A replica that
+ * refuses a connection is taken out of rotation until {@link #checkReplicas()} sees it answer
+ * again; with no healthy replica left, reads go to the primary. Reads that fill the shared caches
+ * go to the primary as well, see {@link PrimaryReads}.
+ * <p>
+ * The read-only flag is only known once the transaction has started, so this data source has
+ * to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger log = LogManager.getLogger(ReadReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, int validationTimeoutSeconds) {
+        this.primary = primary;
+        this.replicas = IntStream.range(0, replicas.size())
+                .mapToObj(index -> new Replica(replicas.get(index), index))
+                .toList();
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (!ReadYourWritesFilter.isPinnedToPrimary() && !PrimaryReads.isActive()) {
+                Connection connection = replicaConnection();
+                if (connection != null) {
+                    return connection;
+                }
+            }
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            ReadYourWritesFilter.recordWrite();
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Routing data source does not support per-call credentials");
+    }
+
+    private Connection replicaConnection() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Probes every replica, returning recovered ones to rotation and taking failed ones out.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (connection.isValid(validationTimeoutSeconds)) {
+                    if (!replica.healthy) {
+                        replica.healthy = true;
+                        log.info("Replica {} is back in rotation", replica.index);
+                    }
+                } else {
+                    markDown(replica, null);
+                }
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+    }
+
+    /**
+     * Closes the replica pools, which are not beans of their own. Called by the container on shutdown.
+     */
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    int healthyReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    private void markDown(Replica replica, SQLException cause) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Replica {} taken out of rotation: {}", replica.index,
+                    cause != null ? cause.getMessage() : "connection is not valid");
+        }
+    }
+
+    private static final class Replica {
+
+        private final DataSource dataSource;
+        private final int index;
+        private volatile boolean healthy = true;
+
+        private Replica(DataSource dataSource, int index) {
+            this.dataSource = dataSource;
+            this.index = index;
+        }
+    }
+}
\ No newline at end of file
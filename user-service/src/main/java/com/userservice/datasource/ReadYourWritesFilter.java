@@ -0,0 +1,102 @@
+package com.userservice.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Read-your-writes for clients of the replicated setup. A request that opens a write
+ * transaction gets a cookie holding the end of the sticky window; until then, requests that
+ * send the cookie back read from the primary, so a client does not read a replica that has not
+ * replayed its own write yet. The rest of the writing request is pinned to the primary as well.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "primary-reads-until";
+
+    private static final ThreadLocal<RequestState> CURRENT = new ThreadLocal<>();
+
+    private final long windowMs;
+
+    public ReadYourWritesFilter(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        long pinnedUntil = pinnedUntil(request);
+        // The cookie comes from the client, so a value past the window is ignored rather than trusted.
+        boolean pinned = pinnedUntil > now && pinnedUntil <= now + windowMs;
+        CURRENT.set(new RequestState(this, response, pinned));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    static boolean isPinnedToPrimary() {
+        RequestState state = CURRENT.get();
+        return state != null && state.pinned;
+    }
+
+    /**
+     * Called when the current thread starts a write transaction. Outside of a request, e.g. on
+     * the outbox relay thread, there is nobody to stick to the primary and this does nothing.
+     */
+    static void recordWrite() {
+        RequestState state = CURRENT.get();
+        if (state == null || state.pinned) {
+            return;
+        }
+        state.pinned = true;
+        if (!state.response.isCommitted()) {
+            state.response.addCookie(state.filter.cookie());
+        }
+    }
+
+    private Cookie cookie() {
+        Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(System.currentTimeMillis() + windowMs));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, (windowMs + 999) / 1000));
+        return cookie;
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static final class RequestState {
+
+        private final ReadYourWritesFilter filter;
+        private final HttpServletResponse response;
+        private boolean pinned;
+
+        private RequestState(ReadYourWritesFilter filter, HttpServletResponse response, boolean pinned) {
+            this.filter = filter;
+            this.response = response;
+            this.pinned = pinned;
+        }
+    }
+}
\ No newline at end of file
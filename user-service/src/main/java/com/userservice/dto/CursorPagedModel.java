@@ -0,0 +1,39 @@
+package com.userservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.hateoas.CollectionModel;
+
+import java.util.Objects;
+
+public class CursorPagedModel<T> extends CollectionModel<T> {
+
+    @Schema(description = "Курсор следующей страницы, отсутствует на последней странице", example = "aWQ6MjA", accessMode = Schema.AccessMode.READ_ONLY)
+    private final String nextCursor;
+
+    public CursorPagedModel(Iterable<T> content, String nextCursor) {
+        super(content);
+        this.nextCursor = nextCursor;
+    }
+
+    @JsonProperty("nextCursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+        CursorPagedModel<?> that = (CursorPagedModel<?>) o;
+        return Objects.equals(nextCursor, that.nextCursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), nextCursor);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.userservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Запрос на пакетное создание пользователей")
+public class UserBatchCreateDto {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    @Schema(description = "Пользователи для создания", required = true)
+    @NotEmpty(message = "Список пользователей не должен быть пустым")
+    @Size(max = MAX_BATCH_SIZE, message = "За один запрос можно создать не больше " + MAX_BATCH_SIZE + " пользователей")
+    private List<@Valid UserCreateDto> users;
+
+    public UserBatchCreateDto() {
+    }
+
+    public UserBatchCreateDto(List<UserCreateDto> users) {
+        this.users = users;
+    }
+
+    public List<UserCreateDto> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserCreateDto> users) {
+        this.users = users;
+    }
+}
\ No newline at end of file
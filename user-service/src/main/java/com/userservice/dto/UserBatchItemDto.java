@@ -0,0 +1,84 @@
+package com.userservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Результат создания одного пользователя из пакета")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserBatchItemDto {
+
+    public enum Status {
+        CREATED,
+        CONFLICT
+    }
+
+    @Schema(description = "Позиция пользователя в запросе", example = "0")
+    private int index;
+    @Schema(description = "Email пользователя", example = "newuser@example.com")
+    private String email;
+    @Schema(description = "Результат обработки", example = "CREATED")
+    private Status status;
+    @Schema(description = "Созданный пользователь, только для CREATED")
+    private UserDto user;
+    @Schema(description = "Причина отказа, только для CONFLICT", example = "Пользователь с email newuser@example.com уже существует")
+    private String message;
+
+    public UserBatchItemDto() {
+    }
+
+    private UserBatchItemDto(int index, String email, Status status, UserDto user, String message) {
+        this.index = index;
+        this.email = email;
+        this.status = status;
+        this.user = user;
+        this.message = message;
+    }
+
+    public static UserBatchItemDto created(int index, UserDto user) {
+        return new UserBatchItemDto(index, user.getEmail(), Status.CREATED, user, null);
+    }
+
+    public static UserBatchItemDto conflict(int index, String email, String message) {
+        return new UserBatchItemDto(index, email, Status.CONFLICT, null, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public UserDto getUser() {
+        return user;
+    }
+
+    public void setUser(UserDto user) {
+        this.user = user;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.userservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Итог пакетного создания пользователей")
+public class UserBatchResultDto {
+
+    @Schema(description = "Количество созданных пользователей", example = "998")
+    private int created;
+    @Schema(description = "Количество отклоненных из-за конфликта email", example = "2")
+    private int conflicts;
+    @Schema(description = "Результаты в порядке запроса")
+    private List<UserBatchItemDto> items;
+
+    public UserBatchResultDto() {
+    }
+
+    public UserBatchResultDto(List<UserBatchItemDto> items) {
+        this.items = items;
+        this.created = (int) items.stream()
+                .filter(item -> item.getStatus() == UserBatchItemDto.Status.CREATED)
+                .count();
+        this.conflicts = items.size() - created;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(int conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    public List<UserBatchItemDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<UserBatchItemDto> items) {
+        this.items = items;
+    }
+}
\ No newline at end of file
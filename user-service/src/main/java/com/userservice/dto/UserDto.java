@@ -1,6 +1,7 @@
 package com.userservice.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.time.LocalDateTime;
@@ -19,6 +20,10 @@ public class UserDto {
     @Schema(description = "Дата создания пользователя", example = "20.11.2025 18.13.24", accessMode = Schema.AccessMode.READ_ONLY)
     @JsonFormat(pattern = "yyyy.MM.dd HH.mm.ss")
     private LocalDateTime createdAt;
+    @JsonIgnore
+    private LocalDateTime updatedAt;
+    @JsonIgnore
+    private Long version;
 
     public UserDto() {
     }
@@ -31,6 +36,21 @@ public class UserDto {
         this.createdAt = LocalDateTime.now();
     }
 
+    public UserDto(Long id, String name, String email, Integer age, LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.age = age;
+        this.createdAt = createdAt;
+    }
+
+    public UserDto(Long id, String name, String email, Integer age, LocalDateTime createdAt,
+                   LocalDateTime updatedAt, Long version) {
+        this(id, name, email, age, createdAt);
+        this.updatedAt = updatedAt;
+        this.version = version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -71,6 +91,22 @@ public class UserDto {
         this.createdAt = createdAt;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,34 @@
+package com.userservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Запрос на получение пользователей по списку ID")
+public class UserLookupDto {
+
+    public static final int MAX_LOOKUP_SIZE = 1000;
+
+    @Schema(description = "Идентификаторы пользователей", example = "[3, 1, 2]", required = true)
+    @NotEmpty(message = "Список ID не должен быть пустым")
+    @Size(max = MAX_LOOKUP_SIZE, message = "За один запрос можно получить не больше " + MAX_LOOKUP_SIZE + " пользователей")
+    private List<@NotNull(message = "ID не должен быть пустым") Long> ids;
+
+    public UserLookupDto() {
+    }
+
+    public UserLookupDto(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.userservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Пользователи, найденные по списку ID")
+public class UserLookupResultDto {
+
+    @Schema(description = "Найденные пользователи в порядке запроса, без повторов")
+    private List<UserDto> users;
+    @Schema(description = "ID, для которых пользователь не найден, в порядке запроса", example = "[42]")
+    private List<Long> missingIds;
+
+    public UserLookupResultDto() {
+    }
+
+    public UserLookupResultDto(List<UserDto> users, List<Long> missingIds) {
+        this.users = users;
+        this.missingIds = missingIds;
+    }
+
+    public List<UserDto> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserDto> users) {
+        this.users = users;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<Long> missingIds) {
+        this.missingIds = missingIds;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.userservice.dto;
+
+import java.util.List;
+
+public class UserPageDto {
+
+    private final List<UserDto> content;
+    private final String nextCursor;
+
+    public UserPageDto(List<UserDto> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<UserDto> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPageDto{" +
+                "size=" + content.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.userservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters of the user search, each optional. Null filters are left out of the generated SQL
+ * instead of being written as {@code (? IS NULL OR ...)}, so every combination gets a plan
+ * that can use the index of the filters that are actually set.
+ *
+ * @param name        case-insensitive fragment of the name
+ * @param minAge      inclusive lower age bound
+ * @param maxAge      inclusive upper age bound
+ * @param createdFrom inclusive start of the signup window
+ * @param createdTo   exclusive end of the signup window
+ */
+public record UserSearchCriteria(String name, Integer minAge, Integer maxAge,
+                                 LocalDateTime createdFrom, LocalDateTime createdTo) {
+}
\ No newline at end of file
@@ -1,14 +1,22 @@
 package com.userservice.entity;
 
+import com.userservice.sharding.AssignedOrSequenceIdGenerator;
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
 @Table(name = "users")
 public class User {
+    // Sharded, assigned from UserIdGenerator before the insert and carrying the shard that holds the row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "users_seq")
+    @GenericGenerator(name = "users_seq", type = AssignedOrSequenceIdGenerator.class, parameters = {
+            @Parameter(name = "sequence_name", value = "users_seq"),
+            @Parameter(name = "increment_size", value = "50")
+    })
     @Column(name = "id")
     private Long id;
     @Column(name = "name", nullable = false)
@@ -19,6 +27,11 @@ public class User {
     private Integer age;
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    @Version
+    @Column(name = "version")
+    private Long version;
 
     public User() {
     }
@@ -40,6 +53,12 @@ public class User {
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
     }
 
     public Long getId() {
@@ -82,6 +101,22 @@ public class User {
         this.createdAt = createdAt;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -97,6 +132,6 @@ public class User {
 
     @Override
     public String toString() {
-        return "User{id=" + id + ", name='" + name + '\'' + ", email='" + email + '\'' + ", age=" + age + ", createdAt=" + createdAt + '}';
+        return "User{id=" + id + ", name='" + name + '\'' + ", email='" + email + '\'' + ", age=" + age + ", createdAt=" + createdAt + ", version=" + version + '}';
     }
 }
\ No newline at end of file
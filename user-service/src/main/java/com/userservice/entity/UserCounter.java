@@ -0,0 +1,37 @@
+package com.userservice.entity;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "user_counter")
+public class UserCounter {
+    @Id
+    @Column(name = "slot")
+    private Integer slot;
+    @Column(name = "total", nullable = false)
+    private Long total;
+
+    public UserCounter() {
+    }
+
+    public UserCounter(Integer slot, Long total) {
+        this.slot = slot;
+        this.total = total;
+    }
+
+    public Integer getSlot() {
+        return slot;
+    }
+
+    public void setSlot(Integer slot) {
+        this.slot = slot;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.userservice.entity;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "user_email_index")
+public class UserEmailIndexEntry {
+    @Id
+    @Column(name = "email")
+    private String email;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    public UserEmailIndexEntry() {
+    }
+
+    public UserEmailIndexEntry(String email, Long userId) {
+        this.email = email;
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "UserEmailIndexEntry{email='" + email + '\'' + ", userId=" + userId + '}';
+    }
+}
\ No newline at end of file
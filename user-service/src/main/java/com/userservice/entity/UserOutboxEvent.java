@@ -0,0 +1,120 @@
+package com.userservice.entity;
+
+import com.userservice.kafka.UserEvent;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "user_outbox")
+public class UserOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_outbox_seq")
+    @SequenceGenerator(name = "user_outbox_seq", sequenceName = "user_outbox_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Column(name = "email")
+    private String email;
+    @Column(name = "previous_email")
+    private String previousEmail;
+    @Column(name = "name")
+    private String name;
+    @Column(name = "age")
+    private Integer age;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public UserOutboxEvent() {
+    }
+
+    public static UserOutboxEvent from(UserEvent event) {
+        UserOutboxEvent outboxEvent = new UserOutboxEvent();
+        outboxEvent.setEventType(event.getEventType());
+        outboxEvent.setUserId(event.getUserId());
+        outboxEvent.setEmail(event.getEmail());
+        outboxEvent.setPreviousEmail(event.getPreviousEmail());
+        outboxEvent.setName(event.getName());
+        outboxEvent.setAge(event.getAge());
+        outboxEvent.setCreatedAt(event.getTimestamp() != null ? event.getTimestamp() : LocalDateTime.now());
+        return outboxEvent;
+    }
+
+    public UserEvent toUserEvent() {
+        UserEvent event = new UserEvent(eventType, userId, email, name, age);
+        event.setPreviousEmail(previousEmail);
+        event.setTimestamp(createdAt);
+        return event;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPreviousEmail() {
+        return previousEmail;
+    }
+
+    public void setPreviousEmail(String previousEmail) {
+        this.previousEmail = previousEmail;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "UserOutboxEvent{id=" + id + ", eventType='" + eventType + '\'' + ", userId=" + userId + ", createdAt=" + createdAt + '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.userservice.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(Long id) {
+        super("Пользователь с ID " + id + " был изменен, получите актуальную версию и повторите запрос");
+    }
+}
\ No newline at end of file
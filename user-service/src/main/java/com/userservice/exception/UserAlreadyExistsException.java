@@ -5,6 +5,10 @@ public class UserAlreadyExistsException extends RuntimeException {
 
 
     public UserAlreadyExistsException(String email) {
-        super("Пользователь с email " + email + " уже существует");
+        super(messageFor(email));
+    }
+
+    public static String messageFor(String email) {
+        return "Пользователь с email " + email + " уже существует";
     }
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ public class UserEvent {
     private Long userId;
     private Integer age;
     private LocalDateTime timestamp;
+    private String previousEmail;
 
     public UserEvent(){}
 
@@ -69,6 +70,14 @@ public class UserEvent {
         this.timestamp = timestamp;
     }
 
+    public String getPreviousEmail() {
+        return previousEmail;
+    }
+
+    public void setPreviousEmail(String previousEmail) {
+        this.previousEmail = previousEmail;
+    }
+
     @Override
     public String toString() {
         return "UserEvent{" +
@@ -78,6 +87,7 @@ public class UserEvent {
                 ", name='" + name + '\'' +
                 ", age=" + age +
                 ", timestamp=" + timestamp +
+                ", previousEmail='" + previousEmail + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.userservice.kafka;
+
+import com.userservice.cache.UserCacheInvalidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the local user cache coherent with writes made by other user-service instances.
+ * Every instance joins with its own consumer group, kafka.cache.group-id, so each one sees every
+ * event.
+ */
+@Component
+public class UserEventCacheListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventCacheListener.class);
+
+    private final UserCacheInvalidator cacheInvalidator;
+
+    public UserEventCacheListener(UserCacheInvalidator cacheInvalidator) {
+        this.cacheInvalidator = cacheInvalidator;
+    }
+
+    @KafkaListener(topics = "${kafka.topic.user-events}", groupId = "${kafka.cache.group-id}")
+    public void onUserEvent(UserEvent event) {
+        if ("USER_UPDATED".equals(event.getEventType()) || "USER_DELETED".equals(event.getEventType())) {
+            logger.debug("Сброс кэша по событию {} для пользователя {}", event.getEventType(), event.getUserId());
+            cacheInvalidator.evict(event.getUserId(), event.getEmail(), event.getPreviousEmail());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.userservice.kafka;
+
+import com.userservice.entity.UserOutboxEvent;
+import com.userservice.repository.UserOutboxRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Records user events in the outbox table as part of the caller's transaction. They reach
+ * Kafka through {@link UserOutboxRelay} only once that transaction has committed.
+ */
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class UserEventOutbox {
+
+    private final UserOutboxRepository outboxRepository;
+
+    public UserEventOutbox(UserOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    public void enqueue(UserEvent event) {
+        outboxRepository.save(UserOutboxEvent.from(event));
+    }
+
+    public void enqueueAll(List<UserEvent> events) {
+        outboxRepository.saveAll(events.stream().map(UserOutboxEvent::from).toList());
+    }
+}
\ No newline at end of file
@@ -1,12 +1,18 @@
 package com.userservice.kafka;
 
+import com.userservice.config.MetricsConfig;
 import com.userservice.kafka.UserEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class UserEventProducer {
 
@@ -16,18 +22,30 @@ public class UserEventProducer {
     private String topicName;
 
     private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    // Both outcomes are registered up front so that recording an ack is a plain Timer call.
+    private final Timer acknowledged;
+    private final Timer failed;
 
-    public UserEventProducer(KafkaTemplate<String, UserEvent> kafkaTemplate) {
+    public UserEventProducer(KafkaTemplate<String, UserEvent> kafkaTemplate, MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.acknowledged = sendTimer(meterRegistry, "success");
+        this.failed = sendTimer(meterRegistry, "failure");
     }
 
-    public void sendUserCreatedEvent(UserEvent event) {
-        logger.info("Отправка события USER_CREATED для пользователя: {}", event.getEmail());
-        kafkaTemplate.send(topicName, event.getUserId().toString(), event);
+    public CompletableFuture<SendResult<String, UserEvent>> publish(UserEvent event) {
+        logger.debug("Отправка события {} для пользователя {}", event.getEventType(), event.getUserId());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<SendResult<String, UserEvent>> future = kafkaTemplate.send(topicName, event.getUserId().toString(), event);
+        future.whenComplete((result, ex) -> sample.stop(ex == null ? acknowledged : failed));
+        return future;
     }
 
-    public void sendUserDeletedEvent(UserEvent event) {
-        logger.info("Отправка события USER_DELETED для пользователя: {}", event.getEmail());
-        kafkaTemplate.send(topicName, event.getUserId().toString(), event);
+    private static Timer sendTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder(MetricsConfig.USER_EVENT_SEND_TIMER)
+                .description("Время от отправки события в Kafka до подтверждения брокером")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 }
\ No newline at end of file
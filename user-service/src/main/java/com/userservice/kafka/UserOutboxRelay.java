@@ -0,0 +1,98 @@
+package com.userservice.kafka;
+
+import com.userservice.entity.UserOutboxEvent;
+import com.userservice.repository.UserOutboxRepository;
+import com.userservice.sharding.UserShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the user outbox into Kafka. Each batch is locked, sent without waiting per record,
+ * and deleted only after every send has been acknowledged, all in one transaction. A failed
+ * batch rolls back and is retried on the next poll, so delivery is at-least-once.
+ * Sharded, every shard keeps the outbox of its own users and is drained in turn.
+ */
+@Component
+public class UserOutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserOutboxRelay.class);
+
+    private final UserOutboxRepository outboxRepository;
+    private final UserEventProducer eventProducer;
+    private final UserShards userShards;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${kafka.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${kafka.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs = 10000;
+
+    public UserOutboxRelay(UserOutboxRepository outboxRepository, UserEventProducer eventProducer,
+                           UserShards userShards, PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.eventProducer = eventProducer;
+        this.userShards = userShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${kafka.outbox.poll-interval-ms:200}")
+    public void relay() {
+        userShards.forEachShard(shard -> {
+            try {
+                int published;
+                do {
+                    published = relayBatch();
+                } while (published == batchSize);
+            } catch (RuntimeException e) {
+                logger.warn("Не удалось опубликовать события из outbox шарда {}, повтор при следующем опросе: {}",
+                        shard, e.getMessage());
+            }
+        });
+    }
+
+    int relayBatch() {
+        Integer published = transactionTemplate.execute(status -> {
+            List<UserOutboxEvent> batch = outboxRepository.lockNextBatch(batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            List<CompletableFuture<?>> acks = new ArrayList<>(batch.size());
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (UserOutboxEvent outboxEvent : batch) {
+                acks.add(eventProducer.publish(outboxEvent.toUserEvent()));
+                ids.add(outboxEvent.getId());
+            }
+            awaitAcks(acks);
+
+            outboxRepository.deleteAllByIdInBatch(ids);
+            logger.debug("Опубликовано {} событий из outbox", batch.size());
+            return batch.size();
+        });
+        return published != null ? published : 0;
+    }
+
+    private void awaitAcks(List<CompletableFuture<?>> acks) {
+        try {
+            CompletableFuture.allOf(acks.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Kafka acknowledgements", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Kafka did not acknowledge outbox batch", e);
+        }
+    }
+}
\ No newline at end of file
@@ -11,7 +11,10 @@ public class UserMapper {
 
     public UserDto toDto(User user){
         if (user == null) return null;
-        return new UserDto(user.getId(), user.getName(), user.getEmail(), user.getAge());
+        UserDto dto = new UserDto(user.getId(), user.getName(), user.getEmail(), user.getAge());
+        dto.setUpdatedAt(user.getUpdatedAt());
+        dto.setVersion(user.getVersion());
+        return dto;
     }
 
     public User toEntity(UserCreateDto createDto){
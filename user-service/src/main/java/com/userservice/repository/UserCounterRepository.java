@@ -0,0 +1,30 @@
+package com.userservice.repository;
+
+import com.userservice.entity.UserCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Number of users kept in a handful of counter rows. Writers update a random slot so that
+ * concurrent transactions rarely wait on the same row lock; readers add the slots up.
+ * The rows are seeded by schema-postgresql.sql.
+ */
+public interface UserCounterRepository extends JpaRepository<UserCounter, Integer> {
+
+    int SLOTS = 8;
+
+    @Modifying
+    @Query("update UserCounter c set c.total = c.total + :delta where c.slot = :slot")
+    int add(@Param("slot") int slot, @Param("delta") long delta);
+
+    @Query("select coalesce(sum(c.total), 0) from UserCounter c")
+    long total();
+
+    default void increment(long delta) {
+        add(ThreadLocalRandom.current().nextInt(SLOTS), delta);
+    }
+}
\ No newline at end of file
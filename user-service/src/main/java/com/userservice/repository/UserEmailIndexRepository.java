@@ -0,0 +1,11 @@
+package com.userservice.repository;
+
+import com.userservice.entity.UserEmailIndexEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Entries of the sharded email index, see {@link com.userservice.sharding.UserEmailIndex}.
+ * The version column makes Spring Data persist new entries and guards takeovers of stale ones.
+ */
+public interface UserEmailIndexRepository extends JpaRepository<UserEmailIndexEntry, String> {
+}
\ No newline at end of file
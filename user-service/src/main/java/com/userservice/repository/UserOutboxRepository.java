@@ -0,0 +1,18 @@
+package com.userservice.repository;
+
+import com.userservice.entity.UserOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface UserOutboxRepository extends JpaRepository<UserOutboxEvent, Long> {
+
+    /**
+     * Claims the oldest pending events. Rows already locked by another relay are skipped
+     * rather than waited on, so several instances can drain the outbox side by side.
+     */
+    @Query(value = "SELECT * FROM user_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<UserOutboxEvent> lockNextBatch(@Param("limit") int limit);
+}
\ No newline at end of file
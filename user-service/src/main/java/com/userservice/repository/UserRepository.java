@@ -1,13 +1,37 @@
 package com.userservice.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import com.userservice.dto.UserDto;
 import com.userservice.entity.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select new com.userservice.dto.UserDto(u.id, u.name, u.email, u.age, u.createdAt, u.updatedAt, u.version) from User u where u.id = :id")
+    Optional<UserDto> findDtoById(@Param("id") Long id);
+
+    @Query("select new com.userservice.dto.UserDto(u.id, u.name, u.email, u.age, u.createdAt, u.updatedAt, u.version) from User u where u.email = :email")
+    Optional<UserDto> findDtoByEmail(@Param("email") String email);
+
+    @Query("select new com.userservice.dto.UserDto(u.id, u.name, u.email, u.age, u.createdAt, u.updatedAt, u.version) from User u where u.id in :ids")
+    List<UserDto> findDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.userservice.dto.UserDto(u.id, u.name, u.email, u.age, u.createdAt) from User u order by u.id")
+    List<UserDto> findDtoPage(Limit limit);
+
+    @Query("select new com.userservice.dto.UserDto(u.id, u.name, u.email, u.age, u.createdAt) from User u where u.id > :afterId order by u.id")
+    List<UserDto> findDtoPageAfter(@Param("afterId") Long afterId, Limit limit);
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.userservice.repository;
+
+import com.userservice.dto.UserDto;
+import com.userservice.dto.UserSearchCriteria;
+import com.userservice.dto.UserUpdateDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Walks the whole users table in id order through a forward-only cursor, handing each row
+     * to the consumer as soon as it is read. Must run inside a transaction, otherwise the
+     * PostgreSQL driver ignores the fetch size and buffers the complete result set.
+     *
+     * @return number of rows streamed
+     */
+    long streamAllOrderedById(int fetchSize, Consumer<UserDto> consumer);
+
+    /**
+     * Applies the non-null fields of the dto and bumps the version in a single
+     * {@code UPDATE ... RETURNING} statement. Email uniqueness is left to the unique constraint,
+     * so a taken email surfaces as {@link org.springframework.dao.DuplicateKeyException}.
+     *
+     * @param expectedVersion version the row must still have, or {@code null} for any
+     * @return the updated row, or empty when no row with this id (and version) exists or when the
+     * dto would not change it
+     */
+    Optional<UserUpdateResult> updateReturning(Long id, UserUpdateDto updateDto, Long expectedVersion);
+
+    /**
+     * Returns up to {@code limit} users matching the criteria with an id greater than
+     * {@code afterId} (or from the start when it is {@code null}), ordered by id.
+     */
+    List<UserDto> searchPage(UserSearchCriteria criteria, Long afterId, int limit);
+
+    /**
+     * Takes a transaction-scoped advisory lock per email, in a fixed order, so that concurrent
+     * transactions checking and then inserting the same email run one after the other.
+     */
+    void lockEmails(Collection<String> emails);
+}
\ No newline at end of file
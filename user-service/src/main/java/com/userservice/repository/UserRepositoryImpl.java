@@ -0,0 +1,170 @@
+package com.userservice.repository;
+
+import com.userservice.dto.UserDto;
+import com.userservice.dto.UserSearchCriteria;
+import com.userservice.dto.UserUpdateDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final String SELECT_ALL_ORDERED_BY_ID =
+            "SELECT id, name, email, age, created_at FROM users ORDER BY id";
+
+    // The locked sub-select hands the pre-update email to RETURNING in the same statement.
+    // A row the dto would leave as it is is not updated, so its version and updated_at stay.
+    private static final String UPDATE_RETURNING =
+            "UPDATE users u SET name = COALESCE(?, u.name), email = COALESCE(?, u.email), age = COALESCE(?, u.age), " +
+            "version = u.version + 1, updated_at = ? " +
+            "FROM (SELECT id, email FROM users WHERE id = ? FOR UPDATE) old_row " +
+            "WHERE u.id = old_row.id AND (CAST(? AS BIGINT) IS NULL OR u.version = ?) " +
+            "AND (u.name, u.email, u.age) IS DISTINCT FROM (COALESCE(?, u.name), COALESCE(?, u.email), COALESCE(?, u.age)) " +
+            "RETURNING u.id, u.name, u.email, u.age, u.created_at, u.updated_at, u.version, old_row.email AS previous_email";
+
+    // Sorted keys keep two batches with overlapping emails from locking each other in opposite order
+    private static final String LOCK_EMAILS =
+            "SELECT pg_advisory_xact_lock(hashtext('users.email'), lock_key) " +
+            "FROM (SELECT DISTINCT hashtext(email) AS lock_key FROM unnest(?) AS email ORDER BY lock_key) keys";
+
+    private static final String SEARCH_SELECT =
+            "SELECT id, name, email, age, created_at FROM users";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long streamAllOrderedById(int fetchSize, Consumer<UserDto> consumer) {
+        long[] rows = {0};
+        RowCallbackHandler handler = rs -> {
+            consumer.accept(mapRow(rs));
+            rows[0]++;
+        };
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_ALL_ORDERED_BY_ID,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, handler);
+        return rows[0];
+    }
+
+    @Override
+    public void lockEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        RowCallbackHandler ignored = rs -> {
+        };
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_EMAILS);
+            statement.setArray(1, connection.createArrayOf("text", emails.toArray()));
+            return statement;
+        }, ignored);
+    }
+
+    @Override
+    public Optional<UserUpdateResult> updateReturning(Long id, UserUpdateDto updateDto, Long expectedVersion) {
+        return jdbcTemplate.query(UPDATE_RETURNING, statement -> {
+            statement.setObject(1, updateDto.getName(), Types.VARCHAR);
+            statement.setObject(2, updateDto.getEmail(), Types.VARCHAR);
+            statement.setObject(3, updateDto.getAge(), Types.INTEGER);
+            statement.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setLong(5, id);
+            statement.setObject(6, expectedVersion, Types.BIGINT);
+            statement.setObject(7, expectedVersion, Types.BIGINT);
+            statement.setObject(8, updateDto.getName(), Types.VARCHAR);
+            statement.setObject(9, updateDto.getEmail(), Types.VARCHAR);
+            statement.setObject(10, updateDto.getAge(), Types.INTEGER);
+        }, rs -> {
+            if (!rs.next()) {
+                return Optional.empty();
+            }
+            UserDto user = mapRow(rs);
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            user.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null);
+            user.setVersion(rs.getLong("version"));
+            return Optional.of(new UserUpdateResult(user, rs.getString("previous_email")));
+        });
+    }
+
+    @Override
+    public List<UserDto> searchPage(UserSearchCriteria criteria, Long afterId, int limit) {
+        SearchQuery query = searchQuery(criteria, afterId, limit);
+        return jdbcTemplate.query(query.sql(), (rs, rowNum) -> mapRow(rs), query.args());
+    }
+
+    /**
+     * Builds the search statement with only the predicates whose filters are set. The name
+     * predicate matches the expression of the trigram index on {@code lower(name)} from
+     * schema-postgresql.sql; age and created_at use their B-tree indexes.
+     */
+    static SearchQuery searchQuery(UserSearchCriteria criteria, Long afterId, int limit) {
+        List<String> predicates = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (criteria.name() != null) {
+            predicates.add("lower(name) LIKE lower(?) ESCAPE '\\'");
+            args.add("%" + escapeLike(criteria.name()) + "%");
+        }
+        if (criteria.minAge() != null) {
+            predicates.add("age >= ?");
+            args.add(criteria.minAge());
+        }
+        if (criteria.maxAge() != null) {
+            predicates.add("age <= ?");
+            args.add(criteria.maxAge());
+        }
+        if (criteria.createdFrom() != null) {
+            predicates.add("created_at >= ?");
+            args.add(Timestamp.valueOf(criteria.createdFrom()));
+        }
+        if (criteria.createdTo() != null) {
+            predicates.add("created_at < ?");
+            args.add(Timestamp.valueOf(criteria.createdTo()));
+        }
+        if (afterId != null) {
+            predicates.add("id > ?");
+            args.add(afterId);
+        }
+
+        StringBuilder sql = new StringBuilder(SEARCH_SELECT);
+        if (!predicates.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+        args.add(limit);
+        return new SearchQuery(sql.toString(), args.toArray());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    record SearchQuery(String sql, Object[] args) {
+    }
+
+    private UserDto mapRow(ResultSet rs) throws SQLException {
+        UserDto dto = new UserDto();
+        dto.setId(rs.getLong("id"));
+        dto.setName(rs.getString("name"));
+        dto.setEmail(rs.getString("email"));
+        dto.setAge((Integer) rs.getObject("age"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        dto.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        return dto;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.userservice.repository;
+
+import com.userservice.dto.UserDto;
+
+/**
+ * Row returned by {@link UserRepositoryCustom#updateReturning}: the user after the update and
+ * the email it had before, which cache eviction and the USER_UPDATED event still need.
+ */
+public record UserUpdateResult(UserDto user, String previousEmail) {
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.userservice.service;
+
+import com.userservice.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the id of the last user on the previous page, base64url-encoded
+ * so that clients don't start constructing cursors by hand. Public for user-service-reactive,
+ * whose cursors have to stay interchangeable with these.
+ */
+public final class UserCursor {
+
+    private static final String PREFIX = "id:";
+
+    private UserCursor() {
+    }
+
+    public static String encode(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new ValidationException("Некорректный курсор страницы");
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор страницы");
+        }
+    }
+}
\ No newline at end of file
@@ -1,27 +1,45 @@
 package com.userservice.service;
 
 import com.userservice.dto.UserDto;
+import com.userservice.dto.UserBatchResultDto;
 import com.userservice.dto.UserCreateDto;
+import com.userservice.dto.UserLookupResultDto;
+import com.userservice.dto.UserPageDto;
+import com.userservice.dto.UserSearchCriteria;
 import com.userservice.dto.UserUpdateDto;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
 
+    int DEFAULT_PAGE_SIZE = 20;
+
+    int MAX_PAGE_SIZE = 100;
 
     UserDto createUser(UserCreateDto createDto);
 
+    UserBatchResultDto createUsers(List<UserCreateDto> createDtos);
+
     UserDto getUserById(Long id);
 
-    List<UserDto> getAllUsers();
+    UserLookupResultDto getUsersByIds(List<Long> ids);
+
+    UserPageDto getUsers(String cursor, Integer size);
+
+    UserPageDto searchUsers(UserSearchCriteria criteria, String cursor, Integer size);
+
+    long exportUsers(Consumer<UserDto> sink);
 
     UserDto updateUser(Long id, UserUpdateDto updateDto);
 
+    UserDto updateUser(Long id, UserUpdateDto updateDto, Long expectedVersion);
+
     void deleteUser(Long id);
 
     UserDto getUserByEmail(String email);
 
     long getUserCount();
+
+    long getExactUserCount();
 }
\ No newline at end of file
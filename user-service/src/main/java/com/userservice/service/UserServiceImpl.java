@@ -1,40 +1,89 @@
 package com.userservice.service;
 
+import com.userservice.cache.UserCacheInvalidator;
+import com.userservice.config.CacheConfig;
+import com.userservice.config.MetricsConfig;
+import com.userservice.datasource.PrimaryReads;
+import com.userservice.dto.UserBatchItemDto;
+import com.userservice.dto.UserBatchResultDto;
 import com.userservice.dto.UserCreateDto;
+import com.userservice.dto.UserLookupDto;
+import com.userservice.dto.UserLookupResultDto;
 import com.userservice.dto.UserDto;
+import com.userservice.dto.UserPageDto;
+import com.userservice.dto.UserSearchCriteria;
 import com.userservice.dto.UserUpdateDto;
 import com.userservice.entity.User;
+import com.userservice.exception.PreconditionFailedException;
 import com.userservice.exception.UserAlreadyExistsException;
 import com.userservice.exception.UserNotFoundException;
+import com.userservice.exception.ValidationException;
 import com.userservice.kafka.UserEvent;
-import com.userservice.kafka.UserEventProducer;
+import com.userservice.kafka.UserEventOutbox;
 import com.userservice.mapper.UserMapper;
+import com.userservice.repository.UserCounterRepository;
 import com.userservice.repository.UserRepository;
+import com.userservice.repository.UserUpdateResult;
+import com.userservice.sharding.UserEmailIndex;
+import com.userservice.sharding.UserShards;
+import io.micrometer.core.annotation.Timed;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
+@Timed(MetricsConfig.USER_SERVICE_TIMER)
 public class UserServiceImpl implements UserService {
 
-    public final UserEventProducer eventProducer;
+    private final UserEventOutbox eventOutbox;
 
     private static final Logger log = LogManager.getLogger(UserServiceImpl.class);
 
     private final UserRepository userRepository;
+    private final UserCounterRepository userCounterRepository;
     private final UserMapper userMapper;
+    private final UserCacheInvalidator cacheInvalidator;
+    private final UserShards userShards;
+    private final UserEmailIndex emailIndex;
+
+    @Value("${users.export.fetch-size:1000}")
+    private int exportFetchSize = 1000;
+
+    @Value("${users.lookup.chunk-size:500}")
+    private int lookupChunkSize = 500;
+
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper, UserEventProducer userEventProducer) {
+    public UserServiceImpl(UserRepository userRepository, UserCounterRepository userCounterRepository, UserMapper userMapper, UserEventOutbox eventOutbox,
+                           UserCacheInvalidator cacheInvalidator, UserShards userShards, UserEmailIndex emailIndex) {
         this.userRepository = userRepository;
+        this.userCounterRepository = userCounterRepository;
         this.userMapper = userMapper;
-        this.eventProducer = userEventProducer;
+        this.eventOutbox = eventOutbox;
+        this.cacheInvalidator = cacheInvalidator;
+        this.userShards = userShards;
+        this.emailIndex = emailIndex;
     }
 
     @Override
@@ -42,74 +91,319 @@ public class UserServiceImpl implements UserService {
     public UserDto createUser(UserCreateDto createDto) {
         log.info("Creating user with email: {}", createDto.getEmail());
 
-        if (userRepository.existsByEmail(createDto.getEmail())) {
-            log.warn("User with email {} already exists", createDto.getEmail());
-            throw new UserAlreadyExistsException(createDto.getEmail());
+        // A new user goes to the shard of its email, where its email index entry is written too
+        int shard = userShards.shardOfEmail(createDto.getEmail());
+        User savedUser = userShards.execute(shard, false, () -> {
+            User user = userMapper.toEntity(createDto);
+            user.setId(userShards.nextId(shard));
+            if (!emailIndex.claim(user.getEmail(), user.getId())) {
+                log.warn("User with email {} already exists", createDto.getEmail());
+                throw new UserAlreadyExistsException(createDto.getEmail());
+            }
+
+            User saved = userRepository.save(user);
+            userCounterRepository.increment(1);
+
+            UserEvent event = new UserEvent(
+                    "USER_CREATED",
+                    saved.getId(),
+                    saved.getEmail(),
+                    saved.getName(),
+                    saved.getAge()
+            );
+            eventOutbox.enqueue(event);
+            return saved;
+        });
+
+        log.info("User created successfully with ID: {}", savedUser.getId());
+        return userMapper.toDto(savedUser);
+    }
+
+    @Override
+    @Transactional
+    public UserBatchResultDto createUsers(List<UserCreateDto> createDtos) {
+        log.info("Creating batch of {} users", createDtos.size());
+
+        // Each shard takes its part of the batch in a transaction of its own
+        Map<Integer, List<Integer>> indexesByShard = new TreeMap<>();
+        for (int i = 0; i < createDtos.size(); i++) {
+            indexesByShard.computeIfAbsent(userShards.shardOfEmail(createDtos.get(i).getEmail()), shard -> new ArrayList<>()).add(i);
         }
 
-        User user = userMapper.toEntity(createDto);
-        User savedUser = userRepository.save(user);
+        UserBatchItemDto[] items = new UserBatchItemDto[createDtos.size()];
+        int created = 0;
+        for (Map.Entry<Integer, List<Integer>> group : indexesByShard.entrySet()) {
+            created += userShards.execute(group.getKey(), false,
+                    () -> createUsersOnShard(group.getKey(), createDtos, group.getValue(), items));
+        }
 
-        UserEvent event = new UserEvent(
-                "USER_CREATED",
-                savedUser.getId(),
-                savedUser.getEmail(),
-                savedUser.getName(),
-                savedUser.getAge()
-        );
-        eventProducer.sendUserCreatedEvent(event);
+        log.info("Batch processed: {} created, {} conflicts", created, createDtos.size() - created);
+        return new UserBatchResultDto(Arrays.asList(items));
+    }
 
-        log.info("User created successfully with ID: {}", savedUser.getId());
-        return userMapper.toDto(savedUser);
+    private int createUsersOnShard(int shard, List<UserCreateDto> createDtos, List<Integer> indexes, UserBatchItemDto[] items) {
+        Map<String, Long> newIds = new LinkedHashMap<>();
+        for (Integer index : indexes) {
+            // Unsharded the ids are null, so the emails are put even when there are no ids to go with them
+            String email = createDtos.get(index).getEmail();
+            if (!newIds.containsKey(email)) {
+                newIds.put(email, userShards.nextId(shard));
+            }
+        }
+        Set<String> takenEmails = emailIndex.claimAll(newIds);
+
+        List<Integer> acceptedIndexes = new ArrayList<>(indexes.size());
+        List<User> acceptedUsers = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            UserCreateDto createDto = createDtos.get(index);
+            // The first item with a free email gets it, later ones conflict like taken emails do
+            if (!takenEmails.add(createDto.getEmail())) {
+                items[index] = UserBatchItemDto.conflict(index, createDto.getEmail(),
+                        UserAlreadyExistsException.messageFor(createDto.getEmail()));
+                continue;
+            }
+            User user = userMapper.toEntity(createDto);
+            user.setId(newIds.get(createDto.getEmail()));
+            acceptedIndexes.add(index);
+            acceptedUsers.add(user);
+        }
+
+        List<User> savedUsers = userRepository.saveAll(acceptedUsers);
+        userRepository.flush();
+        if (!savedUsers.isEmpty()) {
+            userCounterRepository.increment(savedUsers.size());
+        }
+
+        List<UserEvent> events = new ArrayList<>(savedUsers.size());
+        for (int i = 0; i < savedUsers.size(); i++) {
+            User savedUser = savedUsers.get(i);
+            items[acceptedIndexes.get(i)] = UserBatchItemDto.created(acceptedIndexes.get(i), userMapper.toDto(savedUser));
+            events.add(new UserEvent(
+                    "USER_CREATED",
+                    savedUser.getId(),
+                    savedUser.getEmail(),
+                    savedUser.getName(),
+                    savedUser.getAge()
+            ));
+        }
+        if (!events.isEmpty()) {
+            eventOutbox.enqueueAll(events);
+        }
+        return savedUsers.size();
     }
 
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_ID, key = "#id", sync = true)
     @Override
     public UserDto getUserById(Long id) {
         log.info("Fetching user with ID: {}", id);
 
-        User user = userRepository.findById(id)
+        // Cached for every client, so never read from a replica that may lag behind the last write
+        return PrimaryReads.call(() -> userShards.execute(userShards.shardOf(id), true, () -> userRepository.findDtoById(id)))
                 .orElseThrow(() -> new UserNotFoundException(id));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public UserLookupResultDto getUsersByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > UserLookupDto.MAX_LOOKUP_SIZE) {
+            throw new ValidationException("Количество ID должно быть от 1 до " + UserLookupDto.MAX_LOOKUP_SIZE);
+        }
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        log.info("Fetching {} users by ID", requested.size());
+
+        Map<Integer, List<Long>> idsByShard = requested.stream()
+                .collect(Collectors.groupingBy(userShards::shardOf, TreeMap::new, Collectors.toList()));
+        Map<Long, UserDto> found = new HashMap<>(requested.size() * 2);
+        for (List<UserDto> users : userShards.executeOnEach(idsByShard.keySet(), shard -> findByIds(idsByShard.get(shard)))) {
+            for (UserDto user : users) {
+                found.put(user.getId(), user);
+            }
+        }
+
+        List<UserDto> users = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requested) {
+            UserDto user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            } else {
+                missingIds.add(id);
+            }
+        }
 
-        return userMapper.toDto(user);
+        log.debug("Found {} users, {} missing", users.size(), missingIds.size());
+        return new UserLookupResultDto(users, missingIds);
+    }
+
+    private List<UserDto> findByIds(List<Long> ids) {
+        List<UserDto> users = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += lookupChunkSize) {
+            users.addAll(userRepository.findDtoByIdIn(ids.subList(from, Math.min(from + lookupChunkSize, ids.size()))));
+        }
+        return users;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public UserPageDto getUsers(String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        Long afterId = UserCursor.decode(cursor);
+        log.info("Fetching users page after ID {} with size {}", afterId, pageSize);
+
+        Limit limit = Limit.of(pageSize + 1);
+        List<UserDto> users = mergeById(userShards.executeOnAll(shard -> afterId == null
+                ? userRepository.findDtoPage(limit)
+                : userRepository.findDtoPageAfter(afterId, limit)), pageSize + 1);
+
+        boolean hasNext = users.size() > pageSize;
+        List<UserDto> content = hasNext ? users.subList(0, pageSize) : users;
+        String nextCursor = hasNext ? UserCursor.encode(content.get(content.size() - 1).getId()) : null;
+
+        log.debug("Found {} users, has next page: {}", content.size(), hasNext);
+        return new UserPageDto(content, nextCursor);
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<UserDto> getAllUsers() {
-        log.info("Fetching all users");
+    public UserPageDto searchUsers(UserSearchCriteria criteria, String cursor, Integer size) {
+        UserSearchCriteria filters = normalize(criteria);
+        int pageSize = resolvePageSize(size);
+        Long afterId = UserCursor.decode(cursor);
+        log.info("Searching users by {} after ID {} with size {}", filters, afterId, pageSize);
+
+        List<UserDto> users = mergeById(userShards.executeOnAll(
+                shard -> userRepository.searchPage(filters, afterId, pageSize + 1)), pageSize + 1);
+
+        boolean hasNext = users.size() > pageSize;
+        List<UserDto> content = hasNext ? users.subList(0, pageSize) : users;
+        String nextCursor = hasNext ? UserCursor.encode(content.get(content.size() - 1).getId()) : null;
+
+        log.debug("Found {} users, has next page: {}", content.size(), hasNext);
+        return new UserPageDto(content, nextCursor);
+    }
 
-        List<User> users = userRepository.findAll();
+    /**
+     * Merges the pages the shards returned for the same keyset query. Each holds the first
+     * matches of its shard in id order, so the first {@code limit} of all of them are the page.
+     */
+    private static List<UserDto> mergeById(List<List<UserDto>> shardPages, int limit) {
+        if (shardPages.size() == 1) {
+            return shardPages.get(0);
+        }
+        return shardPages.stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(UserDto::getId))
+                .limit(limit)
+                .toList();
+    }
 
-        log.info("Found {} users", users.size());
-        return users.stream()
-                .map(userMapper::toDto)
-                .collect(Collectors.toList());
+    private UserSearchCriteria normalize(UserSearchCriteria criteria) {
+        String name = criteria.name() == null || criteria.name().isBlank() ? null : criteria.name().trim();
+        if (criteria.minAge() != null && criteria.maxAge() != null && criteria.minAge() > criteria.maxAge()) {
+            throw new ValidationException("Минимальный возраст не может быть больше максимального");
+        }
+        if (criteria.createdFrom() != null && criteria.createdTo() != null
+                && !criteria.createdFrom().isBefore(criteria.createdTo())) {
+            throw new ValidationException("Начало периода регистрации должно быть раньше его конца");
+        }
+        return new UserSearchCriteria(name, criteria.minAge(), criteria.maxAge(),
+                criteria.createdFrom(), criteria.createdTo());
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public long exportUsers(Consumer<UserDto> sink) {
+        log.info("Exporting all users with fetch size {}", exportFetchSize);
+
+        // Shard after shard, each one in id order
+        long startedAt = System.nanoTime();
+        long exported = 0;
+        for (int shard : userShards.shards()) {
+            exported += userShards.execute(shard, true, () -> userRepository.streamAllOrderedById(exportFetchSize, sink));
+        }
+        long elapsedNanos = Math.max(System.nanoTime() - startedAt, 1);
 
+        log.info("Exported {} users in {} ms ({} rows/s)", exported,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                exported * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        return exported;
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1) {
+            throw new ValidationException("Размер страницы должен быть больше 0");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
 
     @Override
     @Transactional
     public UserDto updateUser(Long id, UserUpdateDto updateDto) {
+        return updateUser(id, updateDto, null);
+    }
+
+    @Override
+    @Transactional
+    public UserDto updateUser(Long id, UserUpdateDto updateDto, Long expectedVersion) {
         log.info("Updating user with ID: {}", id);
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException(id));
+        String newEmail = updateDto.getEmail();
+        if (newEmail != null) {
+            emailIndex.reserve(newEmail, id);
+        }
+        UserUpdateResult result;
+        try {
+            result = userShards.execute(userShards.shardOf(id), false, () -> applyUpdate(id, updateDto, expectedVersion));
+        } catch (RuntimeException e) {
+            emailIndex.releaseIfStale(newEmail);
+            throw e;
+        }
 
-        if (updateDto.getEmail() != null &&
-                !updateDto.getEmail().equals(user.getEmail()) &&
-                userRepository.existsByEmail(updateDto.getEmail())) {
+        UserDto updatedUser = result.user();
+        if (!Objects.equals(result.previousEmail(), updatedUser.getEmail())) {
+            emailIndex.releaseIfStale(result.previousEmail());
+        }
+        log.info("User updated successfully: {}", updatedUser.getId());
+        return updatedUser;
+    }
+
+    private UserUpdateResult applyUpdate(Long id, UserUpdateDto updateDto, Long expectedVersion) {
+        UserUpdateResult result;
+        try {
+            result = userRepository.updateReturning(id, updateDto, expectedVersion).orElse(null);
+        } catch (DuplicateKeyException e) {
             log.warn("Email {} is already taken", updateDto.getEmail());
             throw new UserAlreadyExistsException(updateDto.getEmail());
         }
+        if (result == null) {
+            UserDto current = userRepository.findDtoById(id).orElseThrow(() -> new UserNotFoundException(id));
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                log.warn("User {} is no longer at version {}", id, expectedVersion);
+                throw new PreconditionFailedException(id);
+            }
+            // Nothing changed: the version, the caches and the subscribers stay as they are
+            log.debug("Update of user {} changes nothing", id);
+            return new UserUpdateResult(current, current.getEmail());
+        }
 
-        userMapper.updateEntityFromDto(updateDto, user);
-
-        User updatedUser = userRepository.save(user);
+        UserDto updatedUser = result.user();
+        String previousEmail = result.previousEmail();
+        cacheInvalidator.evict(updatedUser.getId(), previousEmail, updatedUser.getEmail());
 
-        log.info("User updated successfully: {}", updatedUser.getId());
-        return userMapper.toDto(updatedUser);
+        UserEvent event = new UserEvent(
+                "USER_UPDATED",
+                updatedUser.getId(),
+                updatedUser.getEmail(),
+                updatedUser.getName(),
+                updatedUser.getAge()
+        );
+        event.setPreviousEmail(previousEmail);
+        eventOutbox.enqueue(event);
+        return result;
     }
 
     @Override
@@ -117,37 +411,57 @@ public class UserServiceImpl implements UserService {
     public void deleteUser(Long id) {
         log.info("Deleting user with ID: {}", id);
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException(id));
-
-        UserEvent event = new UserEvent(
-                "USER_DELETED",
-                user.getId(),
-                user.getEmail(),
-                user.getName(),
-                user.getAge()
-        );
-
-        userRepository.deleteById(id);
-        eventProducer.sendUserDeletedEvent(event);
+        String email = userShards.execute(userShards.shardOf(id), false, () -> {
+            User user = userRepository.findById(id)
+                    .orElseThrow(() -> new UserNotFoundException(id));
+
+            UserEvent event = new UserEvent(
+                    "USER_DELETED",
+                    user.getId(),
+                    user.getEmail(),
+                    user.getName(),
+                    user.getAge()
+            );
+
+            userRepository.deleteById(id);
+            userCounterRepository.increment(-1);
+            cacheInvalidator.evict(user.getId(), user.getEmail());
+            eventOutbox.enqueue(event);
+            return user.getEmail();
+        });
+        emailIndex.releaseIfStale(email);
         log.info("User deleted successfully: {}", id);
     }
 
+    @Transactional(readOnly = true)
     @Override
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_EMAIL, key = "#email", sync = true)
     public UserDto getUserByEmail(String email) {
         log.info("Fetching user by email: {}", email);
 
-        User user = userRepository.findByEmail(email)
+        return PrimaryReads.call(() -> emailIndex.findUser(email))
                 .orElseThrow(() -> new UserNotFoundException("User with email " + email + " not found"));
-
-        return userMapper.toDto(user);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public long getUserCount() {
+        long count = userShards.executeOnAll(shard -> userCounterRepository.total()).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        log.debug("Total users (counter): {}", count);
+
+        return count;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getExactUserCount() {
         log.info("Counting users");
 
-        long count = userRepository.count();
+        long count = userShards.executeOnAll(shard -> userRepository.count()).stream()
+                .mapToLong(Long::longValue)
+                .sum();
         log.info("Total users: {}", count);
 
         return count;
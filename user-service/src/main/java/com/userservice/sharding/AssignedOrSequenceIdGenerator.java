@@ -0,0 +1,17 @@
+package com.userservice.sharding;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+/**
+ * Keeps the id a sharded service assigned from {@link UserIdGenerator} and takes one from the
+ * sequence, with the pooled optimizer, when there is none, as with a single shard.
+ */
+public class AssignedOrSequenceIdGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Object id = session.getEntityPersister(null, object).getIdentifier(object, session);
+        return id != null ? id : super.generate(session, object);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.userservice.sharding;
+
+/**
+ * Shard the current thread works on. {@link ShardRoutingDataSource} hands out connections of
+ * this shard, so it has to be bound before a transaction runs its first statement.
+ */
+final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds the shard until the returned binding is closed, which restores the previous one.
+     */
+    static Binding bind(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    interface Binding extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.userservice.sharding;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Hands out connections of the shard bound to the current thread by {@link UserShards}. With no
+ * shard bound, e.g. while Hibernate and the schema scripts start up, it uses shard 0.
+ * <p>
+ * A transaction only binds its shard after it has begun, so this data source has to sit behind
+ * a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource {
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Integer shard = ShardContext.current();
+        return shard(shard != null ? shard : 0).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Routing data source does not support per-call credentials");
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * Closes the shard pools, which are not beans of their own. Called by the container on shutdown.
+     */
+    public void close() throws Exception {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
\ No newline at end of file
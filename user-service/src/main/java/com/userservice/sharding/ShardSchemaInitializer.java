@@ -0,0 +1,74 @@
+package com.userservice.sharding;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+
+import java.util.Map;
+
+/**
+ * Gives every shard the schema Spring Boot sets up on shard 0, the shard behind the data source
+ * while none is bound: the Hibernate ddl-auto action, then the spring.sql.init scripts.
+ * Registered with Hibernate as an integrator to get hold of the mapping metadata.
+ */
+class ShardSchemaInitializer implements Integrator, SmartInitializingSingleton {
+
+    private static final Logger log = LogManager.getLogger(ShardSchemaInitializer.class);
+
+    private final ShardRoutingDataSource routingDataSource;
+    private final ObjectProvider<SqlInitializationProperties> sqlInitializationProperties;
+
+    private Metadata metadata;
+    private ServiceRegistry serviceRegistry;
+    private Map<String, Object> settings;
+
+    ShardSchemaInitializer(ShardRoutingDataSource routingDataSource,
+                           ObjectProvider<SqlInitializationProperties> sqlInitializationProperties) {
+        this.routingDataSource = routingDataSource;
+        this.sqlInitializationProperties = sqlInitializationProperties;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        this.serviceRegistry = sessionFactory.getServiceRegistry();
+        this.settings = sessionFactory.getProperties();
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SqlInitializationProperties sqlInitialization = sqlInitializationProperties.getIfAvailable();
+        for (int shard = 1; shard < routingDataSource.shardCount(); shard++) {
+            if (metadata != null) {
+                try (ShardContext.Binding ignored = ShardContext.bind(shard)) {
+                    applyDdlAction();
+                }
+            }
+            if (sqlInitialization != null) {
+                new SqlDataSourceScriptDatabaseInitializer(routingDataSource.shard(shard), sqlInitialization).initializeDatabase();
+            }
+            log.info("Initialized schema of shard {}", shard);
+        }
+    }
+
+    // Hibernate runs the DDL through the application data source, which routes to the bound shard.
+    // The drop of create-drop is left to shard 0, the other shards keep their tables on shutdown.
+    private void applyDdlAction() {
+        SchemaManagementToolCoordinator.process(metadata, serviceRegistry, settings, dropAction -> {
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.userservice.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Spreads users over several PostgreSQL databases when {@code users.sharding.shard-urls} is set,
+ * with one pool per URL using the credentials, driver and Hikari settings of
+ * {@code spring.datasource}. The position of a URL is the shard number stored in user ids, so
+ * shards can be appended but never reordered. Without the property there is a single shard, the
+ * plain Spring Boot data source, and user ids come from the users_seq sequence.
+ * <p>
+ * Sharded, every instance needs its own {@code users.sharding.worker-id} for the ids it generates
+ * to be unique, e.g. the ordinal of its StatefulSet pod. Startup fails without one.
+ */
+@Configuration
+public class ShardingConfig {
+
+    @Bean
+    public UserIdGenerator userIdGenerator(@Value("${users.sharding.worker-id:0}") int workerId) {
+        return new UserIdGenerator(workerId);
+    }
+
+    @Bean
+    public UserShards userShards(UserIdGenerator userIdGenerator,
+                                 ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${users.sharding.fan-out-threads:32}") int fanOutThreads) {
+        ShardRoutingDataSource routingDataSource = shardRoutingDataSource.getIfAvailable();
+        if (routingDataSource == null || routingDataSource.shardCount() == 1) {
+            return UserShards.single(userIdGenerator);
+        }
+        return new UserShards(routingDataSource.shardCount(), userIdGenerator, transactionManager,
+                Executors.newFixedThreadPool(fanOutThreads, new CustomizableThreadFactory("shard-fan-out-")));
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "users.sharding.shard-urls")
+    static class ShardDataSourceConfig {
+
+        @Value("${users.sharding.shard-urls}")
+        private List<String> shardUrls;
+
+        @Bean
+        public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                                             ObjectProvider<MeterRegistry> meterRegistry) {
+            if (environment.containsProperty("users.datasource.replica-urls")) {
+                throw new IllegalStateException("users.datasource.replica-urls cannot be combined with users.sharding.shard-urls");
+            }
+            if (shardUrls.size() > UserIdGenerator.MAX_SHARDS) {
+                throw new IllegalStateException("At most " + UserIdGenerator.MAX_SHARDS + " shards are supported");
+            }
+            // Instances sharing the default worker id would hand out the same ids in the same tick
+            if (shardUrls.size() > 1 && !environment.containsProperty("users.sharding.worker-id")) {
+                throw new IllegalStateException("users.sharding.worker-id must be set to a value unique to each instance"
+                        + " when users.sharding.shard-urls is set");
+            }
+            Binder binder = Binder.get(environment);
+            List<DataSource> shards = new ArrayList<>(shardUrls.size());
+            for (int i = 0; i < shardUrls.size(); i++) {
+                HikariDataSource shard = properties.initializeDataSourceBuilder()
+                        .type(HikariDataSource.class)
+                        .url(shardUrls.get(i).trim())
+                        .build();
+                binder.bind("spring.datasource.hikari", Bindable.ofInstance(shard));
+                shard.setPoolName("shard-" + i);
+                // Only bean pools get Hikari metrics from Spring Boot, the shard pools are wired here.
+                meterRegistry.ifAvailable(shard::setMetricRegistry);
+                shards.add(shard);
+            }
+            return new ShardRoutingDataSource(shards);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+            return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+        }
+
+        @Bean
+        ShardSchemaInitializer shardSchemaInitializer(ShardRoutingDataSource shardRoutingDataSource,
+                                                      ObjectProvider<SqlInitializationProperties> sqlInitializationProperties) {
+            return new ShardSchemaInitializer(shardRoutingDataSource, sqlInitializationProperties);
+        }
+
+        @Bean
+        public HibernatePropertiesCustomizer shardSchemaIntegrator(ShardSchemaInitializer shardSchemaInitializer) {
+            return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> List.of(shardSchemaInitializer));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.userservice.sharding;
+
+import com.userservice.dto.UserDto;
+import com.userservice.entity.UserEmailIndexEntry;
+import com.userservice.exception.UserAlreadyExistsException;
+import com.userservice.repository.UserEmailIndexRepository;
+import com.userservice.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Finds users by email across shards. Sharded, every email has an entry in user_email_index on
+ * the shard the email hashes to, naming the user that has it. With a single shard the unique
+ * email column of users does the job and no entries are written.
+ * <p>
+ * A user is created on the shard of its email, together with its entry. Once the email changes,
+ * entry and user live on different shards and change in separate transactions: the new email is
+ * claimed before the user row takes it and the old one released afterwards. An entry whose user
+ * no longer has the email is stale, whatever interrupted the sequence: lookups ignore it and the
+ * next claim of the email takes it over.
+ * <p>
+ * Claims lock their emails until the end of the transaction, so a concurrent claim of the same
+ * email waits for the user to be inserted and then sees the email as taken.
+ */
+@Component
+public class UserEmailIndex {
+
+    private final UserShards userShards;
+    private final UserRepository userRepository;
+    private final UserEmailIndexRepository indexRepository;
+
+    public UserEmailIndex(UserShards userShards, UserRepository userRepository, UserEmailIndexRepository indexRepository) {
+        this.userShards = userShards;
+        this.userRepository = userRepository;
+        this.indexRepository = indexRepository;
+    }
+
+    /**
+     * Claims the email for a user about to be created, in the caller's transaction on the shard
+     * of the email.
+     *
+     * @return false when another user has the email
+     */
+    public boolean claim(String email, Long userId) {
+        if (!userShards.isSharded()) {
+            userRepository.lockEmails(List.of(email));
+            return !userRepository.existsByEmail(email);
+        }
+        return claimAll(Map.of(email, userId)).isEmpty();
+    }
+
+    /**
+     * Claims emails for users about to be created, in the caller's transaction on the shard
+     * of the emails.
+     *
+     * @return the emails that other users have
+     */
+    public Set<String> claimAll(Map<String, Long> userIdsByEmail) {
+        userRepository.lockEmails(userIdsByEmail.keySet());
+        if (!userShards.isSharded()) {
+            return new HashSet<>(userRepository.findExistingEmails(userIdsByEmail.keySet()));
+        }
+        Map<String, UserEmailIndexEntry> existing = new HashMap<>();
+        for (UserEmailIndexEntry entry : indexRepository.findAllById(userIdsByEmail.keySet())) {
+            existing.put(entry.getEmail(), entry);
+        }
+
+        Set<String> taken = new HashSet<>();
+        List<UserEmailIndexEntry> added = new ArrayList<>();
+        userIdsByEmail.forEach((email, userId) -> {
+            UserEmailIndexEntry entry = existing.get(email);
+            if (entry == null) {
+                added.add(new UserEmailIndexEntry(email, userId));
+            } else if (!entry.getUserId().equals(userId)) {
+                if (findOwner(entry).isPresent()) {
+                    taken.add(email);
+                } else {
+                    entry.setUserId(userId);
+                }
+            }
+        });
+        indexRepository.saveAll(added);
+        return taken;
+    }
+
+    /**
+     * Claims the email for an existing user before its row is changed to it, in a transaction of
+     * its own on the shard of the email. With a single shard the unique constraint checks the
+     * email as part of the update and this does nothing.
+     *
+     * @throws UserAlreadyExistsException when another user has the email
+     */
+    public void reserve(String email, Long userId) {
+        if (!userShards.isSharded()) {
+            return;
+        }
+        boolean claimed = userShards.execute(userShards.shardOfEmail(email), false,
+                () -> claimAll(Map.of(email, userId)).isEmpty());
+        if (!claimed) {
+            throw new UserAlreadyExistsException(email);
+        }
+    }
+
+    /**
+     * Drops the entry of the email when its user no longer has it: after the user was deleted or
+     * changed its email, or when the update a reservation was made for failed.
+     */
+    public void releaseIfStale(String email) {
+        if (!userShards.isSharded() || email == null) {
+            return;
+        }
+        userShards.execute(userShards.shardOfEmail(email), false, () -> {
+            indexRepository.findById(email)
+                    .filter(entry -> findOwner(entry).isEmpty())
+                    .ifPresent(indexRepository::delete);
+            return null;
+        });
+    }
+
+    public Optional<UserDto> findUser(String email) {
+        if (!userShards.isSharded()) {
+            return userRepository.findDtoByEmail(email);
+        }
+        return userShards.execute(userShards.shardOfEmail(email), true, () -> indexRepository.findById(email))
+                .flatMap(this::findOwner);
+    }
+
+    // The user the entry names, as long as it still has the entry's email
+    private Optional<UserDto> findOwner(UserEmailIndexEntry entry) {
+        Long userId = entry.getUserId();
+        return userShards.execute(userShards.shardOf(userId), true, () -> userRepository.findDtoById(userId))
+                .filter(user -> entry.getEmail().equals(user.getEmail()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,163 @@
+package com.userservice.sharding;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Runs user data access on the shard that holds the data. A user lives on the shard encoded in
+ * its id, an email index entry on the shard its email hashes to.
+ * <p>
+ * With a single shard everything runs inline, in the caller's transaction. With several, each
+ * call gets a transaction of its own on its shard, so no transaction ever spans two databases,
+ * and reads over several shards run in parallel on the fan-out pool.
+ */
+public class UserShards {
+
+    private final int shardCount;
+    private final List<Integer> shards;
+    private final UserIdGenerator idGenerator;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final ExecutorService fanOutExecutor;
+
+    public UserShards(int shardCount, UserIdGenerator idGenerator, PlatformTransactionManager transactionManager,
+                      ExecutorService fanOutExecutor) {
+        if (shardCount < 1 || shardCount > UserIdGenerator.MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + UserIdGenerator.MAX_SHARDS + ": " + shardCount);
+        }
+        this.shardCount = shardCount;
+        this.shards = IntStream.range(0, shardCount).boxed().toList();
+        this.idGenerator = idGenerator;
+        this.fanOutExecutor = fanOutExecutor;
+        if (shardCount > 1) {
+            writeTransaction = new TransactionTemplate(transactionManager);
+            writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            readTransaction = new TransactionTemplate(transactionManager, writeTransaction);
+            readTransaction.setReadOnly(true);
+        } else {
+            writeTransaction = null;
+            readTransaction = null;
+        }
+    }
+
+    public static UserShards single(UserIdGenerator idGenerator) {
+        return new UserShards(1, idGenerator, null, null);
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public List<Integer> shards() {
+        return shards;
+    }
+
+    /**
+     * The id for a new user on the shard. With a single shard there is none: the database
+     * assigns it from users_seq on insert.
+     */
+    public Long nextId(int shard) {
+        return isSharded() ? idGenerator.nextId(shard) : null;
+    }
+
+    public int shardOf(Long id) {
+        return isSharded() ? UserIdGenerator.shardOf(id) : 0;
+    }
+
+    public int shardOfEmail(String email) {
+        return Math.floorMod(email.hashCode(), shardCount);
+    }
+
+    /**
+     * Runs the work on the shard. Sharded, it gets a transaction of its own there, unless the
+     * thread already is in a transaction on that shard that can take it, which it then joins.
+     */
+    public <T> T execute(int shard, boolean readOnly, Supplier<T> work) {
+        if (!isSharded() || canJoinCurrentTransaction(shard, readOnly)) {
+            return work.get();
+        }
+        try (ShardContext.Binding ignored = ShardContext.bind(shard)) {
+            return (readOnly ? readTransaction : writeTransaction).execute(status -> work.get());
+        }
+    }
+
+    /**
+     * Runs read-only work on each of the shards, in parallel when there is more than one.
+     *
+     * @return the results in the order of the shards
+     */
+    public <T> List<T> executeOnEach(Collection<Integer> shards, IntFunction<T> work) {
+        if (shards.size() == 1) {
+            int shard = shards.iterator().next();
+            return Collections.singletonList(execute(shard, true, () -> work.apply(shard)));
+        }
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> execute(shard, true, () -> work.apply(shard)), fanOutExecutor))
+                .toList();
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    public <T> List<T> executeOnAll(IntFunction<T> work) {
+        return executeOnEach(shards, work);
+    }
+
+    /**
+     * Hands each shard in turn to the action, with the shard bound for the transactions the
+     * action opens itself.
+     */
+    public void forEachShard(IntConsumer action) {
+        if (!isSharded()) {
+            action.accept(0);
+            return;
+        }
+        for (int shard : shards) {
+            try (ShardContext.Binding ignored = ShardContext.bind(shard)) {
+                action.accept(shard);
+            }
+        }
+    }
+
+    /**
+     * Stops the fan-out pool. Called by the container on shutdown.
+     */
+    public void close() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdown();
+        }
+    }
+
+    private static boolean canJoinCurrentTransaction(int shard, boolean readOnly) {
+        return Integer.valueOf(shard).equals(ShardContext.current())
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && (readOnly || !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+}
\ No newline at end of file
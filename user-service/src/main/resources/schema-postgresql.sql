@@ -0,0 +1,25 @@
+-- users.id moved from IDENTITY to the pooled users_seq sequence (allocation size 50).
+-- Hibernate creates users_seq starting at 1, so on databases that already hold users
+-- we move it past the highest existing id. GREATEST keeps it monotonic across restarts.
+-- Sharded, ids come from UserIdGenerator instead and the sequence goes unused.
+SELECT setval('users_seq', GREATEST((SELECT last_value FROM users_seq), (SELECT COALESCE(MAX(id), 0) FROM users) + 50));
+
+-- user_counter keeps the number of users in UserCounterRepository.SLOTS rows. They are seeded
+-- once from the users table, on each shard from its own users; afterwards every create and
+-- delete updates them in its own transaction.
+INSERT INTO user_counter (slot, total)
+SELECT slot, CASE WHEN slot = 0 THEN (SELECT COUNT(*) FROM users) ELSE 0 END
+FROM generate_series(0, 7) AS slot
+ON CONFLICT (slot) DO NOTHING;
+
+-- version and updated_at were added to users later; ddl-auto creates them as NULL on existing rows.
+UPDATE users SET version = 0 WHERE version IS NULL;
+UPDATE users SET updated_at = created_at WHERE updated_at IS NULL;
+
+-- Indexes behind GET /api/users/search (UserRepositoryImpl.searchQuery). The name filter is a
+-- case-insensitive substring match, which only a trigram index on lower(name) can serve;
+-- pg_trgm ships with the official postgres images and is a trusted extension since PostgreSQL 13.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_users_name_trgm ON users USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_age ON users (age);
+CREATE INDEX IF NOT EXISTS idx_users_created_at ON users (created_at);
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.userservice.config;
+
+import com.userservice.cache.UserCacheInvalidator;
+import com.userservice.exception.UserNotFoundException;
+import com.userservice.kafka.UserEvent;
+import com.userservice.kafka.UserEventOutbox;
+import com.userservice.kafka.UserEventProducer;
+import com.userservice.mapper.UserMapper;
+import com.userservice.repository.UserCounterRepository;
+import com.userservice.repository.UserEmailIndexRepository;
+import com.userservice.repository.UserRepository;
+import com.userservice.service.UserService;
+import com.userservice.service.UserServiceImpl;
+import com.userservice.sharding.UserEmailIndex;
+import com.userservice.sharding.UserIdGenerator;
+import com.userservice.sharding.UserShards;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Metrics instrumentation tests")
+class MetricsConfigTest {
+
+    @Test
+    @DisplayName("UserService calls should be timed per method with an exception tag")
+    void userServiceCallsShouldBeTimed() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        UserRepository userRepository = mock(UserRepository.class);
+        UserCounterRepository counterRepository = mock(UserCounterRepository.class);
+        when(counterRepository.total()).thenReturn(3L);
+        when(userRepository.findDtoById(42L)).thenReturn(Optional.empty());
+        UserShards userShards = UserShards.single(new UserIdGenerator(0));
+        UserService userService = timed(registry, new UserServiceImpl(userRepository, counterRepository,
+                new UserMapper(), mock(UserEventOutbox.class), mock(UserCacheInvalidator.class), userShards,
+                new UserEmailIndex(userShards, userRepository, mock(UserEmailIndexRepository.class))));
+
+        assertEquals(3L, userService.getUserCount());
+        assertThrows(UserNotFoundException.class, () -> userService.getUserById(42L));
+
+        Timer count = registry.find(MetricsConfig.USER_SERVICE_TIMER)
+                .tags("method", "getUserCount", "exception", "none").timer();
+        Timer lookup = registry.find(MetricsConfig.USER_SERVICE_TIMER)
+                .tags("method", "getUserById", "exception", "UserNotFoundException").timer();
+        assertNotNull(count);
+        assertNotNull(lookup);
+        assertEquals(1, count.count());
+        assertEquals(1, lookup.count());
+    }
+
+    @Test
+    @DisplayName("Kafka sends should be timed from send to broker acknowledgement")
+    @SuppressWarnings("unchecked")
+    void eventSendsShouldBeTimedUntilAck() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        KafkaTemplate<String, UserEvent> kafkaTemplate = mock(KafkaTemplate.class);
+        CompletableFuture<SendResult<String, UserEvent>> acked = new CompletableFuture<>();
+        CompletableFuture<SendResult<String, UserEvent>> rejected = new CompletableFuture<>();
+        when(kafkaTemplate.send(any(), anyString(), any(UserEvent.class))).thenReturn(acked, rejected);
+        UserEventProducer producer = new UserEventProducer(kafkaTemplate, registry);
+        UserEvent event = new UserEvent("USER_CREATED", 1L, "a@example.com", "A", 20);
+
+        producer.publish(event);
+        producer.publish(event);
+        Timer success = registry.get(MetricsConfig.USER_EVENT_SEND_TIMER).tag("result", "success").timer();
+        assertEquals(0, success.count());
+
+        acked.complete(null);
+        rejected.completeExceptionally(new IllegalStateException("broker unavailable"));
+
+        assertEquals(1, success.count());
+        assertEquals(1, registry.get(MetricsConfig.USER_EVENT_SEND_TIMER).tag("result", "failure").timer().count());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Benchmark: cost of the @Timed aspect per call (-Dbenchmark=true)")
+    void benchmarkTimedAspectOverhead() {
+        // UserService methods log every call, which would drown the aspect; time a trivial target instead.
+        CountingTarget plain = new CountingTarget();
+        CountingTarget timed = timed(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), new CountingTarget());
+        int iterations = 1_000_000;
+        for (int round = 0; round < 10; round++) {
+            long plainNanos = measure(iterations, plain);
+            long timedNanos = measure(iterations, timed);
+            System.out.printf("round %d: plain %.1f ns/call, timed %.1f ns/call%n",
+                    round, (double) plainNanos / iterations, (double) timedNanos / iterations);
+        }
+    }
+
+    private static <T> T timed(MeterRegistry registry, T target) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", registry);
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(new MetricsConfig().timedBeansAdvisor(beanFactory.getBeanProvider(MeterRegistry.class)));
+        @SuppressWarnings("unchecked")
+        T proxy = (T) factory.getProxy();
+        return proxy;
+    }
+
+    private static long measure(int iterations, CountingTarget target) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += target.next(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink != (long) iterations * (iterations + 1) / 2) {
+            throw new IllegalStateException("Unexpected sum " + sink);
+        }
+        return elapsed;
+    }
+
+    @Timed(MetricsConfig.USER_SERVICE_TIMER)
+    static class CountingTarget {
+
+        public long next(long value) {
+            return value + 1;
+        }
+    }
+}
\ No newline at end of file
@@ -1,11 +1,20 @@
 package com.userservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.userservice.dto.UserBatchCreateDto;
+import com.userservice.dto.UserBatchItemDto;
+import com.userservice.dto.UserBatchResultDto;
 import com.userservice.dto.UserCreateDto;
 import com.userservice.dto.UserDto;
+import com.userservice.dto.UserLookupDto;
+import com.userservice.dto.UserLookupResultDto;
+import com.userservice.dto.UserPageDto;
+import com.userservice.dto.UserSearchCriteria;
 import com.userservice.dto.UserUpdateDto;
+import com.userservice.exception.PreconditionFailedException;
 import com.userservice.exception.UserAlreadyExistsException;
 import com.userservice.exception.UserNotFoundException;
+import com.userservice.exception.ValidationException;
 import com.userservice.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,14 +22,21 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -29,6 +45,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest
+@Import(UserLinks.class)
 @DisplayName("UserController API Test")
 class UserControllerTest {
 
@@ -90,6 +107,101 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.fieldErrors").exists());
     }
 
+    @Test
+    @DisplayName("POST /api/users/batch - должен вернуть результат по каждому пользователю")
+    void shouldCreateUsersInBatch() throws Exception {
+        UserCreateDto taken = new UserCreateDto("Taken", "taken@example.com", 40);
+        UserBatchResultDto result = new UserBatchResultDto(List.of(
+                UserBatchItemDto.created(0, testUserDto),
+                UserBatchItemDto.conflict(1, "taken@example.com", "Пользователь с email taken@example.com уже существует")));
+        when(userService.createUsers(anyList())).thenReturn(result);
+
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserBatchCreateDto(List.of(testCreateDto, taken)))))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.conflicts").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[0].user.id").value(1))
+                .andExpect(jsonPath("$.items[1].status").value("CONFLICT"))
+                .andExpect(jsonPath("$.items[1].user").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("POST /api/users/batch - должен вернуть 400 при невалидном элементе пакета")
+    void shouldRejectBatchWithInvalidItem() throws Exception {
+        UserCreateDto invalid = new UserCreateDto("A", "invalid", -1);
+
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserBatchCreateDto(List.of(testCreateDto, invalid)))))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fieldErrors['users[1].email']").exists());
+
+        verify(userService, never()).createUsers(anyList());
+    }
+
+    @Test
+    @DisplayName("POST /api/users/batch - должен вернуть 409 при нарушении уникальности email параллельным запросом")
+    void shouldReturnConflictOnConstraintViolation() throws Exception {
+        when(userService.createUsers(anyList()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserBatchCreateDto(List.of(testCreateDto)))))
+                .andDo(print())
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+    }
+
+    @Test
+    @DisplayName("GET /api/users?ids= - должен вернуть пользователей в порядке запроса и ненайденные ID")
+    void shouldGetUsersByIds() throws Exception {
+        when(userService.getUsersByIds(List.of(1L, 42L)))
+                .thenReturn(new UserLookupResultDto(List.of(testUserDto), List.of(42L)));
+
+        mockMvc.perform(get("/api/users").param("ids", "1,42"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", hasSize(1)))
+                .andExpect(jsonPath("$.users[0].id").value(1))
+                .andExpect(jsonPath("$.missingIds[0]").value(42));
+
+        verify(userService, never()).getUsers(any(), any());
+    }
+
+    @Test
+    @DisplayName("POST /api/users/lookup - должен вернуть пользователей по списку ID из тела запроса")
+    void shouldLookupUsersByIds() throws Exception {
+        when(userService.getUsersByIds(List.of(42L, 1L)))
+                .thenReturn(new UserLookupResultDto(List.of(testUserDto), List.of(42L)));
+
+        mockMvc.perform(post("/api/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserLookupDto(List.of(42L, 1L)))))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].email").value("test@email.com"))
+                .andExpect(jsonPath("$.missingIds", contains(42)));
+    }
+
+    @Test
+    @DisplayName("POST /api/users/lookup - должен вернуть 400 при пустом списке ID")
+    void shouldRejectEmptyLookup() throws Exception {
+        mockMvc.perform(post("/api/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserLookupDto(List.of()))))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fieldErrors.ids").exists());
+
+        verify(userService, never()).getUsersByIds(anyList());
+    }
+
     @Test
     @DisplayName("GET /api/users/{id} - должен вернуть пользователя")
     void shouldGetUserById() throws Exception {
@@ -102,6 +214,49 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.name").value("John Doe"));
     }
 
+    @Test
+    @DisplayName("GET /api/users/{id} - должен вернуть ETag и 304 для актуального If-None-Match")
+    void shouldReturnNotModifiedForCurrentEtag() throws Exception {
+        testUserDto.setVersion(3L);
+        testUserDto.setUpdatedAt(LocalDateTime.of(2025, 11, 20, 18, 13, 24));
+        when(userService.getUserById(1L)).thenReturn(testUserDto);
+
+        mockMvc.perform(get("/api/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(jsonPath("$.version").doesNotExist());
+
+        mockMvc.perform(get("/api/users/1").header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/users/1").header("If-None-Match", "\"1-2\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    @DisplayName("PUT /api/users/{id} - должен вернуть 412 для устаревшего If-Match")
+    void shouldRejectUpdateWithStaleIfMatch() throws Exception {
+        UserUpdateDto updateDto = new UserUpdateDto("John Smith", null, 31);
+        when(userService.updateUser(eq(1L), any(UserUpdateDto.class), eq(2L)))
+                .thenThrow(new PreconditionFailedException(1L));
+
+        mockMvc.perform(put("/api/users/1")
+                        .header("If-Match", "\"1-2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateDto)))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(patch("/api/users/1")
+                        .header("If-Match", "W/\"1-2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateDto)))
+                .andExpect(status().isPreconditionFailed());
+        verify(userService, times(1)).updateUser(any(), any(), any());
+    }
+
     @Test
     @DisplayName("GET /api/users/{id} - должен вернуть 404 если не найден")
     void shouldReturn404WhenNotFound() throws Exception {
@@ -113,7 +268,7 @@ class UserControllerTest {
     }
 
     @Test
-    @DisplayName("GET /api/users - должен вернуть всех пользователей")
+    @DisplayName("GET /api/users - должен вернуть страницу пользователей")
     void shouldGetAllUsers() throws Exception {
         UserDto user2 = new UserDto();
         user2.setId(2L);
@@ -121,12 +276,123 @@ class UserControllerTest {
         user2.setEmail("jane@example.com");
 
         List<UserDto> users = Arrays.asList(testUserDto, user2);
-        when(userService.getAllUsers()).thenReturn(users);
+        when(userService.getUsers(null, null)).thenReturn(new UserPageDto(users, null));
 
         mockMvc.perform(get("/api/users"))
                 .andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)));
+                .andExpect(jsonPath("$._embedded.userDtoList", hasSize(2)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/users - должен вернуть курсор и ссылку на следующую страницу")
+    void shouldReturnNextCursorWhenMorePagesExist() throws Exception {
+        when(userService.getUsers("aWQ6MA", 1)).thenReturn(new UserPageDto(List.of(testUserDto), "aWQ6MQ"));
+
+        mockMvc.perform(get("/api/users").param("cursor", "aWQ6MA").param("size", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userDtoList", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor").value("aWQ6MQ"))
+                .andExpect(jsonPath("$._links.next.href").value(containsString("cursor=aWQ6MQ")))
+                .andExpect(jsonPath("$._links.next.href").value(containsString("size=1")));
+    }
+
+    @Test
+    @DisplayName("GET /api/users - должен вернуть 400 при некорректном курсоре")
+    void shouldReturn400WhenCursorInvalid() throws Exception {
+        when(userService.getUsers("broken", null)).thenThrow(new ValidationException("Некорректный курсор страницы"));
+
+        mockMvc.perform(get("/api/users").param("cursor", "broken"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/users/search - должен передать фильтры в сервис и сохранить их в ссылке на следующую страницу")
+    void shouldSearchUsers() throws Exception {
+        UserSearchCriteria criteria = new UserSearchCriteria("test", 18, 30,
+                LocalDateTime.of(2024, 1, 1, 0, 0), null);
+        when(userService.searchUsers(criteria, null, 1)).thenReturn(new UserPageDto(List.of(testUserDto), "aWQ6MQ"));
+
+        mockMvc.perform(get("/api/users/search")
+                        .param("name", "test")
+                        .param("minAge", "18")
+                        .param("maxAge", "30")
+                        .param("createdFrom", "2024-01-01T00:00:00")
+                        .param("size", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userDtoList", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor").value("aWQ6MQ"))
+                .andExpect(jsonPath("$._links.next.href").value(containsString("cursor=aWQ6MQ")))
+                .andExpect(jsonPath("$._links.next.href").value(containsString("minAge=18")))
+                .andExpect(jsonPath("$._links.next.href").value(containsString("name=test")));
+    }
+
+    @Test
+    @DisplayName("GET /api/users/search - должен вернуть 400 при некорректном диапазоне возраста")
+    void shouldReturn400WhenSearchRangeInvalid() throws Exception {
+        when(userService.searchUsers(any(UserSearchCriteria.class), any(), any()))
+                .thenThrow(new ValidationException("Минимальный возраст не может быть больше максимального"));
+
+        mockMvc.perform(get("/api/users/search").param("minAge", "40").param("maxAge", "20"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/users/count - должен вернуть значение счетчика по умолчанию")
+    void shouldGetUserCountFromCounterByDefault() throws Exception {
+        when(userService.getUserCount()).thenReturn(5L);
+
+        mockMvc.perform(get("/api/users/count"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("5"));
+
+        verify(userService, never()).getExactUserCount();
+    }
+
+    @Test
+    @DisplayName("GET /api/users/count?mode=exact - должен пересчитать пользователей по таблице")
+    void shouldGetExactUserCount() throws Exception {
+        when(userService.getExactUserCount()).thenReturn(6L);
+
+        mockMvc.perform(get("/api/users/count").param("mode", "exact"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("6"));
+
+        mockMvc.perform(get("/api/users/count").param("mode", "approximate"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/users/export - должен выгрузить пользователей в формате NDJSON")
+    void shouldExportUsersAsNdjson() throws Exception {
+        UserDto user2 = new UserDto();
+        user2.setId(2L);
+        user2.setName("Jane Doe");
+        user2.setEmail("jane@example.com");
+        when(userService.exportUsers(any())).thenAnswer(invocation -> {
+            Consumer<UserDto> sink = invocation.getArgument(0);
+            sink.accept(testUserDto);
+            sink.accept(user2);
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/users/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals("Jane Doe", objectMapper.readTree(lines[1]).get("name").asText());
+        assertFalse(lines[0].contains("_links"));
     }
 
     @Test
@@ -142,7 +408,7 @@ class UserControllerTest {
         updatedUser.setEmail("john@example.com");
         updatedUser.setAge(31);
 
-        when(userService.updateUser(eq(1L), any(UserUpdateDto.class))).thenReturn(updatedUser);
+        when(userService.updateUser(eq(1L), any(UserUpdateDto.class), isNull())).thenReturn(updatedUser);
 
         mockMvc.perform(put("/api/users/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,111 @@
+package com.userservice.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@DisplayName("UserLinks tests")
+class UserLinksTest {
+
+    private final UserLinks userLinks = new UserLinks();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Links should match methodOn links for a plain request")
+    void linksShouldMatchMethodOnLinks() {
+        bindRequest("http", "localhost", 80, "");
+        assertSameLinks(1L);
+        assertSameLinks(9_223_372_036_854_775_807L);
+    }
+
+    @Test
+    @DisplayName("Links should keep port and context path of the current request")
+    void linksShouldKeepPortAndContextPath() {
+        bindRequest("https", "users.example.com", 8443, "/user-service");
+        assertSameLinks(42L);
+    }
+
+    @Test
+    @DisplayName("Links should be relative outside of a request")
+    void linksShouldBeRelativeOutsideOfRequest() {
+        assertSameLinks(7L);
+        assertEquals("/api/users/7", userLinks.self(7L).getHref());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Benchmark: precomputed links vs methodOn (-Dbenchmark=true)")
+    void benchmarkAgainstMethodOn() {
+        bindRequest("http", "localhost", 8081, "");
+        int iterations = 200_000;
+        for (int round = 0; round < 3; round++) {
+            long methodOnNanos = measure(iterations, id -> List.of(
+                    linkTo(methodOn(UserController.class).getUserById(id, null)).withSelfRel(),
+                    linkTo(methodOn(UserController.class).updateUser(id, null, null)).withRel("update"),
+                    linkTo(methodOn(UserController.class).deleteUser(id)).withRel("delete")));
+            long precomputedNanos = measure(iterations, id -> List.of(
+                    userLinks.self(id), userLinks.update(id), userLinks.delete(id)));
+            System.out.printf("round %d: methodOn %.0f ns/user, precomputed %.0f ns/user%n",
+                    round, (double) methodOnNanos / iterations, (double) precomputedNanos / iterations);
+        }
+    }
+
+    private void assertSameLinks(Long id) {
+        assertSame(() -> linkTo(methodOn(UserController.class).getUserById(id, null)).withSelfRel(), userLinks.self(id));
+        assertSame(() -> linkTo(methodOn(UserController.class).getUserById(id, null)).withRel("user"), userLinks.user(id));
+        assertSame(() -> linkTo(methodOn(UserController.class).updateUser(id, null, null)).withRel("update"), userLinks.update(id));
+        assertSame(() -> linkTo(methodOn(UserController.class).patchUser(id, null, null)).withRel("patch"), userLinks.patch(id));
+        assertSame(() -> linkTo(methodOn(UserController.class).deleteUser(id)).withRel("delete"), userLinks.delete(id));
+        assertSame(() -> linkTo(methodOn(UserController.class).getAllUsers(null, null)).withRel("users"), userLinks.users());
+        assertSame(() -> linkTo(methodOn(UserController.class).createUser(null)).withRel("create"), userLinks.create());
+        assertSame(() -> linkTo(methodOn(UserController.class).getUserCount(null)).withRel("count").expand(), userLinks.count());
+        assertEquals(IanaLinkRelations.SELF, userLinks.self(id).getRel());
+    }
+
+    private void assertSame(Supplier<Link> expected, Link actual) {
+        Link link = expected.get();
+        assertEquals(link.getHref(), actual.getHref());
+        assertEquals(link.getRel(), actual.getRel());
+        assertEquals(link.isTemplated(), actual.isTemplated());
+    }
+
+    private void bindRequest(String scheme, String host, int port, String contextPath) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", contextPath + "/api/users");
+        request.setScheme(scheme);
+        request.setServerName(host);
+        request.setServerPort(port);
+        request.setContextPath(contextPath);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private long measure(int iterations, LongFunction<List<Link>> links) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += links.apply(i).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink != 3L * iterations) {
+            throw new IllegalStateException("Unexpected link count " + sink);
+        }
+        return elapsed;
+    }
+}
\ No newline at end of file
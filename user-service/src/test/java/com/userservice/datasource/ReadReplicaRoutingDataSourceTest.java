@@ -0,0 +1,175 @@
+package com.userservice.datasource;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ReadReplicaRoutingDataSource unit tests")
+class ReadReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replicaA;
+    private DataSource replicaB;
+    private Connection primaryConnection;
+    private Connection replicaAConnection;
+    private Connection replicaBConnection;
+    private ReadReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replicaA = mock(DataSource.class);
+        replicaB = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaAConnection = mock(Connection.class);
+        replicaBConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replicaA.getConnection()).thenReturn(replicaAConnection);
+        when(replicaB.getConnection()).thenReturn(replicaBConnection);
+        routing = new ReadReplicaRoutingDataSource(primary, List.of(replicaA, replicaB), 1);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("read-only transactions should alternate between replicas")
+    void readOnlyTransactionsShouldRoundRobinReplicas() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaAConnection, routing.getConnection());
+        assertSame(replicaBConnection, routing.getConnection());
+        assertSame(replicaAConnection, routing.getConnection());
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    @DisplayName("write transactions should use the primary")
+    void writeTransactionsShouldUsePrimary() throws SQLException {
+        assertSame(primaryConnection, routing.getConnection());
+        verifyNoInteractions(replicaA, replicaB);
+    }
+
+    @Test
+    @DisplayName("a replica refusing connections should be skipped until a health check passes")
+    void failedReplicaShouldLeaveRotationUntilHealthy() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(replicaA.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        assertSame(replicaBConnection, routing.getConnection());
+        assertSame(replicaBConnection, routing.getConnection());
+        assertEquals(1, routing.healthyReplicas());
+
+        reset(replicaA);
+        when(replicaA.getConnection()).thenReturn(replicaAConnection);
+        when(replicaAConnection.isValid(1)).thenReturn(true);
+        when(replicaBConnection.isValid(1)).thenReturn(true);
+        routing.checkReplicas();
+
+        assertEquals(2, routing.healthyReplicas());
+    }
+
+    @Test
+    @DisplayName("reads should fall back to the primary when no replica is healthy")
+    void readsShouldFallBackToPrimary() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(replicaA.getConnection()).thenThrow(new SQLException("down"));
+        when(replicaB.getConnection()).thenThrow(new SQLException("down"));
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(0, routing.healthyReplicas());
+    }
+
+    @Test
+    @DisplayName("reads that fill the shared caches should use the primary without pinning the request")
+    void cacheLoadsShouldReadFromPrimary() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(2000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Connection[] connections = new Connection[2];
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users/1"), response, (req, res) -> {
+            try {
+                connections[0] = PrimaryReads.call(() -> {
+                    try {
+                        return routing.getConnection();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                connections[1] = routing.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertSame(primaryConnection, connections[0]);
+        assertSame(replicaAConnection, connections[1]);
+        assertNull(response.getCookie(ReadYourWritesFilter.COOKIE_NAME));
+    }
+
+    @Test
+    @DisplayName("a write should pin the rest of the request to the primary and set the sticky cookie")
+    void writeShouldPinRequestToPrimary() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(2000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Connection[] readAfterWrite = new Connection[1];
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/users"), response, (req, res) -> {
+            try {
+                routing.getConnection();
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+                readAfterWrite[0] = routing.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertSame(primaryConnection, readAfterWrite[0]);
+        assertNotNull(response.getCookie(ReadYourWritesFilter.COOKIE_NAME));
+    }
+
+    @Test
+    @DisplayName("a request with a live sticky cookie should read from the primary, an expired one from a replica")
+    void stickyCookieShouldPinReadsWithinWindow() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(2000);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, readThrough(filter, System.currentTimeMillis() + 1000));
+        assertSame(replicaAConnection, readThrough(filter, System.currentTimeMillis() - 1));
+        assertSame(replicaBConnection, readThrough(filter, Long.MAX_VALUE));
+    }
+
+    private Connection readThrough(ReadYourWritesFilter filter, long pinnedUntil) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, Long.toString(pinnedUntil)));
+        Connection[] connection = new Connection[1];
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            try {
+                connection[0] = routing.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return connection[0];
+    }
+}
\ No newline at end of file
@@ -80,7 +80,7 @@ class UserEventProducerTest {
     }
 
     @Test
-    void testSendUserCreatedEvent() throws InterruptedException {
+    void testPublishUserCreatedEvent() throws InterruptedException {
         // Given
         UserEvent event = new UserEvent(
                 "USER_CREATED",
@@ -91,7 +91,7 @@ class UserEventProducerTest {
         );
 
         // When
-        userEventProducer.sendUserCreatedEvent(event);
+        userEventProducer.publish(event);
 
         // Then
         ConsumerRecord<String, UserEvent> received = records.poll(10, TimeUnit.SECONDS);
@@ -104,7 +104,7 @@ class UserEventProducerTest {
     }
 
     @Test
-    void testSendUserDeletedEvent() throws InterruptedException {
+    void testPublishUserDeletedEvent() throws InterruptedException {
         // Given
         UserEvent event = new UserEvent(
                 "USER_DELETED",
@@ -115,7 +115,7 @@ class UserEventProducerTest {
         );
 
         // When
-        userEventProducer.sendUserDeletedEvent(event);
+        userEventProducer.publish(event);
 
         // Then
         ConsumerRecord<String, UserEvent> received = records.poll(10, TimeUnit.SECONDS);
@@ -0,0 +1,81 @@
+package com.userservice.kafka;
+
+import com.userservice.entity.UserOutboxEvent;
+import com.userservice.repository.UserOutboxRepository;
+import com.userservice.sharding.UserIdGenerator;
+import com.userservice.sharding.UserShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("UserOutboxRelay unit tests")
+class UserOutboxRelayTest {
+
+    private UserOutboxRepository outboxRepository;
+    private UserEventProducer eventProducer;
+    private PlatformTransactionManager transactionManager;
+    private UserOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(UserOutboxRepository.class);
+        eventProducer = mock(UserEventProducer.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        relay = new UserOutboxRelay(outboxRepository, eventProducer, UserShards.single(new UserIdGenerator(0)), transactionManager);
+    }
+
+    @Test
+    @DisplayName("relayBatch should publish locked events and delete them once acknowledged")
+    void relayBatchShouldPublishAndDeleteAcknowledgedEvents() {
+        when(outboxRepository.lockNextBatch(anyInt()))
+                .thenReturn(List.of(outboxEvent(1L, "USER_CREATED", 10L), outboxEvent(2L, "USER_DELETED", 11L)));
+        when(eventProducer.publish(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        int published = relay.relayBatch();
+
+        assertEquals(2, published);
+        ArgumentCaptor<UserEvent> captor = ArgumentCaptor.forClass(UserEvent.class);
+        verify(eventProducer, times(2)).publish(captor.capture());
+        assertEquals("USER_CREATED", captor.getAllValues().get(0).getEventType());
+        assertEquals(11L, captor.getAllValues().get(1).getUserId());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("relayBatch should keep events in the outbox when Kafka rejects the batch")
+    void relayBatchShouldKeepEventsWhenSendFails() {
+        when(outboxRepository.lockNextBatch(anyInt())).thenReturn(List.of(outboxEvent(1L, "USER_CREATED", 10L)));
+        when(eventProducer.publish(any())).thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        assertThrows(IllegalStateException.class, () -> relay.relayBatch());
+
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    @DisplayName("relay should stop when the outbox is empty")
+    void relayShouldStopWhenOutboxIsEmpty() {
+        when(outboxRepository.lockNextBatch(anyInt())).thenReturn(List.of());
+
+        relay.relay();
+
+        verify(outboxRepository).lockNextBatch(anyInt());
+        verifyNoInteractions(eventProducer);
+    }
+
+    private UserOutboxEvent outboxEvent(Long id, String type, Long userId) {
+        UserOutboxEvent outboxEvent = UserOutboxEvent.from(new UserEvent(type, userId, "user" + userId + "@example.com", "User", 30));
+        outboxEvent.setId(id);
+        return outboxEvent;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.userservice.repository;
+
+import com.userservice.dto.UserDto;
+import com.userservice.entity.User;
+import com.userservice.mapper.UserMapper;
+import com.userservice.sharding.UserIdGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.cloud.config.enabled=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Benchmark: entity hydration vs DTO projection (-Dbenchmark=true)")
+class UserProjectionBenchmarkTest {
+
+    private static final int USERS = 1_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int ITERATIONS = 2_000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("benchdb")
+            .withUsername("bench")
+            .withPassword("bench");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final UserMapper userMapper = new UserMapper();
+
+    @Test
+    void compareReadPaths() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Long> ids = transaction.execute(status -> {
+            UserIdGenerator idGenerator = new UserIdGenerator(0);
+            List<User> users = new ArrayList<>(USERS);
+            for (int i = 0; i < USERS; i++) {
+                User user = new User("User " + i, "bench" + i + "@example.com", 20 + i % 50);
+                user.setId(idGenerator.nextId(0));
+                users.add(user);
+            }
+            return userRepository.saveAll(users).stream().map(User::getId).toList();
+        });
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Long id = ids.get(USERS / 2);
+
+        assertEquals(
+                readOnly.execute(status -> userMapper.toDto(userRepository.findById(id).orElseThrow())).getEmail(),
+                readOnly.execute(status -> userRepository.findDtoById(id).orElseThrow()).getEmail());
+
+        for (int round = 0; round < 3; round++) {
+            report("findById       entity", () -> readOnly.execute(status ->
+                    userMapper.toDto(userRepository.findById(id).orElseThrow())));
+            report("findById       dto   ", () -> readOnly.execute(status ->
+                    userRepository.findDtoById(id).orElseThrow()));
+            report("page of " + PAGE_SIZE + "    entity", () -> readOnly.execute(status ->
+                    userRepository.findAll(PageRequest.of(0, PAGE_SIZE, Sort.by("id"))).map(userMapper::toDto).getContent()));
+            report("page of " + PAGE_SIZE + "    dto   ", () -> readOnly.execute(status ->
+                    userRepository.findDtoPage(Limit.of(PAGE_SIZE))));
+        }
+    }
+
+    private void report(String name, Supplier<Object> operation) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.out.printf("%s: %8.1f us/op, %10d B/op%n", name, elapsed / 1_000.0 / ITERATIONS, allocated / ITERATIONS);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.userservice.repository;
+
+import com.userservice.dto.UserDto;
+import com.userservice.dto.UserSearchCriteria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards the indexes from schema-postgresql.sql: each search filter has to be served by its
+ * index on a table big enough for the planner to prefer it over a sequential scan.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("User search query plans")
+class UserSearchQueryPlanTest {
+
+    private static final int USERS = 20_000;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("plandb")
+            .withUsername("plan")
+            .withPassword("plan");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void fillUsers() {
+        // One user a minute; ages 20..69 except every 5000th user, who is 95.
+        jdbcTemplate.update("""
+                INSERT INTO users (id, name, email, age, created_at, updated_at, version)
+                SELECT g, CASE WHEN g % 5000 = 0 THEN 'Zebediah ' || g ELSE 'User ' || g END,
+                       'user' || g || '@example.com', CASE WHEN g % 5000 = 0 THEN 95 ELSE 20 + g % 50 END,
+                       CAST(? AS timestamp) + g * INTERVAL '1 minute', CAST(? AS timestamp) + g * INTERVAL '1 minute', 0
+                FROM generate_series(1, ?) AS g
+                """, EPOCH, EPOCH, USERS);
+        jdbcTemplate.execute("ANALYZE users");
+    }
+
+    @Test
+    @DisplayName("name fragment uses the trigram index")
+    void nameSearchUsesTrigramIndex() {
+        UserSearchCriteria criteria = new UserSearchCriteria("ZEBED", null, null, null, null);
+
+        assertPlanUses(criteria, "idx_users_name_trgm");
+        assertIds(criteria, 5000L, 10000L, 15000L, 20000L);
+    }
+
+    @Test
+    @DisplayName("age range uses the age index")
+    void ageSearchUsesAgeIndex() {
+        UserSearchCriteria criteria = new UserSearchCriteria(null, 90, 100, null, null);
+
+        assertPlanUses(criteria, "idx_users_age");
+        assertIds(criteria, 5000L, 10000L, 15000L, 20000L);
+    }
+
+    @Test
+    @DisplayName("signup window uses the created_at index")
+    void signupWindowUsesCreatedAtIndex() {
+        UserSearchCriteria criteria = new UserSearchCriteria(null, null, null,
+                EPOCH.plusMinutes(100), EPOCH.plusMinutes(103));
+
+        assertPlanUses(criteria, "idx_users_created_at");
+        assertIds(criteria, 100L, 101L, 102L);
+    }
+
+    @Test
+    @DisplayName("name wildcards are matched literally")
+    void nameWildcardsAreEscaped() {
+        assertTrue(userRepository.searchPage(new UserSearchCriteria("%", null, null, null, null), null, 10).isEmpty());
+        assertTrue(userRepository.searchPage(new UserSearchCriteria("User_1", null, null, null, null), null, 10).isEmpty());
+    }
+
+    private void assertPlanUses(UserSearchCriteria criteria, String index) {
+        UserRepositoryImpl.SearchQuery query = UserRepositoryImpl.searchQuery(criteria, null, 21);
+        String plan = String.join("\n",
+                jdbcTemplate.queryForList("EXPLAIN " + query.sql(), String.class, query.args()));
+        assertTrue(plan.contains(index), () -> "expected " + index + " in plan:\n" + plan);
+    }
+
+    private void assertIds(UserSearchCriteria criteria, Long... expected) {
+        List<Long> ids = userRepository.searchPage(criteria, null, 21).stream().map(UserDto::getId).toList();
+        assertEquals(List.of(expected), ids);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,167 @@
+package com.userservice.service;
+
+import com.userservice.cache.UserCacheInvalidator;
+import com.userservice.dto.UserCreateDto;
+import com.userservice.dto.UserDto;
+import com.userservice.dto.UserPageDto;
+import com.userservice.dto.UserUpdateDto;
+import com.userservice.entity.User;
+import com.userservice.entity.UserEmailIndexEntry;
+import com.userservice.exception.UserAlreadyExistsException;
+import com.userservice.exception.UserNotFoundException;
+import com.userservice.kafka.UserEventOutbox;
+import com.userservice.mapper.UserMapper;
+import com.userservice.repository.UserCounterRepository;
+import com.userservice.repository.UserEmailIndexRepository;
+import com.userservice.repository.UserRepository;
+import com.userservice.repository.UserUpdateResult;
+import com.userservice.sharding.UserEmailIndex;
+import com.userservice.sharding.UserIdGenerator;
+import com.userservice.sharding.UserShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("UserServiceImpl tests with two shards")
+class ShardedUserServiceTest {
+
+    private UserRepository userRepository;
+    private UserCounterRepository userCounterRepository;
+    private UserEmailIndexRepository indexRepository;
+    private UserShards userShards;
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userCounterRepository = mock(UserCounterRepository.class);
+        indexRepository = mock(UserEmailIndexRepository.class);
+        // One fan-out thread queries the shards in order, so the stubbed answers line up with them
+        userShards = new UserShards(2, new UserIdGenerator(0), mock(PlatformTransactionManager.class),
+                Executors.newSingleThreadExecutor());
+        userService = new UserServiceImpl(userRepository, userCounterRepository, new UserMapper(), mock(UserEventOutbox.class),
+                mock(UserCacheInvalidator.class), userShards, new UserEmailIndex(userShards, userRepository, indexRepository));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userShards.close();
+    }
+
+    @Test
+    @DisplayName("createUser should store the user and its index entry on the shard of the email")
+    void createUserShouldUseShardOfEmail() {
+        String email = emailOnShard(1);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        UserDto created = userService.createUser(new UserCreateDto("Sharded", email, 30));
+
+        assertEquals(1, userShards.shardOf(created.getId()));
+        ArgumentCaptor<Iterable<UserEmailIndexEntry>> entries = ArgumentCaptor.forClass(Iterable.class);
+        verify(indexRepository).saveAll(entries.capture());
+        UserEmailIndexEntry entry = entries.getValue().iterator().next();
+        assertEquals(email, entry.getEmail());
+        assertEquals(created.getId(), entry.getUserId());
+        verify(userRepository, never()).existsByEmail(any());
+    }
+
+    @Test
+    @DisplayName("createUser should reject an email whose index entry names a user that still has it")
+    void createUserShouldRejectIndexedEmail() {
+        String email = emailOnShard(0);
+        long ownerId = userShards.nextId(1);
+        when(indexRepository.findAllById(any())).thenReturn(List.of(new UserEmailIndexEntry(email, ownerId)));
+        when(userRepository.findDtoById(ownerId)).thenReturn(Optional.of(dto(ownerId, email)));
+
+        assertThrows(UserAlreadyExistsException.class, () -> userService.createUser(new UserCreateDto("Twin", email, 30)));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("getUsers should merge the pages of the shards in id order")
+    void getUsersShouldMergeShardPages() {
+        long a = userShards.nextId(0);
+        long b = userShards.nextId(1);
+        long c = userShards.nextId(0);
+        long d = userShards.nextId(1);
+        when(userRepository.findDtoPage(any(Limit.class)))
+                .thenReturn(List.of(dto(a, "a@example.com"), dto(c, "c@example.com")))
+                .thenReturn(List.of(dto(b, "b@example.com"), dto(d, "d@example.com")));
+
+        UserPageDto page = userService.getUsers(null, 3);
+
+        // Ids order by time first, then by shard, whatever the order they were generated in
+        assertEquals(LongStream.of(a, b, c, d).sorted().limit(3).boxed().toList(),
+                page.getContent().stream().map(UserDto::getId).toList());
+        assertTrue(page.hasNext());
+    }
+
+    @Test
+    @DisplayName("getUserByEmail should find the user through the index and ignore stale entries")
+    void getUserByEmailShouldUseIndex() {
+        long id = userShards.nextId(1);
+        when(indexRepository.findById("found@example.com"))
+                .thenReturn(Optional.of(new UserEmailIndexEntry("found@example.com", id)));
+        when(indexRepository.findById("stale@example.com"))
+                .thenReturn(Optional.of(new UserEmailIndexEntry("stale@example.com", id)));
+        when(userRepository.findDtoById(id)).thenReturn(Optional.of(dto(id, "found@example.com")));
+
+        assertEquals(id, userService.getUserByEmail("found@example.com").getId());
+        assertThrows(UserNotFoundException.class, () -> userService.getUserByEmail("stale@example.com"));
+        verify(userRepository, never()).findDtoByEmail(any());
+    }
+
+    @Test
+    @DisplayName("updateUser should claim the new email and release the previous one")
+    void updateUserShouldMoveIndexEntry() {
+        long id = userShards.nextId(0);
+        UserUpdateDto updateDto = new UserUpdateDto(null, "new@example.com", null);
+        UserEmailIndexEntry previousEntry = new UserEmailIndexEntry("old@example.com", id);
+        when(userRepository.updateReturning(id, updateDto, null))
+                .thenReturn(Optional.of(new UserUpdateResult(dto(id, "new@example.com"), "old@example.com")));
+        when(userRepository.findDtoById(id)).thenReturn(Optional.of(dto(id, "new@example.com")));
+        when(indexRepository.findById("old@example.com")).thenReturn(Optional.of(previousEntry));
+
+        userService.updateUser(id, updateDto);
+
+        ArgumentCaptor<Iterable<UserEmailIndexEntry>> entries = ArgumentCaptor.forClass(Iterable.class);
+        verify(indexRepository).saveAll(entries.capture());
+        assertEquals("new@example.com", entries.getValue().iterator().next().getEmail());
+        verify(indexRepository).delete(previousEntry);
+    }
+
+    @Test
+    @DisplayName("getExactUserCount should add up the shards")
+    void getExactUserCountShouldSumShards() {
+        when(userRepository.count()).thenReturn(3L, 4L);
+
+        assertEquals(7L, userService.getExactUserCount());
+    }
+
+    private String emailOnShard(int shard) {
+        for (int i = 0; ; i++) {
+            String email = "user" + i + "@example.com";
+            if (userShards.shardOfEmail(email) == shard) {
+                return email;
+            }
+        }
+    }
+
+    private static UserDto dto(long id, String email) {
+        return new UserDto(id, "User", email, 30, LocalDateTime.now());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,222 @@
+package com.userservice.service;
+
+import com.userservice.cache.UserCacheInvalidator;
+import com.userservice.config.CacheConfig;
+import com.userservice.dto.UserDto;
+import com.userservice.dto.UserUpdateDto;
+import com.userservice.entity.User;
+import com.userservice.exception.UserNotFoundException;
+import com.userservice.kafka.UserEvent;
+import com.userservice.kafka.UserEventCacheListener;
+import com.userservice.kafka.UserEventOutbox;
+import com.userservice.mapper.UserMapper;
+import com.userservice.repository.UserCounterRepository;
+import com.userservice.repository.UserEmailIndexRepository;
+import com.userservice.repository.UserRepository;
+import com.userservice.repository.UserUpdateResult;
+import com.userservice.sharding.UserEmailIndex;
+import com.userservice.sharding.UserIdGenerator;
+import com.userservice.sharding.UserShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(UserServiceCachingTest.Config.class)
+@TestPropertySource(properties = "spring.cache.caffeine.spec=maximumSize=100,recordStats")
+@DisplayName("UserService caching tests")
+class UserServiceCachingTest {
+
+    @Import({CacheConfig.class, UserCacheInvalidator.class, UserEventCacheListener.class, UserMapper.class, UserEmailIndex.class})
+    static class Config {
+
+        @Bean
+        UserRepository userRepository() {
+            return mock(UserRepository.class);
+        }
+
+        @Bean
+        UserCounterRepository userCounterRepository() {
+            return mock(UserCounterRepository.class);
+        }
+
+        @Bean
+        UserEventOutbox userEventOutbox() {
+            return mock(UserEventOutbox.class);
+        }
+
+        @Bean
+        UserEmailIndexRepository userEmailIndexRepository() {
+            return mock(UserEmailIndexRepository.class);
+        }
+
+        @Bean
+        UserShards userShards() {
+            return UserShards.single(new UserIdGenerator(0));
+        }
+
+        @Bean
+        UserServiceImpl userService(UserRepository userRepository, UserCounterRepository userCounterRepository, UserMapper userMapper,
+                                    UserEventOutbox eventOutbox, UserCacheInvalidator cacheInvalidator,
+                                    UserShards userShards, UserEmailIndex emailIndex) {
+            return new UserServiceImpl(userRepository, userCounterRepository, userMapper, eventOutbox, cacheInvalidator,
+                    userShards, emailIndex);
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private UserEventCacheListener cacheListener;
+
+    private User stored;
+    private UserDto storedDto;
+
+    @BeforeEach
+    void setUp() {
+        reset(userRepository);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        stored = new User(7L, "Cached", "cached@example.com", 35, LocalDateTime.now());
+        storedDto = new UserDto(7L, "Cached", "cached@example.com", 35, stored.getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("getUserById should hit the database only on the first call")
+    void getUserByIdShouldBeCached() {
+        when(userRepository.findDtoById(7L)).thenReturn(Optional.of(storedDto));
+
+        UserDto first = userService.getUserById(7L);
+        UserDto second = userService.getUserById(7L);
+
+        assertEquals(first, second);
+        verify(userRepository, times(1)).findDtoById(7L);
+    }
+
+    @Test
+    @DisplayName("getUserByEmail should hit the database only on the first call")
+    void getUserByEmailShouldBeCached() {
+        when(userRepository.findDtoByEmail("cached@example.com")).thenReturn(Optional.of(storedDto));
+
+        userService.getUserByEmail("cached@example.com");
+        userService.getUserByEmail("cached@example.com");
+
+        verify(userRepository, times(1)).findDtoByEmail("cached@example.com");
+    }
+
+    @Test
+    @DisplayName("concurrent misses for the same id should collapse into one load")
+    void concurrentMissesShouldLoadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        when(userRepository.findDtoById(7L)).thenAnswer(invocation -> {
+            loading.await(5, TimeUnit.SECONDS);
+            return Optional.of(storedDto);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<UserDto>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> userService.getUserById(7L)));
+            }
+            Thread.sleep(200);
+            loading.countDown();
+            for (Future<UserDto> result : results) {
+                assertEquals(7L, result.get(5, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(userRepository, times(1)).findDtoById(7L);
+    }
+
+    @Test
+    @DisplayName("evicting a key that is being loaded should not wait for the load nor cache its result")
+    void evictDuringLoadShouldNotWaitNorCacheStaleRow() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch finishLoad = new CountDownLatch(1);
+        when(userRepository.findDtoById(7L)).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            finishLoad.await(5, TimeUnit.SECONDS);
+            return Optional.of(storedDto);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<UserDto> reader = executor.submit(() -> userService.getUserById(7L));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+            Future<?> evict = executor.submit(() -> cacheManager.getCache(CacheConfig.USERS_BY_ID).evict(7L));
+            evict.get(1, TimeUnit.SECONDS);
+            finishLoad.countDown();
+
+            assertEquals(7L, reader.get(5, TimeUnit.SECONDS).getId());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertNull(cacheManager.getCache(CacheConfig.USERS_BY_ID).get(7L));
+    }
+
+    @Test
+    @DisplayName("a failed load should reach the caller and not be cached")
+    void failedLoadShouldNotBeCached() {
+        when(userRepository.findDtoById(7L)).thenReturn(Optional.empty()).thenReturn(Optional.of(storedDto));
+
+        assertThrows(UserNotFoundException.class, () -> userService.getUserById(7L));
+        assertEquals(7L, userService.getUserById(7L).getId());
+        verify(userRepository, times(2)).findDtoById(7L);
+    }
+
+    @Test
+    @DisplayName("updateUser should evict entries cached under the id and the old email")
+    void updateUserShouldEvictCachedEntries() {
+        when(userRepository.updateReturning(eq(7L), any(UserUpdateDto.class), isNull())).thenAnswer(invocation -> {
+            stored.setName("Renamed");
+            UserDto updated = new UserDto(7L, "Renamed", stored.getEmail(), stored.getAge(), stored.getCreatedAt());
+            return Optional.of(new UserUpdateResult(updated, "cached@example.com"));
+        });
+        when(userRepository.findDtoById(7L)).thenAnswer(invocation -> Optional.of(new UserDto(7L, stored.getName(), stored.getEmail(), stored.getAge(), stored.getCreatedAt())));
+        when(userRepository.findDtoByEmail("cached@example.com")).thenReturn(Optional.of(storedDto));
+        userService.getUserById(7L);
+        userService.getUserByEmail("cached@example.com");
+
+        userService.updateUser(7L, new UserUpdateDto("Renamed", null, null));
+
+        assertNull(cacheManager.getCache(CacheConfig.USERS_BY_ID).get(7L));
+        assertNull(cacheManager.getCache(CacheConfig.USERS_BY_EMAIL).get("cached@example.com"));
+        assertEquals("Renamed", userService.getUserById(7L).getName());
+    }
+
+    @Test
+    @DisplayName("events from other instances should evict the local cache")
+    void remoteEventsShouldEvictLocalCache() {
+        when(userRepository.findDtoById(7L)).thenReturn(Optional.of(storedDto));
+        userService.getUserById(7L);
+
+        UserEvent event = new UserEvent("USER_DELETED", 7L, "cached@example.com", "Cached", 35);
+        cacheListener.onUserEvent(event);
+
+        assertNull(cacheManager.getCache(CacheConfig.USERS_BY_ID).get(7L));
+    }
+}
\ No newline at end of file
@@ -1,23 +1,44 @@
 package com.userservice.service;
 
+import com.userservice.cache.UserCacheInvalidator;
+import com.userservice.dto.UserBatchItemDto;
+import com.userservice.dto.UserBatchResultDto;
 import com.userservice.dto.UserCreateDto;
 import com.userservice.dto.UserDto;
+import com.userservice.dto.UserLookupDto;
+import com.userservice.dto.UserLookupResultDto;
+import com.userservice.dto.UserPageDto;
+import com.userservice.dto.UserSearchCriteria;
 import com.userservice.dto.UserUpdateDto;
 import com.userservice.entity.User;
+import com.userservice.exception.PreconditionFailedException;
 import com.userservice.exception.UserAlreadyExistsException;
 import com.userservice.exception.UserNotFoundException;
+import com.userservice.exception.ValidationException;
 import com.userservice.kafka.UserEvent;
-import com.userservice.kafka.UserEventProducer;
+import com.userservice.kafka.UserEventOutbox;
 import com.userservice.mapper.UserMapper;
+import com.userservice.repository.UserCounterRepository;
+import com.userservice.repository.UserEmailIndexRepository;
 import com.userservice.repository.UserRepository;
+import com.userservice.repository.UserUpdateResult;
+import com.userservice.sharding.UserEmailIndex;
+import com.userservice.sharding.UserIdGenerator;
+import com.userservice.sharding.UserShards;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,8 +47,10 @@ import static org.mockito.Mockito.*;
 class UserServiceImplTest {
 
     private UserRepository userRepository;
-    private UserEventProducer userEventProducer;
+    private UserCounterRepository userCounterRepository;
+    private UserEventOutbox eventOutbox;
     private UserMapper userMapper;
+    private UserCacheInvalidator cacheInvalidator;
     private UserServiceImpl userService;
 
     private UserCreateDto createDto;
@@ -35,9 +58,14 @@ class UserServiceImplTest {
     @BeforeEach
     void setUp() {
         userRepository = mock(UserRepository.class);
-        userEventProducer = mock(UserEventProducer.class);
+        userCounterRepository = mock(UserCounterRepository.class);
+        eventOutbox = mock(UserEventOutbox.class);
         userMapper = spy(new UserMapper());
-        userService = new UserServiceImpl(userRepository, userMapper, userEventProducer);
+        cacheInvalidator = mock(UserCacheInvalidator.class);
+        UserShards userShards = UserShards.single(new UserIdGenerator(0));
+        UserEmailIndex emailIndex = new UserEmailIndex(userShards, userRepository, mock(UserEmailIndexRepository.class));
+        userService = new UserServiceImpl(userRepository, userCounterRepository, userMapper, eventOutbox, cacheInvalidator,
+                userShards, emailIndex);
 
         createDto = new UserCreateDto("John Doe", "john@example.com", 30);
     }
@@ -48,6 +76,8 @@ class UserServiceImplTest {
         when(userRepository.existsByEmail(createDto.getEmail())).thenReturn(false);
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
+            // Unsharded, the id is left to users_seq
+            assertNull(user.getId());
             user.setId(1L);
             user.setCreatedAt(LocalDateTime.now());
             return user;
@@ -63,7 +93,8 @@ class UserServiceImplTest {
         verify(userRepository).save(any(User.class));
 
         ArgumentCaptor<UserEvent> captor = ArgumentCaptor.forClass(UserEvent.class);
-        verify(userEventProducer).sendUserCreatedEvent(captor.capture());
+        verify(eventOutbox).enqueue(captor.capture());
+        verify(userCounterRepository).increment(1);
 
         UserEvent producedEvent = captor.getValue();
         assertEquals("USER_CREATED", producedEvent.getEventType());
@@ -79,85 +110,328 @@ class UserServiceImplTest {
         assertThrows(UserAlreadyExistsException.class, () -> userService.createUser(createDto));
 
         verify(userRepository, never()).save(any());
-        verify(userEventProducer, never()).sendUserCreatedEvent(any());
+        verify(eventOutbox, never()).enqueue(any());
+        verify(userCounterRepository, never()).increment(anyLong());
     }
 
     @Test
-    @DisplayName("getUserById should return mapped dto")
+    @DisplayName("createUsers should insert new users in one batch and report conflicts per item")
+    void createUsersShouldBatchInsertAndReportConflicts() {
+        UserCreateDto fresh = new UserCreateDto("Fresh", "fresh@example.com", 20);
+        UserCreateDto taken = new UserCreateDto("Taken", "taken@example.com", 21);
+        UserCreateDto duplicateInBatch = new UserCreateDto("Fresh Again", "fresh@example.com", 22);
+        UserCreateDto another = new UserCreateDto("Another", "another@example.com", 23);
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("taken@example.com"));
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            long id = 100;
+            for (User user : users) {
+                assertNull(user.getId());
+                user.setId(id++);
+            }
+            return users;
+        });
+
+        UserBatchResultDto result = userService.createUsers(List.of(fresh, taken, duplicateInBatch, another));
+
+        assertEquals(2, result.getCreated());
+        assertEquals(2, result.getConflicts());
+        List<UserBatchItemDto> items = result.getItems();
+        assertEquals(UserBatchItemDto.Status.CREATED, items.get(0).getStatus());
+        assertEquals(100L, items.get(0).getUser().getId());
+        assertEquals(UserBatchItemDto.Status.CONFLICT, items.get(1).getStatus());
+        assertEquals("taken@example.com", items.get(1).getEmail());
+        assertEquals(UserBatchItemDto.Status.CONFLICT, items.get(2).getStatus());
+        assertEquals(UserBatchItemDto.Status.CREATED, items.get(3).getStatus());
+        assertEquals(101L, items.get(3).getUser().getId());
+
+        InOrder order = inOrder(userRepository);
+        order.verify(userRepository).lockEmails(argThat(emails -> emails.size() == 3));
+        order.verify(userRepository).findExistingEmails(anyCollection());
+        order.verify(userRepository).saveAll(anyList());
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userRepository, times(1)).saveAll(anyList());
+        verify(userRepository, never()).save(any());
+
+        ArgumentCaptor<List<UserEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(eventOutbox).enqueueAll(captor.capture());
+        verify(userCounterRepository).increment(2);
+        assertEquals(List.of(100L, 101L), captor.getValue().stream().map(UserEvent::getUserId).toList());
+        verify(eventOutbox, never()).enqueue(any());
+    }
+
+    @Test
+    @DisplayName("createUsers should not publish anything when every item conflicts")
+    void createUsersShouldSkipEventsWhenNothingCreated() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of(createDto.getEmail()));
+        when(userRepository.saveAll(anyList())).thenReturn(List.of());
+
+        UserBatchResultDto result = userService.createUsers(List.of(createDto));
+
+        assertEquals(0, result.getCreated());
+        assertEquals(1, result.getConflicts());
+        verify(eventOutbox, never()).enqueueAll(any());
+        verify(userCounterRepository, never()).increment(anyLong());
+    }
+
+    @Test
+    @DisplayName("getUserById should return the projected dto")
     void getUserByIdShouldReturnDto() {
-        User stored = buildUser(5L, "Stored", "stored@example.com", 40);
-        when(userRepository.findById(5L)).thenReturn(Optional.of(stored));
+        UserDto stored = new UserDto(5L, "Stored", "stored@example.com", 40, LocalDateTime.of(2024, 1, 1, 12, 0));
+        when(userRepository.findDtoById(5L)).thenReturn(Optional.of(stored));
 
         UserDto result = userService.getUserById(5L);
 
         assertEquals(stored.getId(), result.getId());
         assertEquals(stored.getName(), result.getName());
-        verify(userRepository).findById(5L);
+        assertEquals(stored.getCreatedAt(), result.getCreatedAt());
+        verify(userRepository).findDtoById(5L);
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
     @DisplayName("getUserById should throw when user missing")
     void getUserByIdShouldThrowWhenMissing() {
-        when(userRepository.findById(50L)).thenReturn(Optional.empty());
+        when(userRepository.findDtoById(50L)).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> userService.getUserById(50L));
     }
 
     @Test
-    @DisplayName("getAllUsers should map the complete collection")
-    void getAllUsersShouldReturnMappedList() {
-        User first = buildUser(1L, "First", "first@example.com", 20);
-        User second = buildUser(2L, "Second", "second@example.com", 25);
-        when(userRepository.findAll()).thenReturn(List.of(first, second));
+    @DisplayName("getUsers should return first page with next cursor when more rows exist")
+    void getUsersShouldReturnFirstPageWithCursor() {
+        UserDto first = new UserDto(1L, "First", "first@example.com", 20);
+        UserDto second = new UserDto(2L, "Second", "second@example.com", 25);
+        UserDto third = new UserDto(3L, "Third", "third@example.com", 30);
+        when(userRepository.findDtoPage(Limit.of(3))).thenReturn(List.of(first, second, third));
+
+        UserPageDto page = userService.getUsers(null, 2);
+
+        assertEquals(2, page.getContent().size());
+        assertEquals("First", page.getContent().get(0).getName());
+        assertEquals("Second", page.getContent().get(1).getName());
+        assertTrue(page.hasNext());
+        assertEquals(2L, UserCursor.decode(page.getNextCursor()));
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("getUsers should continue after the cursor and stop on the last page")
+    void getUsersShouldContinueAfterCursor() {
+        UserDto third = new UserDto(3L, "Third", "third@example.com", 30);
+        when(userRepository.findDtoPageAfter(2L, Limit.of(3))).thenReturn(List.of(third));
+
+        UserPageDto page = userService.getUsers(UserCursor.encode(2L), 2);
+
+        assertEquals(1, page.getContent().size());
+        assertEquals(3L, page.getContent().get(0).getId());
+        assertFalse(page.hasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("getUsers should cap the page size")
+    void getUsersShouldCapPageSize() {
+        when(userRepository.findDtoPage(any(Limit.class))).thenReturn(List.of());
+
+        userService.getUsers(null, 10_000);
+
+        verify(userRepository).findDtoPage(Limit.of(UserService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    @DisplayName("getUsers should reject malformed cursors and non-positive sizes")
+    void getUsersShouldRejectInvalidInput() {
+        assertThrows(ValidationException.class, () -> userService.getUsers("not-a-cursor", null));
+        assertThrows(ValidationException.class, () -> userService.getUsers(null, 0));
+    }
+
+    @Test
+    @DisplayName("getUsersByIds should keep request order, drop duplicates and report missing ids")
+    void getUsersByIdsShouldPreserveOrderAndReportMissing() {
+        UserDto first = new UserDto(1L, "First", "first@example.com", 20);
+        UserDto third = new UserDto(3L, "Third", "third@example.com", 30);
+        when(userRepository.findDtoByIdIn(List.of(3L, 42L, 1L))).thenReturn(List.of(first, third));
+
+        UserLookupResultDto result = userService.getUsersByIds(List.of(3L, 42L, 1L, 3L));
+
+        assertEquals(List.of(third, first), result.getUsers());
+        assertEquals(List.of(42L), result.getMissingIds());
+        verify(userRepository, times(1)).findDtoByIdIn(anyList());
+        verify(userRepository, never()).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("getUsersByIds should split long id lists into several IN queries")
+    void getUsersByIdsShouldChunkLongLists() {
+        List<Long> ids = LongStream.rangeClosed(1, UserLookupDto.MAX_LOOKUP_SIZE).boxed().toList();
+        when(userRepository.findDtoByIdIn(anyList())).thenReturn(List.of());
+
+        UserLookupResultDto result = userService.getUsersByIds(ids);
+
+        assertTrue(result.getUsers().isEmpty());
+        assertEquals(ids, result.getMissingIds());
+        verify(userRepository).findDtoByIdIn(ids.subList(0, 500));
+        verify(userRepository).findDtoByIdIn(ids.subList(500, 1000));
+    }
+
+    @Test
+    @DisplayName("getUsersByIds should reject empty and oversized id lists")
+    void getUsersByIdsShouldRejectInvalidInput() {
+        List<Long> tooMany = LongStream.rangeClosed(1, UserLookupDto.MAX_LOOKUP_SIZE + 1).boxed().toList();
+
+        assertThrows(ValidationException.class, () -> userService.getUsersByIds(List.of()));
+        assertThrows(ValidationException.class, () -> userService.getUsersByIds(tooMany));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("searchUsers should trim the name, pass filters to the repository and return a cursor")
+    void searchUsersShouldQueryRepositoryWithNormalizedFilters() {
+        UserDto first = new UserDto(1L, "Anna", "anna@example.com", 20);
+        UserDto second = new UserDto(5L, "Joanna", "joanna@example.com", 25);
+        UserSearchCriteria expected = new UserSearchCriteria("anna", 18, null, null, null);
+        when(userRepository.searchPage(expected, 0L, 2)).thenReturn(List.of(first, second));
+
+        UserPageDto page = userService.searchUsers(
+                new UserSearchCriteria("  anna ", 18, null, null, null), UserCursor.encode(0L), 1);
+
+        assertEquals(List.of(first), page.getContent());
+        assertEquals(1L, UserCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    @DisplayName("searchUsers should treat a blank name as no name filter")
+    void searchUsersShouldIgnoreBlankName() {
+        when(userRepository.searchPage(any(), any(), anyInt())).thenReturn(List.of());
+
+        userService.searchUsers(new UserSearchCriteria(" ", null, null, null, null), null, null);
+
+        verify(userRepository).searchPage(new UserSearchCriteria(null, null, null, null, null), null,
+                UserService.DEFAULT_PAGE_SIZE + 1);
+    }
+
+    @Test
+    @DisplayName("searchUsers should reject inverted age and signup ranges")
+    void searchUsersShouldRejectInvertedRanges() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThrows(ValidationException.class, () -> userService.searchUsers(
+                new UserSearchCriteria(null, 40, 20, null, null), null, null));
+        assertThrows(ValidationException.class, () -> userService.searchUsers(
+                new UserSearchCriteria(null, null, null, now, now), null, null));
+        verifyNoInteractions(userRepository);
+    }
 
-        List<UserDto> dtos = userService.getAllUsers();
+    @Test
+    @DisplayName("exportUsers should stream rows from the cursor straight to the sink")
+    void exportUsersShouldStreamToSink() {
+        UserDto streamed = new UserDto(1L, "First", "first@example.com", 20);
+        when(userRepository.streamAllOrderedById(anyInt(), any())).thenAnswer(invocation -> {
+            Consumer<UserDto> sink = invocation.getArgument(1);
+            sink.accept(streamed);
+            return 1L;
+        });
+        List<UserDto> received = new ArrayList<>();
+
+        long exported = userService.exportUsers(received::add);
 
-        assertEquals(2, dtos.size());
-        assertTrue(dtos.stream().anyMatch(dto -> "First".equals(dto.getName())));
-        assertTrue(dtos.stream().anyMatch(dto -> "Second".equals(dto.getName())));
-        verify(userRepository).findAll();
+        assertEquals(1L, exported);
+        assertEquals(List.of(streamed), received);
+        verify(userRepository, never()).findAll();
     }
 
     @Test
     @DisplayName("updateUser should throw when user id not found")
     void updateUserShouldThrowWhenMissing() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.updateReturning(eq(1L), any(UserUpdateDto.class), isNull())).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> userService.updateUser(1L, new UserUpdateDto()));
+        verify(userRepository, never()).existsById(any());
+        verify(eventOutbox, never()).enqueue(any());
     }
 
     @Test
     @DisplayName("updateUser should throw when new email is already taken")
     void updateUserShouldFailWhenEmailTaken() {
-        User stored = buildUser(1L, "John", "john@example.com", 30);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(stored));
-        when(userRepository.existsByEmail("new@example.com")).thenReturn(true);
-
         UserUpdateDto updateDto = new UserUpdateDto();
         updateDto.setEmail("new@example.com");
+        when(userRepository.updateReturning(1L, updateDto, null))
+                .thenThrow(new DuplicateKeyException("duplicate key value violates unique constraint"));
 
         assertThrows(UserAlreadyExistsException.class, () -> userService.updateUser(1L, updateDto));
-        verify(userRepository, never()).save(any());
+        verify(userRepository, never()).existsByEmail(any());
+        verify(eventOutbox, never()).enqueue(any());
     }
 
     @Test
-    @DisplayName("updateUser should persist changes and return dto")
+    @DisplayName("updateUser should apply changes in a single statement and return dto")
     void updateUserShouldPersistChanges() {
-        User stored = buildUser(1L, "John", "john@example.com", 30);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(stored));
-        when(userRepository.existsByEmail("new@example.com")).thenReturn(false);
-        when(userRepository.save(stored)).thenAnswer(invocation -> invocation.getArgument(0));
-
         UserUpdateDto updateDto = new UserUpdateDto("Jane", "new@example.com", 31);
+        when(userRepository.updateReturning(1L, updateDto, null))
+                .thenReturn(Optional.of(updated(1L, "Jane", "new@example.com", 31, "john@example.com")));
 
         UserDto result = userService.updateUser(1L, updateDto);
 
-        assertEquals("Jane", stored.getName());
-        assertEquals("new@example.com", stored.getEmail());
-        assertEquals(31, stored.getAge());
         assertEquals("Jane", result.getName());
         assertEquals("new@example.com", result.getEmail());
-        verify(userRepository).save(stored);
+        assertEquals(31, result.getAge());
+        assertEquals(2L, result.getVersion());
+        verify(userRepository).updateReturning(1L, updateDto, null);
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).existsByEmail(any());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("updateUser should reject a stale expected version without writing")
+    void updateUserShouldRejectStaleVersion() {
+        UserUpdateDto updateDto = new UserUpdateDto("Jane", null, null);
+        when(userRepository.updateReturning(1L, updateDto, 3L)).thenReturn(Optional.empty());
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(updated(1L, "John", "john@example.com", 30, null).user()));
+
+        assertThrows(PreconditionFailedException.class, () -> userService.updateUser(1L, updateDto, 3L));
+
+        verify(cacheInvalidator, never()).evict(any(), any(String[].class));
+        verify(eventOutbox, never()).enqueue(any());
+    }
+
+    @Test
+    @DisplayName("updateUser with an expected version should report missing users as not found")
+    void updateUserWithVersionShouldThrowWhenMissing() {
+        when(userRepository.updateReturning(eq(1L), any(UserUpdateDto.class), eq(3L))).thenReturn(Optional.empty());
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.updateUser(1L, new UserUpdateDto(), 3L));
+    }
+
+    @Test
+    @DisplayName("updateUser should return the current user untouched when nothing changes")
+    void updateUserShouldIgnoreNoOpUpdate() {
+        UserDto current = updated(1L, "John", "john@example.com", 30, null).user();
+        when(userRepository.updateReturning(eq(1L), any(UserUpdateDto.class), eq(2L))).thenReturn(Optional.empty());
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(current));
+
+        UserDto result = userService.updateUser(1L, new UserUpdateDto("John", null, null), 2L);
+
+        assertSame(current, result);
+        verify(cacheInvalidator, never()).evict(any(), any(String[].class));
+        verify(eventOutbox, never()).enqueue(any());
+    }
+
+    @Test
+    @DisplayName("updateUser should invalidate cached entries and publish USER_UPDATED")
+    void updateUserShouldInvalidateCacheAndPublishEvent() {
+        when(userRepository.updateReturning(eq(1L), any(UserUpdateDto.class), isNull()))
+                .thenReturn(Optional.of(updated(1L, "Jane", "jane@example.com", 31, "john@example.com")));
+
+        userService.updateUser(1L, new UserUpdateDto("Jane", "jane@example.com", 31));
+
+        verify(cacheInvalidator).evict(1L, "john@example.com", "jane@example.com");
+        ArgumentCaptor<UserEvent> captor = ArgumentCaptor.forClass(UserEvent.class);
+        verify(eventOutbox).enqueue(captor.capture());
+        assertEquals("USER_UPDATED", captor.getValue().getEventType());
+        assertEquals("john@example.com", captor.getValue().getPreviousEmail());
     }
 
     @Test
@@ -178,8 +452,10 @@ class UserServiceImplTest {
         userService.deleteUser(2L);
 
         verify(userRepository).deleteById(2L);
+        verify(cacheInvalidator).evict(2L, "delete@example.com");
         ArgumentCaptor<UserEvent> captor = ArgumentCaptor.forClass(UserEvent.class);
-        verify(userEventProducer).sendUserDeletedEvent(captor.capture());
+        verify(eventOutbox).enqueue(captor.capture());
+        verify(userCounterRepository).increment(-1);
         UserEvent event = captor.getValue();
         assertEquals("USER_DELETED", event.getEventType());
         assertEquals(stored.getId(), event.getUserId());
@@ -187,37 +463,54 @@ class UserServiceImplTest {
     }
 
     @Test
-    @DisplayName("getUserByEmail should map entity to dto")
+    @DisplayName("getUserByEmail should return the projected dto")
     void getUserByEmailShouldReturnDto() {
-        User stored = buildUser(3L, "ByEmail", "email@example.com", 29);
-        when(userRepository.findByEmail("email@example.com")).thenReturn(Optional.of(stored));
+        UserDto stored = new UserDto(3L, "ByEmail", "email@example.com", 29);
+        when(userRepository.findDtoByEmail("email@example.com")).thenReturn(Optional.of(stored));
 
         UserDto result = userService.getUserByEmail("email@example.com");
 
         assertEquals(stored.getId(), result.getId());
         assertEquals(stored.getEmail(), result.getEmail());
-        verify(userRepository).findByEmail("email@example.com");
+        verify(userRepository).findDtoByEmail("email@example.com");
     }
 
     @Test
     @DisplayName("getUserByEmail should throw when user missing")
     void getUserByEmailShouldThrowWhenMissing() {
-        when(userRepository.findByEmail("missing@example.com")).thenReturn(Optional.empty());
+        when(userRepository.findDtoByEmail("missing@example.com")).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> userService.getUserByEmail("missing@example.com"));
     }
 
     @Test
-    @DisplayName("getUserCount should delegate to repository")
+    @DisplayName("getUserCount should read the maintained counter")
     void getUserCountShouldReturnValue() {
-        when(userRepository.count()).thenReturn(42L);
+        when(userCounterRepository.total()).thenReturn(42L);
 
         long count = userService.getUserCount();
 
+        assertEquals(42L, count);
+        verify(userCounterRepository).total();
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("getExactUserCount should count rows in the repository")
+    void getExactUserCountShouldCountRows() {
+        when(userRepository.count()).thenReturn(42L);
+
+        long count = userService.getExactUserCount();
+
         assertEquals(42L, count);
         verify(userRepository).count();
     }
 
+    private UserUpdateResult updated(Long id, String name, String email, Integer age, String previousEmail) {
+        UserDto user = new UserDto(id, name, email, age, LocalDateTime.now(), LocalDateTime.now(), 2L);
+        return new UserUpdateResult(user, previousEmail);
+    }
+
     private User buildUser(Long id, String name, String email, Integer age) {
         User user = new User();
         user.setId(id);
@@ -228,4 +521,3 @@ class UserServiceImplTest {
         return user;
     }
 }
-
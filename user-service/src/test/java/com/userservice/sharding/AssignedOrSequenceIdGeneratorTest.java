@@ -0,0 +1,27 @@
+package com.userservice.sharding;
+
+import com.userservice.entity.User;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("AssignedOrSequenceIdGenerator tests")
+class AssignedOrSequenceIdGeneratorTest {
+
+    @Test
+    @DisplayName("generate should keep an id assigned before the insert")
+    void generateShouldKeepAssignedId() {
+        User user = new User("John Doe", "john@example.com", 30);
+        user.setId(42L);
+        SharedSessionContractImplementor session = mock(SharedSessionContractImplementor.class);
+        EntityPersister persister = mock(EntityPersister.class);
+        when(session.getEntityPersister(null, user)).thenReturn(persister);
+        when(persister.getIdentifier(user, session)).thenReturn(42L);
+
+        assertEquals(42L, new AssignedOrSequenceIdGenerator().generate(session, user));
+    }
+}
\ No newline at end of file
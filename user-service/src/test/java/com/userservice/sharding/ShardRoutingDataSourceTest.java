@@ -0,0 +1,38 @@
+package com.userservice.sharding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ShardRoutingDataSource tests")
+class ShardRoutingDataSourceTest {
+
+    @Test
+    @DisplayName("Connections should come from the bound shard, shard 0 while none is bound")
+    void connectionsShouldComeFromBoundShard() throws SQLException {
+        DataSource first = mock(DataSource.class);
+        DataSource second = mock(DataSource.class);
+        Connection firstConnection = mock(Connection.class);
+        Connection secondConnection = mock(Connection.class);
+        when(first.getConnection()).thenReturn(firstConnection);
+        when(second.getConnection()).thenReturn(secondConnection);
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(List.of(first, second));
+
+        assertSame(firstConnection, routing.getConnection());
+        try (ShardContext.Binding ignored = ShardContext.bind(1)) {
+            assertSame(secondConnection, routing.getConnection());
+            try (ShardContext.Binding nested = ShardContext.bind(0)) {
+                assertSame(firstConnection, routing.getConnection());
+            }
+            assertSame(secondConnection, routing.getConnection());
+        }
+        assertNull(ShardContext.current());
+    }
+}
\ No newline at end of file
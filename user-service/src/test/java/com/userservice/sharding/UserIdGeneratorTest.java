@@ -0,0 +1,87 @@
+package com.userservice.sharding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UserIdGenerator tests")
+class UserIdGeneratorTest {
+
+    private static final long NOW = UserIdGenerator.EPOCH_MILLIS + 1_000_000;
+
+    @Test
+    @DisplayName("nextId should encode the shard it was generated for")
+    void nextIdShouldEncodeShard() {
+        UserIdGenerator generator = new UserIdGenerator(5);
+
+        for (int shard = 0; shard < UserIdGenerator.MAX_SHARDS; shard++) {
+            assertEquals(shard, UserIdGenerator.shardOf(generator.nextId(shard)));
+        }
+    }
+
+    @Test
+    @DisplayName("nextId should keep increasing past the sequence of one tick")
+    void nextIdShouldIncreaseWithinOneTick() {
+        UserIdGenerator generator = new UserIdGenerator(0, () -> NOW);
+
+        Set<Long> ids = new HashSet<>();
+        long previous = 0;
+        for (int i = 0; i < 5000; i++) {
+            long id = generator.nextId(1);
+            assertTrue(id > previous);
+            assertEquals(1, UserIdGenerator.shardOf(id));
+            ids.add(id);
+            previous = id;
+        }
+        assertEquals(5000, ids.size());
+    }
+
+    @Test
+    @DisplayName("nextId should not repeat ids when the clock goes back")
+    void nextIdShouldIgnoreClockGoingBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        UserIdGenerator generator = new UserIdGenerator(0, clock::get);
+
+        long before = generator.nextId(0);
+        clock.addAndGet(-10_000);
+        long after = generator.nextId(0);
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    @DisplayName("Different workers should generate different ids at the same time")
+    void workersShouldNotCollide() {
+        long first = new UserIdGenerator(1, () -> NOW).nextId(0);
+        long second = new UserIdGenerator(2, () -> NOW).nextId(0);
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    @DisplayName("Ids should stay exact as JavaScript numbers until the timestamp runs out")
+    void idsShouldFitInFiftyThreeBits() {
+        long lastTick = UserIdGenerator.EPOCH_MILLIS + ((1L << 37) - 1) * UserIdGenerator.TICK_MILLIS;
+        long id = new UserIdGenerator(UserIdGenerator.MAX_WORKERS - 1, () -> lastTick).nextId(UserIdGenerator.MAX_SHARDS - 1);
+
+        assertTrue(id > 0 && id < 1L << UserIdGenerator.ID_BITS);
+        assertEquals(UserIdGenerator.MAX_SHARDS - 1, UserIdGenerator.shardOf(id));
+        assertThrows(IllegalStateException.class,
+                () -> new UserIdGenerator(0, () -> lastTick + UserIdGenerator.TICK_MILLIS).nextId(0));
+    }
+
+    @Test
+    @DisplayName("Out of range shards and workers should be rejected")
+    void outOfRangeArgumentsShouldBeRejected() {
+        UserIdGenerator generator = new UserIdGenerator(0);
+
+        assertThrows(IllegalArgumentException.class, () -> generator.nextId(UserIdGenerator.MAX_SHARDS));
+        assertThrows(IllegalArgumentException.class, () -> generator.nextId(-1));
+        assertThrows(IllegalArgumentException.class, () -> new UserIdGenerator(UserIdGenerator.MAX_WORKERS));
+    }
+}
\ No newline at end of file